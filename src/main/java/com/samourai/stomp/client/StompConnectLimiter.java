@@ -0,0 +1,65 @@
+package com.samourai.stomp.client;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits concurrent STOMP handshakes to a server. Each mix keeps its own connection (the server
+ * binds inputs to their STOMP session), but hundreds of clients starting at once won't open
+ * hundreds of websockets simultaneously.
+ */
+public class StompConnectLimiter {
+  private final Logger log = LoggerFactory.getLogger(StompConnectLimiter.class);
+
+  private final int maxConnecting; // <= 0 for unlimited
+  private final Executor executor;
+  private final Queue<Runnable> waiting;
+  private int nbConnecting;
+
+  public StompConnectLimiter(int maxConnecting, Executor executor) {
+    this.maxConnecting = maxConnecting;
+    this.executor = executor;
+    this.waiting = new LinkedList<Runnable>();
+    this.nbConnecting = 0;
+  }
+
+  /** Run doConnect now or when a slot is free. Each run must be followed by onConnectDone(). */
+  public void connect(Runnable doConnect) {
+    synchronized (this) {
+      if (maxConnecting > 0 && nbConnecting >= maxConnecting) {
+        waiting.add(doConnect);
+        if (log.isDebugEnabled()) {
+          log.debug("connect queued: connecting=" + nbConnecting + ", waiting=" + waiting.size());
+        }
+        return;
+      }
+      nbConnecting++;
+    }
+    doConnect.run();
+  }
+
+  /** Handshake succeeded, failed or was cancelled. */
+  public void onConnectDone() {
+    Runnable next;
+    synchronized (this) {
+      next = waiting.poll();
+      if (next == null) {
+        nbConnecting = Math.max(nbConnecting - 1, 0);
+        return;
+      }
+    }
+    // slot is handed over, don't run it on caller's thread
+    executor.execute(next);
+  }
+
+  public synchronized int getNbConnecting() {
+    return nbConnecting;
+  }
+
+  public synchronized int getNbWaiting() {
+    return waiting.size();
+  }
+}
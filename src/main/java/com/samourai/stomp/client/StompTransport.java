@@ -20,6 +20,7 @@ public class StompTransport {
   private IStompTransportListener listener;
 
   private boolean done;
+  private boolean connected;
 
   public StompTransport(
       IStompClientService stompClientService, IStompTransportListener listener, String logPrefix) {
@@ -30,6 +31,7 @@ public class StompTransport {
 
   public synchronized void connect(String wsUrl, Map<String, String> connectHeaders) {
     done = false;
+    connected = false;
     stompClient.connect(
         wsUrl,
         connectHeaders,
@@ -38,7 +40,8 @@ public class StompTransport {
           @Override
           public void onMessage(Void foo) {
             if (!done) {
-              listener.onTransportConnected();
+              connected = true;
+              getListener().onTransportConnected();
             } /* else {
                 if (log.isDebugEnabled()) {
                   log.debug("onMessage: message ignored (done=true)");
@@ -51,7 +54,7 @@ public class StompTransport {
           public void onError(Throwable exception) {
             if (!done) {
               disconnect();
-              listener.onTransportDisconnected(exception);
+              getListener().onTransportDisconnected(exception);
             } /* else {
                 if (log.isDebugEnabled()) {
                   log.debug("onError: message ignored (done=true)");
@@ -117,9 +120,32 @@ public class StompTransport {
       log.debug("disconnect");
     }
     this.done = true;
+    this.connected = false;
     stompClient.disconnect();
   }
 
+  public synchronized boolean isConnected() {
+    return connected && !done;
+  }
+
+  /**
+   * Hand over a connected transport to another listener. Checked under same lock as disconnect(),
+   * so a disconnection is either seen here or notified to the new listener.
+   *
+   * @return false when transport is not connected anymore
+   */
+  public synchronized boolean handOver(IStompTransportListener listener) {
+    if (!isConnected()) {
+      return false;
+    }
+    this.listener = listener;
+    return true;
+  }
+
+  private synchronized IStompTransportListener getListener() {
+    return listener;
+  }
+
   // STOMP communication
 
   public void send(String destination, Object message) {
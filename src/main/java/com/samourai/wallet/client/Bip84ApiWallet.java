@@ -6,6 +6,7 @@ import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
 import com.samourai.wallet.client.indexHandler.IIndexHandler;
 import com.samourai.wallet.hd.HD_Wallet;
 import com.samourai.whirlpool.client.exception.NotifiableException;
+import java.util.Collection;
 import java.util.List;
 import java8.util.function.ToLongFunction;
 import java8.util.stream.StreamSupport;
@@ -61,6 +62,38 @@ public class Bip84ApiWallet extends Bip84Wallet {
     setIndexMin(address.change_index, indexChangeHandler);
   }
 
+  // refresh from utxos paths (M/chain/index), without backend request
+  public void refreshIndexs(Collection<UnspentOutput> utxos) {
+    int accountIndexMin = -1;
+    int changeIndexMin = -1;
+    for (UnspentOutput utxo : utxos) {
+      if (utxo.xpub == null || utxo.xpub.path == null) {
+        continue;
+      }
+      String[] path = utxo.xpub.path.split("/");
+      if (path.length != 3) {
+        continue;
+      }
+      try {
+        int chain = Integer.parseInt(path[1]);
+        int index = Integer.parseInt(path[2]);
+        if (chain == 0) {
+          accountIndexMin = Math.max(accountIndexMin, index + 1);
+        } else if (chain == 1) {
+          changeIndexMin = Math.max(changeIndexMin, index + 1);
+        }
+      } catch (NumberFormatException e) {
+        log.error("Invalid utxo path: " + utxo.xpub.path);
+      }
+    }
+    if (accountIndexMin >= 0) {
+      setIndexMin(accountIndexMin, indexHandler);
+    }
+    if (changeIndexMin >= 0) {
+      setIndexMin(changeIndexMin, indexChangeHandler);
+    }
+  }
+
   private void setIndexMin(int indexMin, IIndexHandler idxHandler) {
     if (idxHandler.get() < indexMin) {
       // update from indexMin
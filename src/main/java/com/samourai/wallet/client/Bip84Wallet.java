@@ -4,6 +4,10 @@ import com.samourai.wallet.api.backend.beans.UnspentResponse;
 import com.samourai.wallet.client.indexHandler.IIndexHandler;
 import com.samourai.wallet.hd.HD_Address;
 import com.samourai.wallet.hd.HD_Wallet;
+import java.util.List;
+import java8.util.function.IntFunction;
+import java8.util.stream.Collectors;
+import java8.util.stream.IntStreams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,6 +41,21 @@ public class Bip84Wallet {
     return getAddressAt(CHAIN_RECEIVE, nextAddressIndex);
   }
 
+  // reserve nb addresses at once, derived in parallel
+  public List<HD_Address> getNextAddresses(int nb) {
+    final int firstIndex = indexHandler.getAndIncrement(nb);
+    return IntStreams.range(firstIndex, firstIndex + nb)
+        .parallel()
+        .mapToObj(
+            new IntFunction<HD_Address>() {
+              @Override
+              public HD_Address apply(int addressIndex) {
+                return getAddressAt(CHAIN_RECEIVE, addressIndex);
+              }
+            })
+        .collect(Collectors.<HD_Address>toList());
+  }
+
   public HD_Address getNextChangeAddress() {
     return getNextChangeAddress(true);
   }
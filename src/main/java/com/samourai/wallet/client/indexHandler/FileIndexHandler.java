@@ -29,8 +29,13 @@ public class FileIndexHandler {
   }
 
   public synchronized int getAndIncrement(String key, int defaultValue) {
+    return getAndIncrement(key, defaultValue, 1);
+  }
+
+  // single write for nb indexs
+  public synchronized int getAndIncrement(String key, int defaultValue, int nb) {
     int value = get(key, defaultValue);
-    set(key, value + 1);
+    set(key, value + nb);
     return value;
   }
 
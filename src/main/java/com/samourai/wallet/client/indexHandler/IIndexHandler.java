@@ -5,6 +5,9 @@ public interface IIndexHandler {
 
   int getAndIncrement();
 
+  // reserve nb consecutive indexs, returns first one
+  int getAndIncrement(int nb);
+
   int get();
 
   void set(int value);
@@ -22,6 +22,11 @@ public class ItemFileIndexHandler extends AbstractIndexHandler {
     return fileIndexHandler.getAndIncrement(key, defaultValue);
   }
 
+  @Override
+  public synchronized int getAndIncrement(int nb) {
+    return fileIndexHandler.getAndIncrement(key, defaultValue, nb);
+  }
+
   @Override
   public synchronized void set(int value) {
     fileIndexHandler.set(key, value);
@@ -19,8 +19,13 @@ public class MemoryIndexHandler extends AbstractIndexHandler {
 
   @Override
   public synchronized int getAndIncrement() {
+    return getAndIncrement(1);
+  }
+
+  @Override
+  public synchronized int getAndIncrement(int nb) {
     int result = index;
-    index++;
+    index += nb;
     return result;
   }
 
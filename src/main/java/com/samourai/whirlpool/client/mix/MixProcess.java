@@ -23,14 +23,18 @@ import com.samourai.whirlpool.protocol.websocket.notifications.ConfirmInputMixSt
 import com.samourai.whirlpool.protocol.websocket.notifications.RegisterOutputMixStatusNotification;
 import com.samourai.whirlpool.protocol.websocket.notifications.RevealOutputMixStatusNotification;
 import com.samourai.whirlpool.protocol.websocket.notifications.SigningMixStatusNotification;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import org.bitcoinj.core.NetworkParameters;
 import org.bitcoinj.core.ProtocolException;
+import org.bitcoinj.core.Sha256Hash;
 import org.bitcoinj.core.Transaction;
 import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutPoint;
 import org.bitcoinj.core.TransactionOutput;
 import org.bouncycastle.crypto.params.RSABlindingParameters;
 import org.bouncycastle.crypto.params.RSAKeyParameters;
@@ -59,6 +63,7 @@ public class MixProcess {
   private boolean liquidity;
   private RSABlindingParameters blindingParams;
   private String receiveAddress;
+  private byte[] receiveScriptPubKey;
   private Utxo receiveUtxo;
 
   // security checks
@@ -151,7 +156,7 @@ public class MixProcess {
       throwProtocolException();
     }
 
-    NetworkParameters networkParameters = config.getNetworkParameters();
+    prepareReceiveAddress();
 
     // use receiveAddress as bordereau. keep it private, but transmit blindedBordereau
     // clear receiveAddress will be provided with unblindedSignedBordereau by connecting with
@@ -159,7 +164,6 @@ public class MixProcess {
     byte[] publicKey = WhirlpoolProtocol.decodeBytes(confirmInputMixStatusNotification.publicKey64);
     RSAKeyParameters serverPublicKey = ClientUtils.publicKeyUnserialize(publicKey);
     this.blindingParams = clientCryptoService.computeBlindingParams(serverPublicKey);
-    this.receiveAddress = postmixHandler.computeReceiveAddress(networkParameters);
 
     String mixId = confirmInputMixStatusNotification.mixId;
     String blindedBordereau64 =
@@ -268,6 +272,14 @@ public class MixProcess {
 
   //
 
+  private void prepareReceiveAddress() throws Exception {
+    if (this.receiveAddress == null) {
+      NetworkParameters params = config.getNetworkParameters();
+      this.receiveAddress = postmixHandler.computeReceiveAddress(params);
+      this.receiveScriptPubKey = bech32Util.computeScriptPubKey(this.receiveAddress, params);
+    }
+  }
+
   private void checkFees(long inputValue, long outputValue) throws NotifiableException {
     long fees = inputValue - outputValue;
 
@@ -316,16 +328,23 @@ public class MixProcess {
   }
 
   private int verifyTx(Transaction tx) throws Exception {
-    NetworkParameters params = config.getNetworkParameters();
+    List<TransactionInput> inputs = tx.getInputs();
+    List<TransactionOutput> outputs = tx.getOutputs();
 
     // verify inputsHash
-    String txInputsHash = computeInputsHash(tx.getInputs());
+    String txInputsHash = computeInputsHash(inputs);
     if (!txInputsHash.equals(inputsHash)) {
       throw new Exception("Inputs hash mismatch. Aborting.");
     }
 
     // verify my output
-    Integer outputIndex = ClientUtils.findTxOutputIndex(this.receiveAddress, tx, params);
+    Integer outputIndex = null;
+    for (int i = 0; i < outputs.size(); i++) {
+      if (Arrays.equals(outputs.get(i).getScriptBytes(), receiveScriptPubKey)) {
+        outputIndex = i;
+        break;
+      }
+    }
     if (outputIndex == null) {
       throw new Exception("Output not found in tx");
     }
@@ -334,59 +353,68 @@ public class MixProcess {
     // verify my input
     UtxoWithBalance utxo = premixHandler.getUtxo();
     Integer inputIndex = TxUtil.getInstance().findInputIndex(tx, utxo.getHash(), utxo.getIndex());
-    if (outputIndex == null) {
+    if (inputIndex == null) {
       throw new Exception("Input not found in tx");
     }
 
     // check fees again
     long inputValue = utxo.getBalance(); // tx.getInput(inputIndex).getValue().getValue(); is null
-    long outputValue = tx.getOutput(outputIndex).getValue().getValue();
+    long outputValue = outputs.get(outputIndex).getValue().getValue();
     checkFees(inputValue, outputValue);
 
     // as many inputs as outputs
-    if (tx.getInputs().size() != tx.getOutputs().size()) {
-      log.error(
-          "inputs.size = " + tx.getInputs().size() + ", outputs.size=" + tx.getOutputs().size());
+    if (inputs.size() != outputs.size()) {
+      log.error("inputs.size = " + inputs.size() + ", outputs.size=" + outputs.size());
       throw new Exception("Inputs size vs outputs size mismatch");
     }
 
     // each input should have unique prev-tx
-    Set<String> uniquePrevTxs = new HashSet<String>();
-    for (TransactionInput input : tx.getInputs()) {
+    Set<Sha256Hash> uniquePrevTxs = new HashSet<Sha256Hash>(inputs.size() * 2);
+    for (TransactionInput input : inputs) {
       // check for prev-tx reuse
-      String prevTxid = input.getOutpoint().getHash().toString();
-      if (uniquePrevTxs.contains(prevTxid)) {
+      Sha256Hash prevTxid = input.getOutpoint().getHash();
+      if (!uniquePrevTxs.add(prevTxid)) {
         throw new Exception("Prev-tx reuse detected: " + prevTxid);
       }
-      uniquePrevTxs.add(prevTxid);
     }
 
-    Set<String> uniqueAdresses = new HashSet<String>();
-    for (TransactionOutput output : tx.getOutputs()) {
+    // compare scriptPubKeys: same address <=> same P2WPKH script
+    Set<ByteBuffer> uniqueScripts = new HashSet<ByteBuffer>(outputs.size() * 2);
+    for (TransactionOutput output : outputs) {
       // each output value should be denomination
-      if (output.getValue().getValue() != poolDenomination) {
-        log.error(
-            "outputValue=" + output.getValue().getValue() + ", denomination=" + poolDenomination);
+      long value = output.getValue().getValue();
+      if (value != poolDenomination) {
+        log.error("outputValue=" + value + ", denomination=" + poolDenomination);
         throw new Exception("Output value mismatch");
       }
 
+      byte[] script = output.getScriptBytes();
+      if (!isP2wpkh(script)) {
+        throw new Exception("Unexpected output script: " + Hex.toHexString(script));
+      }
+
       // check output-address reuse
-      String outputAddressBech32 =
-          bech32Util.getAddressFromScript(new String(Hex.encode(output.getScriptBytes())), params);
-      if (uniqueAdresses.contains(outputAddressBech32)) {
+      if (!uniqueScripts.add(ByteBuffer.wrap(script))) {
+        String outputAddressBech32 =
+            bech32Util.getAddressFromScript(
+                new String(Hex.encode(script)), config.getNetworkParameters());
         throw new Exception("Address reuse detected for output: " + outputAddressBech32);
       }
-      uniqueAdresses.add(outputAddressBech32);
     }
     return inputIndex;
   }
 
+  // OP_0 <20 bytes>
+  private boolean isP2wpkh(byte[] script) {
+    return script.length == 22 && script[0] == 0x00 && script[1] == 0x14;
+  }
+
+  // encoding is owned by whirlpool-protocol: hash inputs exactly as the coordinator does
   private String computeInputsHash(List<TransactionInput> inputs) {
-    List<Utxo> utxos = new ArrayList<Utxo>();
+    List<Utxo> utxos = new ArrayList<Utxo>(inputs.size());
     for (TransactionInput input : inputs) {
-      Utxo utxo =
-          new Utxo(input.getOutpoint().getHash().toString(), input.getOutpoint().getIndex());
-      utxos.add(utxo);
+      TransactionOutPoint outpoint = input.getOutpoint();
+      utxos.add(new Utxo(outpoint.getHash().toString(), outpoint.getIndex()));
     }
     return WhirlpoolProtocol.computeInputsHash(utxos);
   }
@@ -31,6 +31,8 @@ public class MixSession {
 
   // connect data
   private Long connectBeginTime;
+  private int connectAttempt; // consecutive failures
+  private boolean connecting; // holding a StompConnectLimiter slot
 
   // session data
   private MixDialog dialog;
@@ -61,10 +63,48 @@ public class MixSession {
   }
 
   public synchronized void connect() {
+    if (done) {
+      if (log.isDebugEnabled()) {
+        log.debug("connect: done");
+      }
+      return;
+    }
     if (connectBeginTime == null) {
       connectBeginTime = System.currentTimeMillis();
     }
 
+    // use an already connected transport when available
+    IStompTransportListener transportListener = computeTransportListener();
+    StompTransport warmTransport = config.getMixTransportPool().take(poolId, transportListener);
+    if (warmTransport != null) {
+      if (log.isDebugEnabled()) {
+        log.debug("using warm transport");
+      }
+      transport = warmTransport;
+      transportListener.onTransportConnected();
+      return;
+    }
+
+    // wait for a free handshake slot
+    config
+        .getStompConnectLimiter()
+        .connect(
+            new Runnable() {
+              @Override
+              public void run() {
+                doConnect();
+              }
+            });
+  }
+
+  private synchronized void doConnect() {
+    if (done) {
+      // cancelled while waiting
+      config.getStompConnectLimiter().onConnectDone();
+      return;
+    }
+    connecting = true;
+
     String wsUrl = WhirlpoolProtocol.getUrlConnect(config.getServer());
     if (log.isDebugEnabled()) {
       log.debug("connecting to server: " + wsUrl);
@@ -181,6 +221,7 @@ public class MixSession {
     }
     done = true;
     connectBeginTime = null;
+    onConnectDone();
     if (transport != null) {
       transport.disconnect();
     }
@@ -189,6 +230,13 @@ public class MixSession {
     }
   }
 
+  private synchronized void onConnectDone() {
+    if (connecting) {
+      connecting = false;
+      config.getStompConnectLimiter().onConnectDone();
+    }
+  }
+
   public void send(String destination, Object message) {
     if (transport != null) {
       transport.send(destination, message);
@@ -213,11 +261,13 @@ public class MixSession {
 
       @Override
       public synchronized void onTransportConnected() {
+        onConnectDone();
         if (log.isDebugEnabled()) {
           long elapsedTime = (System.currentTimeMillis() - connectBeginTime) / 1000;
           log.debug("Connected in " + elapsedTime + "s");
         }
         connectBeginTime = null;
+        connectAttempt = 0;
 
         // will get SubscribePoolResponse and start dialog
         subscribe();
@@ -229,6 +279,7 @@ public class MixSession {
       public synchronized void onTransportDisconnected(Throwable exception) {
         // transport cannot be used
         transport = null;
+        onConnectDone();
 
         if (done) {
           if (log.isDebugEnabled()) {
@@ -240,7 +291,7 @@ public class MixSession {
         if (log.isDebugEnabled()) {
           log.debug("onTransportDisconnected", exception);
         }
-        long reconnectDelay = 0;
+        int attempt = 0;
         if (connectBeginTime != null) {
           // we were trying connect
           long elapsedTime = System.currentTimeMillis() - connectBeginTime;
@@ -249,14 +300,11 @@ public class MixSession {
             log.info(
                 " ! Failed to connect to server. Please check your connectivity or retry later.");
             connectBeginTime = null;
+            connectAttempt = 0;
             listener.exitOnDisconnected();
             return;
           }
-
-          // wait delay before retrying
-          log.info(" ! connexion failed, retrying in " + config.getReconnectDelay() + "s");
-          listener.onConnectionFailWillRetry(config.getReconnectDelay());
-          reconnectDelay = config.getReconnectDelay() * 1000L;
+          attempt = ++connectAttempt;
         } else {
           // we just got disconnected
           log.error(" ! connexion lost, reconnecting for a new mix...");
@@ -271,28 +319,24 @@ public class MixSession {
           return;
         }
 
-        if (reconnectDelay > 0) {
-          // reconnect after delay. use a new thread to avoid waiting on android's mainThread
-          final long waitDelay = reconnectDelay;
-          Thread reconnectThread =
-              new Thread(
-                  new Runnable() {
-                    @Override
-                    public synchronized void run() {
-                      try {
-                        wait(waitDelay);
-                      } catch (Exception e) {
-                        log.error("", e);
+        // reconnect after a random delay, so clients don't all reconnect at once after a server
+        // restart. don't hold any thread (nor android's mainThread) while waiting
+        long reconnectDelay =
+            config
+                .getReconnectScheduler()
+                .schedule(
+                    poolId,
+                    attempt,
+                    new Runnable() {
+                      @Override
+                      public void run() {
+                        connect();
                       }
-                      connect();
-                    }
-                  },
-                  "mixSession-reconnect-" + logPrefix);
-          reconnectThread.setDaemon(true);
-          reconnectThread.start();
-        } else {
-          // reconnect now
-          connect();
+                    });
+        if (attempt > 0) {
+          int retryDelay = (int) (reconnectDelay / 1000);
+          log.info(" ! connexion failed, retrying in " + retryDelay + "s");
+          listener.onConnectionFailWillRetry(retryDelay);
         }
       }
     };
@@ -0,0 +1,183 @@
+package com.samourai.whirlpool.client.mix.dialog;
+
+import com.samourai.stomp.client.IStompTransportListener;
+import com.samourai.stomp.client.StompTransport;
+import com.samourai.whirlpool.client.whirlpool.WhirlpoolClientConfig;
+import com.samourai.whirlpool.protocol.WhirlpoolProtocol;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Connected transports kept ready for each pool, so a starting mix skips the handshake. A warm
+ * transport is not subscribed and carries no input until it's handed over to a MixSession.
+ */
+public class MixTransportPool {
+  private final Logger log = LoggerFactory.getLogger(MixTransportPool.class);
+
+  private WhirlpoolClientConfig config;
+  private Map<String, Integer> targets; // by poolId
+  private Map<String, List<WarmTransport>> transports; // connected or connecting, by poolId
+  private int warmId;
+
+  public MixTransportPool(WhirlpoolClientConfig config) {
+    this.config = config;
+    this.targets = new HashMap<String, Integer>();
+    this.transports = new HashMap<String, List<WarmTransport>>();
+    this.warmId = 0;
+  }
+
+  /** @return connected transport now listening to listener, or null */
+  public synchronized StompTransport take(String poolId, IStompTransportListener listener) {
+    StompTransport result = null;
+    Iterator<WarmTransport> it = getTransports(poolId).iterator();
+    while (it.hasNext()) {
+      WarmTransport warmTransport = it.next();
+      if (warmTransport.transport.isConnected()) {
+        it.remove();
+        if (warmTransport.transport.handOver(listener)) {
+          result = warmTransport.transport;
+          break;
+        }
+        // disconnected meanwhile, refilled below
+      }
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("[" + poolId + "] take: " + (result != null ? "warm" : "none ready"));
+    }
+    refill(poolId);
+    return result;
+  }
+
+  /** Keep nbTransports ready for pool, capped by config.getWarmTransports(). */
+  public synchronized void setTarget(String poolId, int nbTransports) {
+    int target = Math.max(0, Math.min(nbTransports, config.getWarmTransports()));
+    Integer previous = targets.put(poolId, target);
+    if (previous != null && previous == target) {
+      return;
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("[" + poolId + "] target: " + target);
+    }
+
+    // close extra transports
+    List<WarmTransport> poolTransports = getTransports(poolId);
+    while (poolTransports.size() > target) {
+      poolTransports.remove(poolTransports.size() - 1).close();
+    }
+    refill(poolId);
+  }
+
+  public synchronized void stop() {
+    targets.clear();
+    for (List<WarmTransport> poolTransports : transports.values()) {
+      for (WarmTransport warmTransport : poolTransports) {
+        warmTransport.close();
+      }
+    }
+    transports.clear();
+  }
+
+  private List<WarmTransport> getTransports(String poolId) {
+    List<WarmTransport> poolTransports = transports.get(poolId);
+    if (poolTransports == null) {
+      poolTransports = new ArrayList<WarmTransport>();
+      transports.put(poolId, poolTransports);
+    }
+    return poolTransports;
+  }
+
+  private void refill(String poolId) {
+    Integer target = targets.get(poolId);
+    List<WarmTransport> poolTransports = getTransports(poolId);
+    while (target != null && poolTransports.size() < target) {
+      WarmTransport warmTransport = new WarmTransport(poolId, "warm-" + (++warmId));
+      poolTransports.add(warmTransport);
+      warmTransport.connect();
+    }
+  }
+
+  private synchronized void onDisconnected(final WarmTransport warmTransport) {
+    final String poolId = warmTransport.poolId;
+    if (!getTransports(poolId).remove(warmTransport)) {
+      return; // taken or closed
+    }
+    // retry later, don't hammer server when unreachable
+    config
+        .getClientScheduler()
+        .schedule(
+            new Runnable() {
+              @Override
+              public void run() {
+                synchronized (MixTransportPool.this) {
+                  refill(poolId);
+                }
+              }
+            },
+            config.getReconnectDelay(),
+            TimeUnit.SECONDS);
+  }
+
+  private class WarmTransport implements IStompTransportListener {
+    private final String poolId;
+    private final StompTransport transport;
+    private boolean connecting; // holding a StompConnectLimiter slot
+    private boolean closed;
+
+    WarmTransport(String poolId, String logPrefix) {
+      this.poolId = poolId;
+      this.transport = new StompTransport(config.getStompClientService(), this, logPrefix);
+      this.connecting = false;
+      this.closed = false;
+    }
+
+    void connect() {
+      config
+          .getStompConnectLimiter()
+          .connect(
+              new Runnable() {
+                @Override
+                public void run() {
+                  doConnect();
+                }
+              });
+    }
+
+    private synchronized void doConnect() {
+      if (closed) {
+        // closed while waiting
+        config.getStompConnectLimiter().onConnectDone();
+        return;
+      }
+      connecting = true;
+      Map<String, String> connectHeaders = new HashMap<String, String>();
+      connectHeaders.put(WhirlpoolProtocol.HEADER_POOL_ID, poolId);
+      transport.connect(WhirlpoolProtocol.getUrlConnect(config.getServer()), connectHeaders);
+    }
+
+    private synchronized void onConnectDone() {
+      if (connecting) {
+        connecting = false;
+        config.getStompConnectLimiter().onConnectDone();
+      }
+    }
+
+    synchronized void close() {
+      closed = true;
+      onConnectDone();
+      transport.disconnect();
+    }
+
+    @Override
+    public void onTransportConnected() {
+      onConnectDone();
+    }
+
+    @Override
+    public void onTransportDisconnected(Throwable exception) {
+      onConnectDone();
+      onDisconnected(this);
+    }
+  }
+}
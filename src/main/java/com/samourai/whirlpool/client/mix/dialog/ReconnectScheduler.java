@@ -0,0 +1,118 @@
+package com.samourai.whirlpool.client.mix.dialog;
+
+import com.samourai.whirlpool.client.utils.ClientUtils;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reconnects of all MixSessions, with exponential backoff and full jitter: when the server
+ * restarts, clients don't reconnect at the same instant. Threads are never held while waiting.
+ */
+public class ReconnectScheduler {
+  private static final int BACKOFF_MAX_ATTEMPT = 16; // avoid overflow
+
+  private ScheduledExecutorService scheduler;
+  private Executor executor;
+  private long delayBase; // millis
+  private long delayMax; // millis
+  private Map<String, ReconnectStats> statsByPool;
+
+  public ReconnectScheduler(
+      ScheduledExecutorService scheduler, Executor executor, long delayBase, long delayMax) {
+    this.scheduler = scheduler;
+    this.executor = executor;
+    this.delayBase = delayBase;
+    this.delayMax = Math.max(delayMax, delayBase);
+    this.statsByPool = new ConcurrentHashMap<String, ReconnectStats>();
+  }
+
+  /**
+   * @param attempt consecutive failures (0 after a connection was lost)
+   * @return delay in millis
+   */
+  public long schedule(String poolId, int attempt, final Runnable reconnect) {
+    long delay = computeDelay(attempt);
+    final ReconnectStats stats = getStats(poolId);
+    stats.onScheduled(attempt, delay);
+    scheduler.schedule(
+        new Runnable() {
+          @Override
+          public void run() {
+            stats.onRun();
+            executor.execute(reconnect);
+          }
+        },
+        delay,
+        TimeUnit.MILLISECONDS);
+    return delay;
+  }
+
+  // random in [0, min(delayMax, delayBase * 2^attempt)]
+  protected long computeDelay(int attempt) {
+    long cap = Math.min(delayMax, delayBase << Math.min(attempt, BACKOFF_MAX_ATTEMPT));
+    return ClientUtils.random(0, (int) Math.min(cap, Integer.MAX_VALUE - 1));
+  }
+
+  public synchronized ReconnectStats getStats(String poolId) {
+    ReconnectStats stats = statsByPool.get(poolId);
+    if (stats == null) {
+      stats = new ReconnectStats();
+      statsByPool.put(poolId, stats);
+    }
+    return stats;
+  }
+
+  public Map<String, ReconnectStats> getStats() {
+    return new HashMap<String, ReconnectStats>(statsByPool);
+  }
+
+  public static class ReconnectStats {
+    private int nbReconnects; // scheduled since start
+    private int nbWaiting; // scheduled, not run yet
+    private int lastAttempt;
+    private long lastDelay; // millis
+
+    private synchronized void onScheduled(int attempt, long delay) {
+      nbReconnects++;
+      nbWaiting++;
+      lastAttempt = attempt;
+      lastDelay = delay;
+    }
+
+    private synchronized void onRun() {
+      nbWaiting--;
+    }
+
+    public synchronized int getNbReconnects() {
+      return nbReconnects;
+    }
+
+    public synchronized int getNbWaiting() {
+      return nbWaiting;
+    }
+
+    public synchronized int getLastAttempt() {
+      return lastAttempt;
+    }
+
+    public synchronized long getLastDelay() {
+      return lastDelay;
+    }
+
+    @Override
+    public synchronized String toString() {
+      return "nbReconnects="
+          + nbReconnects
+          + ", nbWaiting="
+          + nbWaiting
+          + ", lastAttempt="
+          + lastAttempt
+          + ", lastDelay="
+          + lastDelay;
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.samourai.whirlpool.client.tx0;
 
+import com.samourai.wallet.hd.HD_Address;
 import java.util.List;
 import org.bitcoinj.core.Transaction;
 import org.bitcoinj.core.TransactionOutput;
@@ -7,17 +8,23 @@ import org.bitcoinj.core.TransactionOutput;
 public class Tx0 extends Tx0Preview {
   private Transaction tx;
   private List<TransactionOutput> premixOutputs;
+  private List<HD_Address> premixAddresses;
   private TransactionOutput changeOutput;
+  private HD_Address changeAddress;
 
   public Tx0(
       Tx0Preview tx0Preview,
       Transaction tx,
       List<TransactionOutput> premixOutputs,
-      TransactionOutput changeOutput) {
+      List<HD_Address> premixAddresses,
+      TransactionOutput changeOutput,
+      HD_Address changeAddress) {
     super(tx0Preview);
     this.tx = tx;
     this.premixOutputs = premixOutputs;
+    this.premixAddresses = premixAddresses;
     this.changeOutput = changeOutput;
+    this.changeAddress = changeAddress;
   }
 
   public Transaction getTx() {
@@ -28,7 +35,16 @@ public class Tx0 extends Tx0Preview {
     return premixOutputs;
   }
 
+  // same order as premixOutputs
+  public List<HD_Address> getPremixAddresses() {
+    return premixAddresses;
+  }
+
   public TransactionOutput getChangeOutput() {
     return changeOutput;
   }
+
+  public HD_Address getChangeAddress() {
+    return changeAddress;
+  }
 }
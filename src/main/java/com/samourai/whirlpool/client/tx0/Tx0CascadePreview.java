@@ -0,0 +1,75 @@
+package com.samourai.whirlpool.client.tx0;
+
+import java.util.List;
+
+/** Chained Tx0s: change of each Tx0 is spent by the next one, in a smaller pool. */
+public class Tx0CascadePreview {
+  private List<Tx0Param> tx0Params;
+  private List<Tx0Preview> tx0Previews;
+
+  public Tx0CascadePreview(List<Tx0Param> tx0Params, List<Tx0Preview> tx0Previews) {
+    this.tx0Params = tx0Params;
+    this.tx0Previews = tx0Previews;
+  }
+
+  public List<Tx0Param> getTx0Params() {
+    return tx0Params;
+  }
+
+  public List<Tx0Preview> getTx0Previews() {
+    return tx0Previews;
+  }
+
+  public int getNbPremix() {
+    int nbPremix = 0;
+    for (Tx0Preview tx0Preview : tx0Previews) {
+      nbPremix += tx0Preview.getNbPremix();
+    }
+    return nbPremix;
+  }
+
+  public long getMinerFee() {
+    long minerFee = 0;
+    for (Tx0Preview tx0Preview : tx0Previews) {
+      minerFee += tx0Preview.getMinerFee();
+    }
+    return minerFee;
+  }
+
+  // value entering pools
+  public long getPremixSum() {
+    long premixSum = 0;
+    for (Tx0Preview tx0Preview : tx0Previews) {
+      premixSum += tx0Preview.getPremixValue() * tx0Preview.getNbPremix();
+    }
+    return premixSum;
+  }
+
+  // final change, not spent by cascade
+  public long getChangeValue() {
+    return tx0Previews.get(tx0Previews.size() - 1).getChangeValue();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < tx0Previews.size(); i++) {
+      sb.append(
+          "\n#"
+              + i
+              + " pool="
+              + tx0Params.get(i).getPool().getPoolId()
+              + ": "
+              + tx0Previews.get(i));
+    }
+    return "nbPremix="
+        + getNbPremix()
+        + ", premixSum="
+        + getPremixSum()
+        + ", minerFee="
+        + getMinerFee()
+        + ", changeValue="
+        + getChangeValue()
+        + sb.toString();
+  }
+}
@@ -0,0 +1,227 @@
+package com.samourai.whirlpool.client.tx0;
+
+import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
+import java.util.*;
+import java8.lang.Longs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selects Tx0 inputs: maximize nbPremix, then minimize change, then minimize inputs (miner fee).
+ */
+public class Tx0CoinSelector {
+  private final Logger log = LoggerFactory.getLogger(Tx0CoinSelector.class);
+  private static final int BNB_TRIES_MAX = 100000;
+  protected static final int NB_INPUTS_MAX = 200;
+
+  private Tx0Service tx0Service;
+
+  public Tx0CoinSelector(Tx0Service tx0Service) {
+    this.tx0Service = tx0Service;
+  }
+
+  /** @return selected utxos, or empty list when nbPremixMin can't be reached */
+  public List<UnspentOutput> select(
+      Collection<UnspentOutput> candidates, Tx0Param tx0Param, int nbPremixMin, Integer maxOutputs) {
+    final long premixValue = tx0Param.getPremixValue();
+    final long feeValue = tx0Param.getPool().getFeeValue();
+    final int feeTx0 = tx0Param.getFeeTx0();
+    int nbPremixCap = Tx0Service.NB_PREMIX_MAX;
+    if (maxOutputs != null) {
+      nbPremixCap = Math.min(maxOutputs, nbPremixCap);
+    }
+
+    // cost of each additional input
+    long inputFee =
+        tx0Service.computeTx0MinerFee(nbPremixCap, feeTx0, 2)
+            - tx0Service.computeTx0MinerFee(nbPremixCap, feeTx0, 1);
+
+    // biggest first, ignore inputs not worth their fee
+    List<UnspentOutput> sorted = new ArrayList<UnspentOutput>();
+    for (UnspentOutput utxo : candidates) {
+      if (utxo.value > inputFee) {
+        sorted.add(utxo);
+      }
+    }
+    Collections.sort(
+        sorted,
+        new Comparator<UnspentOutput>() {
+          @Override
+          public int compare(UnspentOutput o1, UnspentOutput o2) {
+            return Longs.compare(o2.value, o1.value);
+          }
+        });
+
+    // greedy: highest nbPremix reachable
+    List<UnspentOutput> greedy = new ArrayList<UnspentOutput>();
+    int nbPremix = 0;
+    List<UnspentOutput> prefix = new ArrayList<UnspentOutput>();
+    for (UnspentOutput utxo : sorted) {
+      if (prefix.size() >= NB_INPUTS_MAX) {
+        break;
+      }
+      prefix.add(utxo);
+      int prefixNbPremix = computeNbPremix(prefix, premixValue, feeValue, feeTx0, nbPremixCap);
+      if (prefixNbPremix > nbPremix) {
+        nbPremix = prefixNbPremix;
+        greedy = new ArrayList<UnspentOutput>(prefix);
+      }
+      if (nbPremix >= nbPremixCap) {
+        break;
+      }
+    }
+    if (nbPremix < Math.max(nbPremixMin, 1)) {
+      return new ArrayList<UnspentOutput>();
+    }
+    greedy = prune(greedy, nbPremix, premixValue, feeValue, feeTx0, nbPremixCap);
+
+    // branch & bound: least change for nbPremix
+    long target =
+        premixValue * nbPremix
+            + feeValue
+            + tx0Service.computeTx0MinerFee(nbPremix, feeTx0, 0);
+    List<UnspentOutput> bnb = branchAndBound(sorted, inputFee, target);
+
+    List<UnspentOutput> result = greedy;
+    if (bnb != null
+        && computeNbPremix(bnb, premixValue, feeValue, feeTx0, nbPremixCap) >= nbPremix
+        && computeChange(bnb, premixValue, nbPremix, feeValue, feeTx0)
+            < computeChange(greedy, premixValue, nbPremix, feeValue, feeTx0)) {
+      result = bnb;
+    }
+    if (log.isDebugEnabled()) {
+      log.debug(
+          "select: nbPremix="
+              + nbPremix
+              + ", nbInputs="
+              + result.size()
+              + "/"
+              + candidates.size()
+              + ", change="
+              + computeChange(result, premixValue, nbPremix, feeValue, feeTx0)
+              + (result == bnb ? " (bnb)" : " (greedy)"));
+    }
+    return result;
+  }
+
+  // drop inputs not required for nbPremix, smallest change first
+  private List<UnspentOutput> prune(
+      List<UnspentOutput> selection,
+      int nbPremix,
+      long premixValue,
+      long feeValue,
+      int feeTx0,
+      int nbPremixCap) {
+    List<UnspentOutput> result = new ArrayList<UnspentOutput>(selection);
+    for (int i = result.size() - 1; i >= 0 && result.size() > 1; i--) {
+      UnspentOutput removed = result.remove(i);
+      if (computeNbPremix(result, premixValue, feeValue, feeTx0, nbPremixCap) < nbPremix) {
+        result.add(i, removed);
+      }
+    }
+    return result;
+  }
+
+  private List<UnspentOutput> branchAndBound(
+      List<UnspentOutput> sorted, long inputFee, long target) {
+    int n = sorted.size();
+    long[] effectiveValues = new long[n];
+    long[] remaining = new long[n + 1]; // sum of effectiveValues from index
+    for (int i = 0; i < n; i++) {
+      effectiveValues[i] = sorted.get(i).value - inputFee;
+    }
+    for (int i = n - 1; i >= 0; i--) {
+      remaining[i] = remaining[i + 1] + effectiveValues[i];
+    }
+    BnbSearch search = new BnbSearch(effectiveValues, remaining, target);
+    search.run(0, 0, 0);
+    if (search.best == null) {
+      return null;
+    }
+    List<UnspentOutput> result = new ArrayList<UnspentOutput>();
+    for (int i = 0; i < search.bestSize; i++) {
+      result.add(sorted.get(search.best[i]));
+    }
+    return result;
+  }
+
+  private int computeNbPremix(
+      Collection<UnspentOutput> spendFroms,
+      long premixValue,
+      long feeValue,
+      int feeTx0,
+      int nbPremixCap) {
+    int nbPremix = tx0Service.computeNbPremixMax(premixValue, spendFroms, feeValue, feeTx0);
+    return Math.min(nbPremix, nbPremixCap);
+  }
+
+  private long computeChange(
+      Collection<UnspentOutput> spendFroms,
+      long premixValue,
+      int nbPremix,
+      long feeValue,
+      int feeTx0) {
+    long balance = tx0Service.computeSpendFromBalance(spendFroms);
+    long minerFee = tx0Service.computeTx0MinerFee(nbPremix, feeTx0, spendFroms);
+    return balance - (premixValue * nbPremix + feeValue + minerFee);
+  }
+
+  private static class BnbSearch {
+    private final long[] effectiveValues;
+    private final long[] remaining;
+    private final long target;
+    private final int[] selected;
+    private int tries;
+    private int[] best;
+    private int bestSize;
+    private long bestExcess;
+
+    BnbSearch(long[] effectiveValues, long[] remaining, long target) {
+      this.effectiveValues = effectiveValues;
+      this.remaining = remaining;
+      this.target = target;
+      this.selected = new int[Math.min(effectiveValues.length, NB_INPUTS_MAX)];
+      this.tries = 0;
+      this.best = null;
+      this.bestSize = 0;
+      this.bestExcess = Long.MAX_VALUE;
+    }
+
+    void run(int i, long sum, int size) {
+      while (true) {
+        if (++tries > BNB_TRIES_MAX || bestExcess == 0) {
+          return;
+        }
+        if (sum >= target) {
+          // adding more inputs only adds change
+          long excess = sum - target;
+          if (excess < bestExcess || (excess == bestExcess && size < bestSize)) {
+            bestExcess = excess;
+            bestSize = size;
+            best = Arrays.copyOf(selected, size);
+          }
+          return;
+        }
+        if (i >= effectiveValues.length
+            || size >= selected.length
+            || sum + remaining[i] < target) {
+          // target unreachable
+          return;
+        }
+
+        // include (unless it can't beat best)
+        if (sum + effectiveValues[i] - target < bestExcess) {
+          selected[size] = i;
+          run(i + 1, sum + effectiveValues[i], size + 1);
+        }
+
+        // exclude, skipping equivalent inputs which would give same results
+        int next = i + 1;
+        while (next < effectiveValues.length && effectiveValues[next] == effectiveValues[i]) {
+          next++;
+        }
+        i = next;
+      }
+    }
+  }
+}
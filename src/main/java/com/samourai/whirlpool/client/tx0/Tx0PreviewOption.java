@@ -0,0 +1,48 @@
+package com.samourai.whirlpool.client.tx0;
+
+import com.samourai.whirlpool.client.wallet.beans.Tx0FeeTarget;
+import com.samourai.whirlpool.client.whirlpool.beans.Pool;
+
+public class Tx0PreviewOption {
+  private Tx0FeeTarget feeTarget;
+  private Tx0Param tx0Param;
+  private Tx0Preview tx0Preview;
+
+  public Tx0PreviewOption(Tx0FeeTarget feeTarget, Tx0Param tx0Param, Tx0Preview tx0Preview) {
+    this.feeTarget = feeTarget;
+    this.tx0Param = tx0Param;
+    this.tx0Preview = tx0Preview;
+  }
+
+  // total spent, excluding premixs & change
+  public long computeFees() {
+    return tx0Preview.getMinerFee() + tx0Preview.computeFeeValueOrFeeChange();
+  }
+
+  public Pool getPool() {
+    return tx0Param.getPool();
+  }
+
+  public Tx0FeeTarget getFeeTarget() {
+    return feeTarget;
+  }
+
+  public Tx0Param getTx0Param() {
+    return tx0Param;
+  }
+
+  public Tx0Preview getTx0Preview() {
+    return tx0Preview;
+  }
+
+  @Override
+  public String toString() {
+    return "poolId="
+        + getPool().getPoolId()
+        + ", feeTarget="
+        + feeTarget
+        + ", tx0Preview=["
+        + tx0Preview
+        + "]";
+  }
+}
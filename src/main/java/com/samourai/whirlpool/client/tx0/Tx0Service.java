@@ -9,17 +9,29 @@ import com.samourai.wallet.segwit.bech32.Bech32UtilGeneric;
 import com.samourai.wallet.util.FeeUtil;
 import com.samourai.whirlpool.client.exception.NotifiableException;
 import com.samourai.whirlpool.client.utils.BIP69InputComparatorUnspentOutput;
+import com.samourai.whirlpool.client.utils.Bip143Hasher;
 import com.samourai.whirlpool.client.utils.ClientUtils;
+import com.samourai.whirlpool.client.utils.RefreshAheadSupplier;
 import com.samourai.whirlpool.client.wallet.WhirlpoolWalletConfig;
+import com.samourai.whirlpool.client.wallet.beans.Tx0FeeTarget;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolWalletAccount;
 import com.samourai.whirlpool.client.whirlpool.beans.Pool;
 import com.samourai.whirlpool.client.whirlpool.beans.Tx0Data;
 import com.samourai.whirlpool.protocol.WhirlpoolProtocol;
 import com.samourai.whirlpool.protocol.fee.WhirlpoolFee;
 import com.samourai.whirlpool.protocol.rest.Tx0DataResponse;
+import com.zeroleak.throwingsupplier.ThrowingSupplier;
 import java.util.*;
+import java.util.concurrent.*;
+import java8.lang.Longs;
+import java8.util.Lists;
+import java8.util.function.IntFunction;
 import java8.util.function.ToLongFunction;
+import java8.util.stream.Collectors;
+import java8.util.stream.IntStreams;
 import java8.util.stream.StreamSupport;
 import org.bitcoinj.core.*;
+import org.bitcoinj.crypto.TransactionSignature;
 import org.bitcoinj.script.Script;
 import org.bitcoinj.script.ScriptBuilder;
 import org.bitcoinj.script.ScriptOpCodes;
@@ -36,13 +48,18 @@ public class Tx0Service {
   private final FeeUtil feeUtil = FeeUtil.getInstance();
 
   private WhirlpoolWalletConfig config;
+  private ConcurrentMap<String, RefreshAheadSupplier<Tx0Data>> tx0DatasCached; // by poolId
+  private ExecutorService tx0Executor;
+  private final Object tx0DataConsumeLock = new Object();
 
   public Tx0Service(WhirlpoolWalletConfig config) {
     this.config = config;
     whirlpoolFee = WhirlpoolFee.getInstance(config.getSecretPointFactory());
+    this.tx0DatasCached = new ConcurrentHashMap<String, RefreshAheadSupplier<Tx0Data>>();
+    this.tx0Executor = Executors.newCachedThreadPool(ClientUtils.threadFactory("tx0", true));
   }
 
-  private int computeNbPremixMax(
+  protected int computeNbPremixMax(
       long premixValue,
       Collection<? extends UnspentResponse.UnspentOutput> spendFrom,
       long feeValueOrFeeChange,
@@ -52,47 +69,59 @@ public class Tx0Service {
     // compute nbPremix ignoring TX0 fee
     int nbPremixInitial = (int) Math.ceil(spendFromBalance / premixValue);
 
-    // compute nbPremix with TX0 fee
-    int nbPremix = nbPremixInitial;
-    while (true) {
-      // estimate TX0 fee for nbPremix
-      long tx0MinerFee = computeTx0MinerFee(nbPremix, feeTx0, spendFrom);
-      long spendValue =
-          computeTx0SpendValue(premixValue, nbPremix, feeValueOrFeeChange, tx0MinerFee);
-      if (log.isDebugEnabled()) {
-        log.debug(
-            "computeNbPremixMax: nbPremix="
-                + nbPremix
-                + " => spendValue="
-                + spendValue
-                + ", tx0MinerFee="
-                + tx0MinerFee
-                + ", spendFromBalance="
-                + spendFromBalance
-                + ", nbPremixInitial="
-                + nbPremixInitial);
-      }
-      if (spendFromBalance < spendValue) {
-        // if UTXO balance is insufficient, try with less nbPremix
-        nbPremix--;
+    // spendValue grows with nbPremix: binary search highest nbPremix affordable with TX0 fee
+    int low = 0;
+    int high = nbPremixInitial;
+    if (!isNbPremixAffordable(
+        low, premixValue, spendFrom, spendFromBalance, feeValueOrFeeChange, feeTx0)) {
+      // no negative value
+      return 0;
+    }
+    while (low < high) {
+      int nbPremix = low + (high - low + 1) / 2;
+      if (isNbPremixAffordable(
+          nbPremix, premixValue, spendFrom, spendFromBalance, feeValueOrFeeChange, feeTx0)) {
+        low = nbPremix;
       } else {
-        // nbPremix found
-        break;
+        // if UTXO balance is insufficient, try with less nbPremix
+        high = nbPremix - 1;
       }
     }
-    // no negative value
-    if (nbPremix < 0) {
-      nbPremix = 0;
+    if (log.isDebugEnabled()) {
+      log.debug(
+          "computeNbPremixMax: nbPremix="
+              + low
+              + ", spendFromBalance="
+              + spendFromBalance
+              + ", nbPremixInitial="
+              + nbPremixInitial);
     }
-    return nbPremix;
+    return low;
+  }
+
+  private boolean isNbPremixAffordable(
+      int nbPremix,
+      long premixValue,
+      Collection<? extends UnspentResponse.UnspentOutput> spendFrom,
+      long spendFromBalance,
+      long feeValueOrFeeChange,
+      int feeTx0) {
+    // estimate TX0 fee for nbPremix
+    long tx0MinerFee = computeTx0MinerFee(nbPremix, feeTx0, spendFrom);
+    long spendValue =
+        computeTx0SpendValue(premixValue, nbPremix, feeValueOrFeeChange, tx0MinerFee);
+    return spendFromBalance >= spendValue;
   }
 
   protected long computeTx0MinerFee(
       int nbPremix, long feeTx0, Collection<? extends UnspentResponse.UnspentOutput> spendFroms) {
-    int nbOutputsNonOpReturn = nbPremix + 2; // outputs + change + fee
-
     // spendFroms can be NULL (for fee simulation)
     int nbSpendFroms = (spendFroms != null ? spendFroms.size() : 1);
+    return computeTx0MinerFee(nbPremix, feeTx0, nbSpendFroms);
+  }
+
+  protected long computeTx0MinerFee(int nbPremix, long feeTx0, int nbSpendFroms) {
+    int nbOutputsNonOpReturn = nbPremix + 2; // outputs + change + fee
 
     // spend from N bech32 input
     long tx0MinerFee =
@@ -138,11 +167,91 @@ public class Tx0Service {
   public Tx0Preview tx0Preview(
       Collection<UnspentOutputWithKey> spendFroms, Tx0Config tx0Config, Tx0Param tx0Param)
       throws Exception {
-    // fetch fresh Tx0Data
-    Tx0Data tx0Data = fetchTx0Data(tx0Param.getPool().getPoolId());
+    // local computation when Tx0Data is cached
+    Tx0Data tx0Data = getTx0DataCached(tx0Param.getPool().getPoolId());
     return tx0Preview(spendFroms, tx0Config, tx0Param, tx0Data);
   }
 
+  /** Preview each pool & fee target, best first: most premixs, then lowest fees. */
+  public List<Tx0PreviewOption> tx0Previews(
+      final Collection<UnspentOutputWithKey> spendFroms,
+      final Tx0Config tx0Config,
+      Map<Tx0FeeTarget, Tx0ParamSimple> tx0ParamsByFeeTarget,
+      Collection<Pool> pools)
+      throws Exception {
+    long spendFromBalance = computeSpendFromBalance(spendFroms);
+
+    // skip pools out of reach
+    Map<Pool, Map<Tx0FeeTarget, Tx0Param>> tx0ParamsByPool =
+        new LinkedHashMap<Pool, Map<Tx0FeeTarget, Tx0Param>>();
+    for (Pool pool : pools) {
+      Map<Tx0FeeTarget, Tx0Param> poolTx0Params = new LinkedHashMap<Tx0FeeTarget, Tx0Param>();
+      for (Map.Entry<Tx0FeeTarget, Tx0ParamSimple> entry : tx0ParamsByFeeTarget.entrySet()) {
+        Tx0Param tx0Param = entry.getValue().computeTx0Param(pool);
+        if (spendFromBalance >= computeSpendFromBalanceMin(tx0Param, 1)) {
+          poolTx0Params.put(entry.getKey(), tx0Param);
+        }
+      }
+      if (!poolTx0Params.isEmpty()) {
+        tx0ParamsByPool.put(pool, poolTx0Params);
+      }
+    }
+
+    // fetch Tx0Data for all pools at once
+    Map<Pool, Tx0Data> tx0Datas = getTx0DatasCached(tx0ParamsByPool.keySet());
+
+    // preview each pool & fee target
+    List<Callable<Tx0PreviewOption>> tasks = new ArrayList<Callable<Tx0PreviewOption>>();
+    for (Map.Entry<Pool, Map<Tx0FeeTarget, Tx0Param>> poolEntry : tx0ParamsByPool.entrySet()) {
+      final Tx0Data tx0Data = tx0Datas.get(poolEntry.getKey());
+      if (tx0Data == null) {
+        continue;
+      }
+      for (Map.Entry<Tx0FeeTarget, Tx0Param> entry : poolEntry.getValue().entrySet()) {
+        final Tx0FeeTarget feeTarget = entry.getKey();
+        final Tx0Param tx0Param = entry.getValue();
+        tasks.add(
+            new Callable<Tx0PreviewOption>() {
+              @Override
+              public Tx0PreviewOption call() throws Exception {
+                Tx0Preview tx0Preview = tx0Preview(spendFroms, tx0Config, tx0Param, tx0Data);
+                return new Tx0PreviewOption(feeTarget, tx0Param, tx0Preview);
+              }
+            });
+      }
+    }
+    List<Tx0PreviewOption> tx0PreviewOptions = new ArrayList<Tx0PreviewOption>();
+    for (Future<Tx0PreviewOption> future : tx0Executor.invokeAll(tasks)) {
+      try {
+        Tx0PreviewOption tx0PreviewOption = future.get();
+        if (tx0PreviewOption.getTx0Preview().getNbPremix() > 0) {
+          tx0PreviewOptions.add(tx0PreviewOption);
+        }
+      } catch (ExecutionException e) {
+        // not possible for this pool & fee target
+        if (log.isDebugEnabled()) {
+          log.debug("tx0Previews: " + e.getCause().getMessage());
+        }
+      }
+    }
+
+    // best first
+    Collections.sort(
+        tx0PreviewOptions,
+        new Comparator<Tx0PreviewOption>() {
+          @Override
+          public int compare(Tx0PreviewOption o1, Tx0PreviewOption o2) {
+            int nbPremix1 = o1.getTx0Preview().getNbPremix();
+            int nbPremix2 = o2.getTx0Preview().getNbPremix();
+            if (nbPremix1 != nbPremix2) {
+              return nbPremix2 - nbPremix1;
+            }
+            return Longs.compare(o1.computeFees(), o2.computeFees());
+          }
+        });
+    return tx0PreviewOptions;
+  }
+
   protected Tx0Preview tx0Preview(
       Collection<UnspentOutputWithKey> spendFroms,
       Tx0Config tx0Config,
@@ -198,7 +307,62 @@ public class Tx0Service {
     return tx0Preview;
   }
 
-  /** Generate maxOutputs premixes outputs max. */
+  /**
+   * Plan chained Tx0s, largest pool first: change of each Tx0 is spent by next Tx0 in a smaller
+   * pool.
+   */
+  public Tx0CascadePreview tx0CascadePreview(
+      Collection<UnspentOutputWithKey> spendFroms,
+      Tx0Config tx0Config,
+      Collection<Tx0Param> tx0Params)
+      throws Exception {
+    List<Tx0Param> tx0ParamsByPremixValue = new ArrayList<Tx0Param>(tx0Params);
+    Collections.sort(
+        tx0ParamsByPremixValue,
+        new Comparator<Tx0Param>() {
+          @Override
+          public int compare(Tx0Param o1, Tx0Param o2) {
+            return Longs.compare(o2.getPremixValue(), o1.getPremixValue());
+          }
+        });
+
+    List<Tx0Param> cascadeTx0Params = new ArrayList<Tx0Param>();
+    List<Tx0Preview> cascadeTx0Previews = new ArrayList<Tx0Preview>();
+    Collection<UnspentOutputWithKey> stepSpendFroms = spendFroms;
+    for (Tx0Param tx0Param : tx0ParamsByPremixValue) {
+      if (computeSpendFromBalance(stepSpendFroms) < computeSpendFromBalanceMin(tx0Param, 1)) {
+        // too small for this pool
+        continue;
+      }
+      Tx0Data tx0Data = getTx0DataCached(tx0Param.getPool().getPoolId());
+      Tx0Preview tx0Preview = tx0Preview(stepSpendFroms, tx0Config, tx0Param, tx0Data);
+      if (tx0Preview.getNbPremix() < 1) {
+        continue;
+      }
+      cascadeTx0Params.add(tx0Param);
+      cascadeTx0Previews.add(tx0Preview);
+      if (tx0Preview.getChangeValue() <= 0) {
+        break;
+      }
+
+      // next Tx0 spends this change
+      UnspentResponse.UnspentOutput change = new UnspentResponse.UnspentOutput();
+      change.value = tx0Preview.getChangeValue();
+      stepSpendFroms = Lists.of(new UnspentOutputWithKey(change, null));
+    }
+
+    if (cascadeTx0Previews.isEmpty()) {
+      long spendFromBalance = computeSpendFromBalance(spendFroms);
+      throw new NotifiableException("Insufficient utxo value for Tx0: " + spendFromBalance);
+    }
+    Tx0CascadePreview tx0CascadePreview =
+        new Tx0CascadePreview(cascadeTx0Params, cascadeTx0Previews);
+    if (log.isDebugEnabled()) {
+      log.debug("tx0CascadePreview: " + tx0CascadePreview);
+    }
+    return tx0CascadePreview;
+  }
+
   public Tx0 tx0(
       Collection<UnspentOutputWithKey> spendFroms,
       Bip84Wallet depositWallet,
@@ -209,8 +373,9 @@ public class Tx0Service {
       Tx0Param tx0Param)
       throws Exception {
 
-    // compute & preview
-    Tx0Preview tx0Preview = tx0Preview(spendFroms, tx0Config, tx0Param);
+    // compute & preview, reusing Tx0Data from preview
+    Tx0Data tx0Data = consumeTx0Data(tx0Param.getPool().getPoolId());
+    Tx0Preview tx0Preview = tx0Preview(spendFroms, tx0Config, tx0Param, tx0Data);
 
     log.info(
         " • Tx0: spendFrom="
@@ -306,6 +471,96 @@ public class Tx0Service {
         feeOrBackAddressBech32);
   }
 
+  /** Build chained Tx0s, to be pushed in order. */
+  public List<Tx0> tx0Cascade(
+      Collection<UnspentOutputWithKey> spendFroms,
+      Bip84Wallet depositWallet,
+      Bip84Wallet premixWallet,
+      Bip84Wallet postmixWallet,
+      Bip84Wallet badbankWallet,
+      Tx0Config tx0Config,
+      Tx0CascadePreview tx0CascadePreview)
+      throws Exception {
+    List<Tx0Preview> tx0Previews = tx0CascadePreview.getTx0Previews();
+
+    // Tx0Datas from preview are used now, don't serve them again
+    for (Tx0Param tx0Param : tx0CascadePreview.getTx0Params()) {
+      clearTx0Data(tx0Param.getPool().getPoolId());
+    }
+
+    // intermediate change is spent right away from deposit
+    Tx0Config stepTx0Config =
+        new Tx0Config()
+            .setMaxOutputs(tx0Config.getMaxOutputs())
+            .setChangeWallet(WhirlpoolWalletAccount.DEPOSIT);
+    stepTx0Config.setOverspend(tx0Config.getOverspend());
+
+    List<Tx0> tx0s = new ArrayList<Tx0>();
+    Collection<UnspentOutputWithKey> stepSpendFroms = spendFroms;
+    for (int i = 0; i < tx0Previews.size(); i++) {
+      boolean last = (i == tx0Previews.size() - 1);
+      Tx0 tx0 =
+          tx0(
+              stepSpendFroms,
+              depositWallet,
+              premixWallet,
+              postmixWallet,
+              badbankWallet,
+              last ? tx0Config : stepTx0Config,
+              tx0Previews.get(i));
+      tx0s.add(tx0);
+      if (!last) {
+        stepSpendFroms = Lists.of(computeChangeSpendFrom(tx0));
+      }
+    }
+    return tx0s;
+  }
+
+  private UnspentOutputWithKey computeChangeSpendFrom(Tx0 tx0) throws Exception {
+    UnspentResponse.UnspentOutput change = computeChangeUtxo(tx0, null);
+    if (change == null) {
+      throw new Exception("No change to chain next Tx0");
+    }
+    byte[] changeKey = tx0.getChangeAddress().getECKey().getPrivKeyBytes();
+    return new UnspentOutputWithKey(change, changeKey);
+  }
+
+  // utxos as listed by backend once Tx0 is indexed
+  public List<UnspentResponse.UnspentOutput> computePremixUtxos(Tx0 tx0, String premixZpub)
+      throws Exception {
+    List<UnspentResponse.UnspentOutput> premixUtxos =
+        new ArrayList<UnspentResponse.UnspentOutput>();
+    for (int i = 0; i < tx0.getPremixOutputs().size(); i++) {
+      premixUtxos.add(
+          computeUtxo(
+              tx0, tx0.getPremixOutputs().get(i), tx0.getPremixAddresses().get(i), premixZpub));
+    }
+    return premixUtxos;
+  }
+
+  public UnspentResponse.UnspentOutput computeChangeUtxo(Tx0 tx0, String changeZpub)
+      throws Exception {
+    if (tx0.getChangeOutput() == null) {
+      return null;
+    }
+    return computeUtxo(tx0, tx0.getChangeOutput(), tx0.getChangeAddress(), changeZpub);
+  }
+
+  private UnspentResponse.UnspentOutput computeUtxo(
+      Tx0 tx0, TransactionOutput output, HD_Address address, String zpub) throws Exception {
+    UnspentResponse.UnspentOutput utxo = new UnspentResponse.UnspentOutput();
+    utxo.tx_hash = tx0.getTx().getHashAsString();
+    utxo.tx_output_n = output.getIndex();
+    utxo.value = output.getValue().getValue();
+    utxo.script = Hex.toHexString(output.getScriptBytes());
+    utxo.addr = bech32Util.toBech32(address, config.getNetworkParameters());
+    utxo.confirmations = 0;
+    utxo.xpub = new UnspentResponse.UnspentOutput.Xpub();
+    utxo.xpub.m = zpub;
+    utxo.xpub.path = address.toJSON().get("path").toString();
+    return utxo;
+  }
+
   protected Tx0 tx0(
       List<UnspentOutputWithKey> sortedSpendFroms,
       Bip84Wallet depositWallet,
@@ -451,34 +706,18 @@ public class Tx0Service {
     //
     // premix outputs
     //
-    List<TransactionOutput> premixOutputs = new ArrayList<TransactionOutput>();
-    for (int j = 0; j < nbPremix; j++) {
-      // send to PREMIX
-      HD_Address toAddress = premixWallet.getNextAddress();
-      String toAddressBech32 = bech32Util.toBech32(toAddress, params);
-      if (log.isDebugEnabled()) {
-        log.debug(
-            "Tx0 out (premix): address="
-                + toAddressBech32
-                + ", path="
-                + toAddress.toJSON().get("path")
-                + " ("
-                + premixValue
-                + " sats)");
-      }
-
-      TransactionOutput txOutSpend =
-          bech32Util.getTransactionOutput(toAddressBech32, premixValue, params);
-      outputs.add(txOutSpend);
-      premixOutputs.add(txOutSpend);
-    }
+    List<HD_Address> premixAddresses = premixWallet.getNextAddresses(nbPremix);
+    List<TransactionOutput> premixOutputs =
+        computePremixOutputs(premixAddresses, premixValue, params);
+    outputs.addAll(premixOutputs);
 
     TransactionOutput changeOutput = null;
+    HD_Address changeAddress = null;
     if (changeValue > 0) {
       //
       // 1 change output
       //
-      HD_Address changeAddress = changeWallet.getNextChangeAddress();
+      changeAddress = changeWallet.getNextChangeAddress();
       String changeAddressBech32 = bech32Util.toBech32(changeAddress, params);
       changeOutput = bech32Util.getTransactionOutput(changeAddressBech32, changeValue, params);
       outputs.add(changeOutput);
@@ -549,21 +788,76 @@ public class Tx0Service {
     signTx0(tx, sortedSpendFroms, params);
     tx.verify();
 
-    Tx0 tx0 = new Tx0(tx0Preview, tx, premixOutputs, changeOutput);
+    Tx0 tx0 =
+        new Tx0(tx0Preview, tx, premixOutputs, premixAddresses, changeOutput, changeAddress);
     return tx0;
   }
 
+  // send to PREMIX: all addresses reserved at once & derived in parallel
+  private List<TransactionOutput> computePremixOutputs(
+      List<HD_Address> premixAddresses, long premixValue, NetworkParameters params)
+      throws Exception {
+    List<TransactionOutput> premixOutputs = new ArrayList<TransactionOutput>();
+    for (HD_Address toAddress : premixAddresses) {
+      String toAddressBech32 = bech32Util.toBech32(toAddress, params);
+      if (log.isDebugEnabled()) {
+        log.debug(
+            "Tx0 out (premix): address="
+                + toAddressBech32
+                + ", path="
+                + toAddress.toJSON().get("path")
+                + " ("
+                + premixValue
+                + " sats)");
+      }
+      TransactionOutput txOutSpend =
+          bech32Util.getTransactionOutput(toAddressBech32, premixValue, params);
+      premixOutputs.add(txOutSpend);
+    }
+    return premixOutputs;
+  }
+
+  // inputs are signed once all of them are added (see signTx0)
   protected void buildTx0Input(
       Transaction tx, UnspentOutputWithKey input, NetworkParameters params) {
-    ECKey spendFromKey = ECKey.fromPrivate(input.getKey());
     TransactionOutPoint depositSpendFrom = input.computeOutpoint(params);
-    final Script segwitPubkeyScript = ScriptBuilder.createP2WPKHOutputScript(spendFromKey);
-    tx.addSignedInput(depositSpendFrom, segwitPubkeyScript, spendFromKey);
+    tx.addInput(
+        new TransactionInput(params, tx, new byte[0], depositSpendFrom, Coin.valueOf(input.value)));
   }
 
+  // sign P2WPKH inputs in parallel, sharing BIP143 midstates
   protected void signTx0(
-      Transaction tx, Collection<UnspentOutputWithKey> inputs, NetworkParameters params) {
-    // inputs were already signed
+      final Transaction tx, Collection<UnspentOutputWithKey> inputs, NetworkParameters params) {
+    final List<UnspentOutputWithKey> inputList = new ArrayList<UnspentOutputWithKey>(inputs);
+    final Bip143Hasher bip143Hasher = new Bip143Hasher(tx);
+    List<TransactionWitness> witnesses =
+        IntStreams.range(0, inputList.size())
+            .parallel()
+            .mapToObj(
+                new IntFunction<TransactionWitness>() {
+                  @Override
+                  public TransactionWitness apply(int inputIndex) {
+                    UnspentOutputWithKey input = inputList.get(inputIndex);
+                    ECKey spendFromKey = ECKey.fromPrivate(input.getKey());
+                    Sha256Hash sigHash =
+                        bip143Hasher.hashForSignature(
+                            inputIndex, spendFromKey.getPubKeyHash(), input.value);
+                    TransactionSignature sig =
+                        new TransactionSignature(
+                            spendFromKey.sign(sigHash), Transaction.SigHash.ALL, false);
+
+                    TransactionWitness witness = new TransactionWitness(2);
+                    witness.setPush(0, sig.encodeToBitcoin());
+                    witness.setPush(1, spendFromKey.getPubKey());
+                    return witness;
+                  }
+                })
+            .collect(Collectors.<TransactionWitness>toList());
+
+    // tx is not thread-safe
+    for (int i = 0; i < witnesses.size(); i++) {
+      tx.setWitness(i, witnesses.get(i));
+    }
   }
 
   public Collection<Pool> findPools(
@@ -598,8 +892,92 @@ public class Tx0Service {
     return (utxoValue >= balanceMin);
   }
 
-  protected Tx0Data fetchTx0Data(String poolId) throws HttpException, NotifiableException {
-    String url = WhirlpoolProtocol.getUrlTx0Data(config.getServer(), poolId, config.getScode());
+  private RefreshAheadSupplier<Tx0Data> getTx0DataSupplier(
+      final String poolId, final String scode) {
+    String key = poolId + ":" + scode;
+    RefreshAheadSupplier<Tx0Data> supplier = tx0DatasCached.get(key);
+    if (supplier == null) {
+      supplier =
+          new RefreshAheadSupplier<Tx0Data>(
+              "tx0Data-" + poolId,
+              new ThrowingSupplier<Tx0Data, Exception>() {
+                @Override
+                public Tx0Data getOrThrow() throws Exception {
+                  return fetchTx0Data(poolId, scode);
+                }
+              },
+              config.getRefreshTx0DataDelay() * 1000L,
+              config.getRefreshTx0DataExpireDelay() * 1000L,
+              tx0Executor);
+      RefreshAheadSupplier<Tx0Data> existing = tx0DatasCached.putIfAbsent(key, supplier);
+      if (existing != null) {
+        supplier = existing;
+      }
+    }
+    return supplier;
+  }
+
+  // for previews: may be served to several callers
+  protected Tx0Data getTx0DataCached(String poolId) throws Exception {
+    return getTx0DataSupplier(poolId, config.getScode()).get().getOrThrow();
+  }
+
+  // for Tx0: same Tx0Data as last preview, then never served again
+  protected Tx0Data consumeTx0Data(String poolId) throws Exception {
+    RefreshAheadSupplier<Tx0Data> supplier = getTx0DataSupplier(poolId, config.getScode());
+    synchronized (tx0DataConsumeLock) {
+      Tx0Data tx0Data = supplier.get().getOrThrow();
+      supplier.expire();
+      supplier.refresh(); // prefetch next one
+      return tx0Data;
+    }
+  }
+
+  protected Map<Pool, Tx0Data> getTx0DatasCached(Collection<Pool> pools)
+      throws InterruptedException {
+    List<Callable<Tx0Data>> tasks = new ArrayList<Callable<Tx0Data>>();
+    for (final Pool pool : pools) {
+      tasks.add(
+          new Callable<Tx0Data>() {
+            @Override
+            public Tx0Data call() throws Exception {
+              return getTx0DataCached(pool.getPoolId());
+            }
+          });
+    }
+    List<Future<Tx0Data>> futures = tx0Executor.invokeAll(tasks);
+    Map<Pool, Tx0Data> tx0Datas = new LinkedHashMap<Pool, Tx0Data>();
+    Iterator<Pool> poolIterator = pools.iterator();
+    for (Future<Tx0Data> future : futures) {
+      Pool pool = poolIterator.next();
+      try {
+        tx0Datas.put(pool, future.get());
+      } catch (ExecutionException e) {
+        log.warn("Tx0Data unavailable for poolId=" + pool.getPoolId(), e.getCause());
+      }
+    }
+    return tx0Datas;
+  }
+
+  // when Tx0Data was rejected
+  public void clearTx0Data(String poolId) {
+    String keyPrefix = poolId + ":";
+    for (Map.Entry<String, RefreshAheadSupplier<Tx0Data>> entry : tx0DatasCached.entrySet()) {
+      if (entry.getKey().startsWith(keyPrefix)) {
+        entry.getValue().expire();
+      }
+    }
+  }
+
+  public void clearTx0Datas() {
+    for (RefreshAheadSupplier<Tx0Data> supplier : tx0DatasCached.values()) {
+      supplier.expire();
+    }
+  }
+
+  protected Tx0Data fetchTx0Data(String poolId, String scode)
+      throws HttpException, NotifiableException {
+    String url = WhirlpoolProtocol.getUrlTx0Data(config.getServer(), poolId, scode);
     try {
       Tx0DataResponse tx0Response =
           config.getHttpClient().getJson(url, Tx0DataResponse.class, null);
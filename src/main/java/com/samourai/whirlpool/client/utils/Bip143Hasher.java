@@ -0,0 +1,69 @@
+package com.samourai.whirlpool.client.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.bitcoinj.core.*;
+
+/**
+ * BIP143 SIGHASH_ALL for P2WPKH inputs. hashPrevouts, hashSequence and hashOutputs are shared by
+ * all inputs and computed once, so hashing each input doesn't depend on transaction size.
+ */
+public class Bip143Hasher {
+  private static final int PREIMAGE_LENGTH = 4 + 32 + 32 + 36 + 26 + 8 + 4 + 32 + 4 + 4;
+
+  private final Transaction tx;
+  private final byte[] hashPrevouts;
+  private final byte[] hashSequence;
+  private final byte[] hashOutputs;
+
+  public Bip143Hasher(Transaction tx) {
+    this.tx = tx;
+
+    int nbInputs = tx.getInputs().size();
+    ByteBuffer prevouts = ByteBuffer.allocate(36 * nbInputs);
+    ByteBuffer sequences = ByteBuffer.allocate(4 * nbInputs).order(ByteOrder.LITTLE_ENDIAN);
+    for (TransactionInput input : tx.getInputs()) {
+      prevouts.put(input.getOutpoint().bitcoinSerialize());
+      sequences.putInt((int) input.getSequenceNumber());
+    }
+    ByteArrayOutputStream outputs = new ByteArrayOutputStream();
+    for (TransactionOutput output : tx.getOutputs()) {
+      byte[] outputBytes = output.bitcoinSerialize();
+      outputs.write(outputBytes, 0, outputBytes.length);
+    }
+    this.hashPrevouts = Sha256Hash.hashTwice(prevouts.array());
+    this.hashSequence = Sha256Hash.hashTwice(sequences.array());
+    this.hashOutputs = Sha256Hash.hashTwice(outputs.toByteArray());
+  }
+
+  // thread-safe
+  public Sha256Hash hashForSignature(int inputIndex, byte[] pubKeyHash, long value) {
+    TransactionInput input = tx.getInput(inputIndex);
+    ByteBuffer preimage = ByteBuffer.allocate(PREIMAGE_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    preimage.putInt((int) tx.getVersion());
+    preimage.put(hashPrevouts);
+    preimage.put(hashSequence);
+    preimage.put(input.getOutpoint().bitcoinSerialize());
+    preimage.put(computeScriptCode(pubKeyHash));
+    preimage.putLong(value);
+    preimage.putInt((int) input.getSequenceNumber());
+    preimage.put(hashOutputs);
+    preimage.putInt((int) tx.getLockTime());
+    preimage.putInt(Transaction.SigHash.ALL.value);
+    return Sha256Hash.twiceOf(preimage.array());
+  }
+
+  // P2PKH script for P2WPKH, prefixed with its length
+  private byte[] computeScriptCode(byte[] pubKeyHash) {
+    byte[] scriptCode = new byte[26];
+    scriptCode[0] = 0x19;
+    scriptCode[1] = (byte) 0x76; // OP_DUP
+    scriptCode[2] = (byte) 0xa9; // OP_HASH160
+    scriptCode[3] = 0x14;
+    System.arraycopy(pubKeyHash, 0, scriptCode, 4, 20);
+    scriptCode[24] = (byte) 0x88; // OP_EQUALVERIFY
+    scriptCode[25] = (byte) 0xac; // OP_CHECKSIG
+    return scriptCode;
+  }
+}
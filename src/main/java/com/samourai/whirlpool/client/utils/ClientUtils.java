@@ -16,6 +16,7 @@ import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoState;
 import com.samourai.whirlpool.protocol.WhirlpoolProtocol;
 import com.samourai.whirlpool.protocol.rest.RestErrorResponse;
 import java.io.*;
+import java.lang.reflect.Method;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.security.KeyFactory;
@@ -25,6 +26,10 @@ import java.security.spec.X509EncodedKeySpec;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.bitcoinj.core.*;
 import org.bouncycastle.crypto.params.RSAKeyParameters;
 import org.slf4j.Logger;
@@ -203,6 +208,28 @@ public class ClientUtils {
     }
   }
 
+  public static ThreadFactory threadFactory(final String name, final boolean daemon) {
+    final AtomicInteger threadId = new AtomicInteger(0);
+    return new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, name + "-" + threadId.incrementAndGet());
+        thread.setDaemon(daemon);
+        return thread;
+      }
+    };
+  }
+
+  public static ExecutorService newVirtualThreadExecutor() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) method.invoke(null);
+    } catch (Exception e) {
+      // virtual threads not supported by this runtime
+      return null;
+    }
+  }
+
   public static String sha256Hash(String str) {
     return sha256Hash(str.getBytes());
   }
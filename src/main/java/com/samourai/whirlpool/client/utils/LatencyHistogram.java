@@ -0,0 +1,119 @@
+package com.samourai.whirlpool.client.utils;
+
+/**
+ * Fixed-memory histogram with logarithmic buckets (HdrHistogram-like): values below 32 are exact,
+ * larger values are recorded with ~6% precision, up to 2^31.
+ */
+public class LatencyHistogram {
+  private static final int EXACT_VALUES = 32;
+  private static final int SUB_BUCKETS = 16; // per power of 2
+  private static final int MIN_EXP = 5; // 2^5 = EXACT_VALUES
+  private static final int MAX_EXP = 30;
+  private static final int NB_BUCKETS = EXACT_VALUES + (MAX_EXP - MIN_EXP + 1) * SUB_BUCKETS;
+  public static final long MAX_VALUE = (1L << (MAX_EXP + 1)) - 1;
+
+  private final long[] counts;
+  private long count;
+  private long sum;
+  private long min;
+  private long max;
+
+  public LatencyHistogram() {
+    this.counts = new long[NB_BUCKETS];
+    this.count = 0;
+    this.sum = 0;
+    this.min = 0;
+    this.max = 0;
+  }
+
+  private LatencyHistogram(LatencyHistogram copy) {
+    this.counts = copy.counts.clone();
+    this.count = copy.count;
+    this.sum = copy.sum;
+    this.min = copy.min;
+    this.max = copy.max;
+  }
+
+  public synchronized void record(long value) {
+    value = Math.max(0, Math.min(value, MAX_VALUE));
+    counts[bucketIndex(value)]++;
+    if (count == 0 || value < min) {
+      min = value;
+    }
+    if (value > max) {
+      max = value;
+    }
+    count++;
+    sum += value;
+  }
+
+  /** @return highest value of the bucket holding this percentile (0-100) */
+  public synchronized long getValueAtPercentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100) / 100));
+    long seen = 0;
+    for (int i = 0; i < NB_BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(Math.max(bucketHighestValue(i), min), max);
+      }
+    }
+    return max;
+  }
+
+  public synchronized long getCount() {
+    return count;
+  }
+
+  public synchronized long getMin() {
+    return min;
+  }
+
+  public synchronized long getMax() {
+    return max;
+  }
+
+  public synchronized double getMean() {
+    return count > 0 ? (double) sum / count : 0;
+  }
+
+  public synchronized LatencyHistogram copy() {
+    return new LatencyHistogram(this);
+  }
+
+  protected static int bucketIndex(long value) {
+    if (value < EXACT_VALUES) {
+      return (int) value;
+    }
+    int exp = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exp - 4)) - SUB_BUCKETS; // 4 bits after the leading one
+    return EXACT_VALUES + (exp - MIN_EXP) * SUB_BUCKETS + subBucket;
+  }
+
+  protected static long bucketHighestValue(int index) {
+    if (index < EXACT_VALUES) {
+      return index;
+    }
+    int exp = MIN_EXP + (index - EXACT_VALUES) / SUB_BUCKETS;
+    long subBucket = SUB_BUCKETS + (index - EXACT_VALUES) % SUB_BUCKETS;
+    return ((subBucket + 1) << (exp - 4)) - 1;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "count="
+        + count
+        + ", mean="
+        + Math.round(getMean())
+        + ", p50="
+        + getValueAtPercentile(50)
+        + ", p90="
+        + getValueAtPercentile(90)
+        + ", p99="
+        + getValueAtPercentile(99)
+        + ", max="
+        + max;
+  }
+}
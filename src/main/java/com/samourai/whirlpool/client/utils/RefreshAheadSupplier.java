@@ -0,0 +1,174 @@
+package com.samourai.whirlpool.client.utils;
+
+import com.google.common.base.Supplier;
+import com.zeroleak.throwingsupplier.Throwing;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stale-while-revalidate supplier: serves last value until hardTtl, refreshes in background after
+ * softTtl. Concurrent loads are deduplicated.
+ */
+public class RefreshAheadSupplier<T> implements Supplier<Throwing<T, Exception>> {
+  private final Logger log = LoggerFactory.getLogger(RefreshAheadSupplier.class);
+
+  private final String name;
+  private final Supplier<Throwing<T, Exception>> loader;
+  private final long softTtl; // millis
+  private final long hardTtl; // millis
+  private final Executor executor;
+  private final Object fetchLock; // never run two loads at once
+
+  private Throwing<T, Exception> value;
+  private long loadedAt;
+  private int generation;
+  private Load loading;
+
+  public RefreshAheadSupplier(
+      String name,
+      Supplier<Throwing<T, Exception>> loader,
+      long softTtl,
+      long hardTtl,
+      Executor executor) {
+    this.name = name;
+    this.loader = loader;
+    this.softTtl = softTtl;
+    this.hardTtl = Math.max(hardTtl, softTtl);
+    this.executor = executor;
+    this.fetchLock = new Object();
+    this.value = null;
+    this.loadedAt = 0;
+    this.generation = 0;
+    this.loading = null;
+  }
+
+  @Override
+  public Throwing<T, Exception> get() {
+    Load load;
+    boolean owner = false;
+    synchronized (this) {
+      long age = System.currentTimeMillis() - loadedAt;
+      if (value != null && age < hardTtl) {
+        if (age >= softTtl && loading == null) {
+          // refresh in background, serve stale value meanwhile
+          if (log.isDebugEnabled()) {
+            log.debug("refreshing " + name + " in background (age=" + (age / 1000) + "s)");
+          }
+          refreshAsync();
+        }
+        return value;
+      }
+
+      // no fresh enough value: wait for it
+      if (loading != null && loading.generation == generation) {
+        load = loading; // join running load
+      } else {
+        load = new Load(generation);
+        loading = load;
+        owner = true;
+      }
+    }
+    if (owner) {
+      // load in caller thread, outside of lock
+      load.task.run();
+    }
+    return load.await();
+  }
+
+  private void refreshAsync() {
+    final Load load = new Load(generation);
+    loading = load;
+    try {
+      executor.execute(load.task);
+    } catch (Exception e) {
+      log.error("refreshAsync failed for " + name, e);
+      loading = null;
+    }
+  }
+
+  // reload in background, serving current value meanwhile
+  public synchronized void refresh() {
+    if (loading != null && !loading.started && loading.generation == generation) {
+      // a pending load will fetch latest data
+      return;
+    }
+    generation++;
+    refreshAsync();
+  }
+
+  // next call will wait for fresh value
+  public synchronized void expire() {
+    generation++;
+    loadedAt = 0;
+    value = null;
+  }
+
+  public synchronized boolean isStale() {
+    return value == null || System.currentTimeMillis() - loadedAt >= softTtl;
+  }
+
+  public synchronized long getAge() {
+    return value != null ? System.currentTimeMillis() - loadedAt : -1;
+  }
+
+  private Throwing<T, Exception> doLoad(Load load) {
+    Throwing<T, Exception> result;
+    synchronized (fetchLock) {
+      load.started = true;
+      result = loader.get();
+    }
+    synchronized (this) {
+      if (loading == load) {
+        loading = null;
+      }
+      if (load.generation == generation && isSuccess(result)) {
+        value = result;
+        loadedAt = System.currentTimeMillis();
+      }
+    }
+    return result;
+  }
+
+  private boolean isSuccess(Throwing<T, Exception> result) {
+    try {
+      result.getOrThrow();
+      return true;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  private class Load {
+    private final int generation;
+    private final FutureTask<Throwing<T, Exception>> task;
+    private volatile boolean started;
+
+    Load(int generation) {
+      this.generation = generation;
+      this.started = false;
+      this.task =
+          new FutureTask<Throwing<T, Exception>>(
+              new Callable<Throwing<T, Exception>>() {
+                @Override
+                public Throwing<T, Exception> call() throws Exception {
+                  return doLoad(Load.this);
+                }
+              });
+    }
+
+    Throwing<T, Exception> await() {
+      try {
+        return task.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      } catch (ExecutionException e) {
+        throw new RuntimeException(e.getCause());
+      }
+    }
+  }
+}
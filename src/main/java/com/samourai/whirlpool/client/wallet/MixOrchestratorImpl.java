@@ -38,7 +38,8 @@ public class MixOrchestratorImpl extends MixOrchestrator {
         whirlpoolWallet.getConfig().getMaxClients(),
         whirlpoolWallet.getConfig().getMaxClientsPerPool(),
         whirlpoolWallet.getConfig().isAutoMix(),
-        whirlpoolWallet.getConfig().getMixsTarget());
+        whirlpoolWallet.getConfig().getMixsTarget(),
+        whirlpoolWallet.getConfig().getOrchestratorScheduler());
     this.whirlpoolWallet = whirlpoolWallet;
   }
 
@@ -48,16 +49,16 @@ public class MixOrchestratorImpl extends MixOrchestrator {
       @Override
       public Stream<WhirlpoolUtxo> getQueue() {
         try {
+          // queued
           return StreamSupport.stream(
-                  whirlpoolWallet.getUtxos(
-                      false, WhirlpoolAccount.PREMIX, WhirlpoolAccount.POSTMIX))
+                  whirlpoolWallet.getUtxoIndex().findByStatus(WhirlpoolUtxoStatus.MIX_QUEUE))
               .filter(
                   new Predicate<WhirlpoolUtxo>() {
                     @Override
                     public boolean test(WhirlpoolUtxo whirlpoolUtxo) {
-                      // queued
-                      return WhirlpoolUtxoStatus.MIX_QUEUE.equals(
-                          whirlpoolUtxo.getUtxoState().getStatus());
+                      WhirlpoolAccount account = whirlpoolUtxo.getAccount();
+                      return WhirlpoolAccount.PREMIX.equals(account)
+                          || WhirlpoolAccount.POSTMIX.equals(account);
                     }
                   });
         } catch (Exception e) {
@@ -72,6 +73,23 @@ public class MixOrchestratorImpl extends MixOrchestrator {
     };
   }
 
+  @Override
+  protected boolean isMixDemandListened() {
+    return whirlpoolWallet.getConfig().getWarmTransports() > 0;
+  }
+
+  @Override
+  protected void onMixDemand(String poolId, int nbMixable) {
+    super.onMixDemand(poolId, nbMixable);
+    whirlpoolWallet.getConfig().getMixTransportPool().setTarget(poolId, nbMixable);
+  }
+
+  @Override
+  public synchronized void stop() {
+    super.stop();
+    whirlpoolWallet.getConfig().getMixTransportPool().stop();
+  }
+
   @Override
   protected void onMixSuccess(WhirlpoolUtxo whirlpoolUtxo, MixSuccess mixSuccess) {
     super.onMixSuccess(whirlpoolUtxo, mixSuccess);
@@ -130,8 +148,11 @@ public class MixOrchestratorImpl extends MixOrchestrator {
       final Mixing mixing, final boolean cancel, final boolean reQueue) {
     super.stopWhirlpoolClient(mixing, cancel, reQueue);
 
-    // stop in new thread for faster response
-    new Thread(
+    // stop asynchronously for faster response
+    whirlpoolWallet
+        .getConfig()
+        .getClientExecutor()
+        .execute(
             new Runnable() {
               @Override
               public void run() {
@@ -145,9 +166,7 @@ public class MixOrchestratorImpl extends MixOrchestrator {
                   }
                 }
               }
-            },
-            "stop-whirlpoolClient")
-        .start();
+            });
   }
 
   private IPremixHandler computePremixHandler(WhirlpoolUtxo whirlpoolUtxo) {
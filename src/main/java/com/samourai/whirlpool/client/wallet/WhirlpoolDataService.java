@@ -1,14 +1,14 @@
 package com.samourai.whirlpool.client.wallet;
 
-import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
 import com.samourai.wallet.api.backend.MinerFee;
 import com.samourai.wallet.api.backend.MinerFeeTarget;
 import com.samourai.wallet.api.backend.beans.HttpException;
 import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
 import com.samourai.wallet.client.Bip84ApiWallet;
+import com.samourai.wallet.segwit.bech32.Bech32UtilGeneric;
 import com.samourai.whirlpool.client.exception.NotifiableException;
 import com.samourai.whirlpool.client.utils.ClientUtils;
+import com.samourai.whirlpool.client.utils.RefreshAheadSupplier;
 import com.samourai.whirlpool.client.wallet.beans.*;
 import com.samourai.whirlpool.client.whirlpool.beans.Pool;
 import com.samourai.whirlpool.client.whirlpool.beans.Pools;
@@ -16,15 +16,18 @@ import com.samourai.whirlpool.protocol.WhirlpoolProtocol;
 import com.samourai.whirlpool.protocol.rest.PoolInfo;
 import com.samourai.whirlpool.protocol.rest.PoolsResponse;
 import com.zeroleak.throwingsupplier.LastValueFallbackSupplier;
-import com.zeroleak.throwingsupplier.Throwing;
 import com.zeroleak.throwingsupplier.ThrowingSupplier;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java8.util.Optional;
 import java8.util.function.Consumer;
 import java8.util.stream.Collectors;
 import java8.util.stream.StreamSupport;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,27 +37,78 @@ public class WhirlpoolDataService {
 
   private WhirlpoolWalletConfig config;
   private WhirlpoolWalletService whirlpoolWalletService;
+  private Bech32UtilGeneric bech32Util;
+
+  // background refreshs
+  private ExecutorService refreshExecutor;
 
   // fee
-  private Supplier<Throwing<MinerFee, Exception>> minerFee;
+  private RefreshAheadSupplier<MinerFee> minerFee;
 
   // pools
-  private Supplier<Throwing<Pools, Exception>> poolsResponse;
-  private Supplier<Throwing<Collection<Pool>, Exception>> pools;
+  private RefreshAheadSupplier<Pools> poolsResponse;
+  private RefreshAheadSupplier<Collection<Pool>> pools;
 
   // utxos
-  private Map<WhirlpoolAccount, Supplier<Throwing<Map<String, WhirlpoolUtxo>, Exception>>> utxos;
+  // all accounts are fetched at once
+  private RefreshAheadSupplier<Map<WhirlpoolAccount, Map<String, WhirlpoolUtxo>>> utxos;
   private Map<WhirlpoolAccount, Map<String, WhirlpoolUtxo>> previousUtxos;
+  private long lastRefreshIndexs;
+  private WhirlpoolUtxoIndex utxoIndex;
+  private WhirlpoolUtxoChangesDispatcher utxoChangesDispatcher;
+  private final Object utxosLock = new Object();
+
+  // pushed txs not yet indexed by backend
+  private Map<String, PendingTx> pendingTxs;
 
   private static final int ATTEMPTS = 2;
+  private static final long PENDING_TX_DELAY_MIN = 1000;
+  private static final long PENDING_TX_DELAY_MAX = 30000;
+  private static final long PENDING_TX_EXPIRE = 600000;
 
   public WhirlpoolDataService(
       WhirlpoolWalletConfig config, WhirlpoolWalletService whirlpoolWalletService) {
     this.config = config;
     this.whirlpoolWalletService = whirlpoolWalletService;
+    this.bech32Util = Bech32UtilGeneric.getInstance();
+    this.refreshExecutor =
+        Executors.newCachedThreadPool(ClientUtils.threadFactory("whirlpoolData-refresh", true));
+
+    this.minerFee =
+        newSupplier(
+            "minerFee",
+            initMinerFee(),
+            config.getRefreshFeeDelay(),
+            config.getRefreshFeeExpireDelay());
+    this.poolsResponse =
+        newSupplier(
+            "poolsResponse",
+            initPoolsResponse(),
+            config.getRefreshPoolsDelay(),
+            config.getRefreshPoolsExpireDelay());
+    this.pools =
+        newSupplier(
+            "pools",
+            initPools(),
+            config.getRefreshPoolsDelay(),
+            config.getRefreshPoolsExpireDelay());
+    // with utxoNotifier, polling is a slow fallback
+    int refreshUtxoDelay =
+        config.getUtxoNotifier() != null
+            ? config.getRefreshUtxoFallbackDelay()
+            : config.getRefreshUtxoDelay();
     this.utxos =
-        new ConcurrentHashMap<
-            WhirlpoolAccount, Supplier<Throwing<Map<String, WhirlpoolUtxo>, Exception>>>();
+        newSupplier(
+            "utxos", initUtxos(), refreshUtxoDelay, config.getRefreshUtxoExpireDelay());
+    this.utxoIndex = new WhirlpoolUtxoIndex();
+    this.utxoChangesDispatcher =
+        new WhirlpoolUtxoChangesDispatcher() {
+          @Override
+          protected void resync(WhirlpoolWallet whirlpoolWallet) {
+            resyncUtxos();
+          }
+        };
+    this.pendingTxs = new ConcurrentHashMap<String, PendingTx>();
 
     clear();
   }
@@ -65,11 +119,19 @@ public class WhirlpoolDataService {
     clearUtxos();
   }
 
+  private <T> RefreshAheadSupplier<T> newSupplier(
+      String name, ThrowingSupplier<T, Exception> loader, int refreshDelay, int expireDelay) {
+    return new RefreshAheadSupplier<T>(
+        name,
+        loader.attempts(ATTEMPTS),
+        refreshDelay * 1000L,
+        expireDelay * 1000L,
+        refreshExecutor);
+  }
+
   // FEES
   public void clearMinerFee() {
-    this.minerFee =
-        Suppliers.memoizeWithExpiration(
-            initMinerFee().attempts(ATTEMPTS), config.getRefreshFeeDelay(), TimeUnit.SECONDS);
+    minerFee.expire();
   }
 
   public int getFeeSatPerByte(MinerFeeTarget feeTarget) {
@@ -114,15 +176,8 @@ public class WhirlpoolDataService {
   // POOLS
 
   public void clearPools() {
-    this.poolsResponse =
-        Suppliers.memoizeWithExpiration(
-            initPoolsResponse().attempts(ATTEMPTS),
-            config.getRefreshPoolsDelay(),
-            TimeUnit.SECONDS);
-
-    this.pools =
-        Suppliers.memoizeWithExpiration(
-            initPools().attempts(ATTEMPTS), config.getRefreshPoolsDelay(), TimeUnit.SECONDS);
+    poolsResponse.expire();
+    pools.expire();
   }
 
   public Pools getPoolsResponse() throws Exception {
@@ -209,29 +264,45 @@ public class WhirlpoolDataService {
 
   public void clearUtxos() {
     this.previousUtxos = new ConcurrentHashMap<WhirlpoolAccount, Map<String, WhirlpoolUtxo>>();
-    for (WhirlpoolAccount whirlpoolAccount : WhirlpoolAccount.values()) {
-      clearUtxos(whirlpoolAccount);
-    }
+    this.lastRefreshIndexs = 0;
+    this.pendingTxs.clear();
+    utxos.expire();
+    utxoIndex.clear();
   }
 
   public void clearUtxos(WhirlpoolAccount whirlpoolAccount) {
     if (log.isDebugEnabled()) {
       log.debug("clearing utxos for " + whirlpoolAccount);
     }
-    this.utxos.put(
-        whirlpoolAccount,
-        Suppliers.memoizeWithExpiration(
-            initUtxos(whirlpoolAccount).attempts(ATTEMPTS),
-            config.getRefreshUtxoDelay(),
-            TimeUnit.SECONDS));
+    // accounts are fetched together
+    utxos.expire();
+  }
+
+  // utxo changes were dropped: fetch again from scratch, as first fetch
+  private void resyncUtxos() {
+    config
+        .getClientExecutor()
+        .execute(
+            new Runnable() {
+              @Override
+              public void run() {
+                previousUtxos =
+                    new ConcurrentHashMap<WhirlpoolAccount, Map<String, WhirlpoolUtxo>>();
+                utxoIndex.clear();
+                utxos.refresh();
+              }
+            });
+  }
+
+  // refresh in background, changes are dispatched on completion
+  public void refreshUtxos() {
+    utxos.refresh();
   }
 
   public Collection<WhirlpoolUtxo> getUtxos(boolean clearCache, WhirlpoolAccount... accounts)
       throws Exception {
-    for (WhirlpoolAccount account : accounts) {
-      if (clearCache) {
-        clearUtxos(account);
-      }
+    if (clearCache) {
+      utxos.expire();
     }
     return findUtxos(accounts);
   }
@@ -239,10 +310,12 @@ public class WhirlpoolDataService {
   public WhirlpoolUtxo findUtxo(
       String utxoHash, int utxoIndex, WhirlpoolAccount... whirlpoolAccounts) throws Exception {
     String utxoKey = ClientUtils.utxoToKey(utxoHash, utxoIndex);
-    for (WhirlpoolAccount whirlpoolAccount : whirlpoolAccounts) {
-      WhirlpoolUtxo whirlpoolUtxo = utxos.get(whirlpoolAccount).get().getOrThrow().get(utxoKey);
-      if (whirlpoolUtxo != null) {
-        return whirlpoolUtxo;
+    WhirlpoolUtxo whirlpoolUtxo = getUtxoIndex().find(utxoKey);
+    if (whirlpoolUtxo != null) {
+      for (WhirlpoolAccount whirlpoolAccount : whirlpoolAccounts) {
+        if (whirlpoolAccount.equals(whirlpoolUtxo.getAccount())) {
+          return whirlpoolUtxo;
+        }
       }
     }
     if (log.isDebugEnabled()) {
@@ -251,76 +324,313 @@ public class WhirlpoolDataService {
     return null;
   }
 
-  private ThrowingSupplier<Map<String, WhirlpoolUtxo>, Exception> initUtxos(
-      final WhirlpoolAccount whirlpoolAccount) {
-    return new LastValueFallbackSupplier<Map<String, WhirlpoolUtxo>, Exception>() {
+  private ThrowingSupplier<Map<WhirlpoolAccount, Map<String, WhirlpoolUtxo>>, Exception>
+      initUtxos() {
+    return new LastValueFallbackSupplier<
+        Map<WhirlpoolAccount, Map<String, WhirlpoolUtxo>>, Exception>() {
       @Override
-      public Map<String, WhirlpoolUtxo> getOrThrow() throws Exception {
+      public Map<WhirlpoolAccount, Map<String, WhirlpoolUtxo>> getOrThrow() throws Exception {
         Optional<WhirlpoolWallet> whirlpoolWalletOpt = whirlpoolWalletService.getWhirlpoolWallet();
         if (!whirlpoolWalletOpt.isPresent()) {
           throw new Exception("no WhirlpoolWallet opened");
         }
         WhirlpoolWallet whirlpoolWallet = whirlpoolWalletOpt.get();
+        Map<WhirlpoolAccount, Map<String, WhirlpoolUtxo>> results =
+            new ConcurrentHashMap<WhirlpoolAccount, Map<String, WhirlpoolUtxo>>();
+        Map<WhirlpoolAccount, List<UnspentOutput>> fetchedUtxos;
         try {
-          List<UnspentOutput> fetchedUtxos = fetchUtxos(whirlpoolAccount, whirlpoolWallet);
-          if (log.isDebugEnabled()) {
-            log.debug(
-                "Fetching utxos from "
-                    + whirlpoolAccount
-                    + "... "
-                    + fetchedUtxos.size()
-                    + " utxos found");
-            // ClientUtils.logUtxos(fetchedUtxos);
-          }
-          final Map<String, UnspentOutput> freshUtxos =
-              new ConcurrentHashMap<String, UnspentOutput>();
-          for (UnspentOutput utxo : fetchedUtxos) {
-            freshUtxos.put(ClientUtils.utxoToKey(utxo), utxo);
+          fetchedUtxos = fetchUtxos(whirlpoolWallet);
+        } catch (Exception e) {
+          // keep serving last utxos
+          log.error("Failed to fetch utxos", e);
+          throw e;
+        }
+
+        synchronized (utxosLock) {
+          resolvePendingTxs(fetchedUtxos);
+          applyPendingTxs(fetchedUtxos);
+
+          // fan out to accounts
+          for (WhirlpoolAccount whirlpoolAccount : WhirlpoolAccount.values()) {
+            fanOutUtxos(
+                whirlpoolWallet, whirlpoolAccount, fetchedUtxos.get(whirlpoolAccount), results);
           }
+        }
+        return results;
+      }
+    };
+  }
+
+  private void fanOutUtxos(
+      WhirlpoolWallet whirlpoolWallet,
+      WhirlpoolAccount whirlpoolAccount,
+      List<UnspentOutput> accountUtxos,
+      Map<WhirlpoolAccount, Map<String, WhirlpoolUtxo>> results) {
+    if (log.isDebugEnabled()) {
+      log.debug(
+          "Fetching utxos from "
+              + whirlpoolAccount
+              + "... "
+              + accountUtxos.size()
+              + " utxos found");
+    }
+    final Map<String, UnspentOutput> freshUtxos = new ConcurrentHashMap<String, UnspentOutput>();
+    for (UnspentOutput utxo : accountUtxos) {
+      freshUtxos.put(ClientUtils.utxoToKey(utxo), utxo);
+    }
+
+    // replace utxos
+    boolean isFirstFetch = false;
+    if (previousUtxos.get(whirlpoolAccount) == null) {
+      previousUtxos.put(whirlpoolAccount, new ConcurrentHashMap<String, WhirlpoolUtxo>());
+      isFirstFetch = true;
+    }
+    Map<String, WhirlpoolUtxo> oldUtxos = previousUtxos.get(whirlpoolAccount);
+    Map<String, WhirlpoolUtxo> result =
+        replaceUtxos(whirlpoolAccount, whirlpoolWallet, oldUtxos, freshUtxos, isFirstFetch);
+
+    oldUtxos.clear();
+    oldUtxos.putAll(result);
+    results.put(whirlpoolAccount, result);
+  }
 
-          // replace utxos
-          boolean isFirstFetch = false;
-          if (previousUtxos.get(whirlpoolAccount) == null) {
-            previousUtxos.put(whirlpoolAccount, new ConcurrentHashMap<String, WhirlpoolUtxo>());
-            isFirstFetch = true;
+  /**
+   * Add utxos of a pushed tx to cache without waiting for backend. They are preserved on utxos
+   * refresh until backend lists the tx, which is polled with backoff (or notified by utxoNotifier).
+   */
+  public void addPendingTx(
+      WhirlpoolWallet whirlpoolWallet,
+      String txid,
+      Collection<String> spentUtxoKeys,
+      Map<WhirlpoolAccount, List<UnspentOutput>> txUtxos)
+      throws Exception {
+    Map<WhirlpoolAccount, Map<String, WhirlpoolUtxo>> cachedUtxos = utxos.get().getOrThrow();
+    PendingTx pendingTx =
+        new PendingTx(txid, spentUtxoKeys, txUtxos, System.currentTimeMillis() + PENDING_TX_EXPIRE);
+    synchronized (utxosLock) {
+      pendingTxs.put(txid, pendingTx);
+
+      Map<WhirlpoolAccount, List<UnspentOutput>> currentUtxos =
+          new LinkedHashMap<WhirlpoolAccount, List<UnspentOutput>>();
+      for (WhirlpoolAccount whirlpoolAccount : WhirlpoolAccount.values()) {
+        List<UnspentOutput> accountUtxos = new ArrayList<UnspentOutput>();
+        Map<String, WhirlpoolUtxo> cachedAccountUtxos = cachedUtxos.get(whirlpoolAccount);
+        if (cachedAccountUtxos != null) {
+          for (WhirlpoolUtxo whirlpoolUtxo : cachedAccountUtxos.values()) {
+            accountUtxos.add(whirlpoolUtxo.getUtxo());
           }
-          Map<String, WhirlpoolUtxo> oldUtxos = previousUtxos.get(whirlpoolAccount);
-          Map<String, WhirlpoolUtxo> result =
-              replaceUtxos(whirlpoolAccount, whirlpoolWallet, oldUtxos, freshUtxos, isFirstFetch);
+        }
+        currentUtxos.put(whirlpoolAccount, accountUtxos);
+      }
+      applyPendingTxs(currentUtxos);
+      for (WhirlpoolAccount whirlpoolAccount : WhirlpoolAccount.values()) {
+        fanOutUtxos(
+            whirlpoolWallet, whirlpoolAccount, currentUtxos.get(whirlpoolAccount), cachedUtxos);
+      }
+    }
+    awaitPendingTx(pendingTx);
+  }
 
-          previousUtxos.get(whirlpoolAccount).clear();
-          previousUtxos.get(whirlpoolAccount).putAll(result);
-          return result;
-        } catch (Exception e) {
-          // exception
-          log.error("Failed to fetch utxos for " + whirlpoolAccount, e);
-          return new ConcurrentHashMap();
+  private void awaitPendingTx(PendingTx pendingTx) {
+    scheduleAwaitPendingTx(pendingTx, PENDING_TX_DELAY_MIN);
+  }
+
+  // refresh utxos with backoff until backend lists the tx, without holding a thread meanwhile
+  private void scheduleAwaitPendingTx(final PendingTx pendingTx, final long delay) {
+    config
+        .getClientScheduler()
+        .schedule(
+            new Runnable() {
+              @Override
+              public void run() {
+                if (pendingTxs.get(pendingTx.txid) != pendingTx) {
+                  // visible or cleared
+                  return;
+                }
+                if (pendingTx.isExpired()) {
+                  log.warn("Tx not visible from backend, giving up: " + pendingTx.txid);
+                  pendingTxs.remove(pendingTx.txid);
+                  utxos.refresh();
+                  return;
+                }
+                if (log.isDebugEnabled()) {
+                  log.debug("Awaiting tx from backend: " + pendingTx.txid);
+                }
+                utxos.refresh();
+                scheduleAwaitPendingTx(pendingTx, Math.min(delay * 2, PENDING_TX_DELAY_MAX));
+              }
+            },
+            delay,
+            TimeUnit.MILLISECONDS);
+  }
+
+  // forget pending txs listed by backend
+  private void resolvePendingTxs(Map<WhirlpoolAccount, List<UnspentOutput>> fetchedUtxos) {
+    if (pendingTxs.isEmpty()) {
+      return;
+    }
+    Set<String> fetchedKeys = new HashSet<String>();
+    Set<String> fetchedHashes = new HashSet<String>();
+    for (List<UnspentOutput> accountUtxos : fetchedUtxos.values()) {
+      for (UnspentOutput utxo : accountUtxos) {
+        fetchedKeys.add(ClientUtils.utxoToKey(utxo));
+        fetchedHashes.add(utxo.tx_hash);
+      }
+    }
+    for (PendingTx pendingTx : pendingTxs.values()) {
+      // inputs may never be listed (cascade spends change of a pending Tx0)
+      boolean spentListed = !Collections.disjoint(pendingTx.spentUtxoKeys, fetchedKeys);
+      // tx outputs are listed, or its inputs were listed and are now gone
+      if (fetchedHashes.contains(pendingTx.txid) || (pendingTx.spentSeen && !spentListed)) {
+        if (log.isDebugEnabled()) {
+          log.debug("Tx visible from backend: " + pendingTx.txid);
         }
+        pendingTxs.remove(pendingTx.txid);
+      } else if (pendingTx.isExpired()) {
+        log.warn("Tx not visible from backend, giving up: " + pendingTx.txid);
+        pendingTxs.remove(pendingTx.txid);
+      } else if (spentListed) {
+        pendingTx.spentSeen = true;
       }
-    };
+    }
+  }
+
+  private void applyPendingTxs(Map<WhirlpoolAccount, List<UnspentOutput>> utxosByAccount) {
+    if (pendingTxs.isEmpty()) {
+      return;
+    }
+    Set<String> spentKeys = new HashSet<String>();
+    for (PendingTx pendingTx : pendingTxs.values()) {
+      spentKeys.addAll(pendingTx.spentUtxoKeys);
+    }
+    for (WhirlpoolAccount whirlpoolAccount : WhirlpoolAccount.values()) {
+      Map<String, UnspentOutput> accountUtxos = new LinkedHashMap<String, UnspentOutput>();
+      for (UnspentOutput utxo : utxosByAccount.get(whirlpoolAccount)) {
+        accountUtxos.put(ClientUtils.utxoToKey(utxo), utxo);
+      }
+      for (PendingTx pendingTx : pendingTxs.values()) {
+        List<UnspentOutput> txUtxos = pendingTx.utxos.get(whirlpoolAccount);
+        if (txUtxos != null) {
+          for (UnspentOutput utxo : txUtxos) {
+            String key = ClientUtils.utxoToKey(utxo);
+            if (!accountUtxos.containsKey(key)) {
+              accountUtxos.put(key, utxo);
+            }
+          }
+        }
+      }
+      accountUtxos.keySet().removeAll(spentKeys);
+      utxosByAccount.put(whirlpoolAccount, new ArrayList<UnspentOutput>(accountUtxos.values()));
+    }
   }
 
-  protected List<UnspentOutput> fetchUtxos(
-      WhirlpoolAccount whirlpoolAccount, WhirlpoolWallet whirlpoolWallet) throws Exception {
-    Bip84ApiWallet wallet = whirlpoolWallet.getWallet(whirlpoolAccount);
-    List<UnspentOutput> utxos = wallet.fetchUtxos();
+  protected Map<WhirlpoolAccount, List<UnspentOutput>> fetchUtxos(WhirlpoolWallet whirlpoolWallet)
+      throws Exception {
+    Map<String, WhirlpoolAccount> accountsByZpub = new LinkedHashMap<String, WhirlpoolAccount>();
+    Map<WhirlpoolAccount, List<UnspentOutput>> utxosByAccount =
+        new LinkedHashMap<WhirlpoolAccount, List<UnspentOutput>>();
+    for (WhirlpoolAccount whirlpoolAccount : WhirlpoolAccount.values()) {
+      accountsByZpub.put(whirlpoolWallet.getWallet(whirlpoolAccount).getZpub(), whirlpoolAccount);
+      utxosByAccount.put(whirlpoolAccount, new ArrayList<UnspentOutput>());
+    }
+
+    // single request for all accounts
+    String[] zpubs = accountsByZpub.keySet().toArray(new String[] {});
+    for (UnspentOutput utxo : fetchUtxos(zpubs)) {
+      WhirlpoolAccount whirlpoolAccount = findAccount(whirlpoolWallet, utxo, accountsByZpub);
+      if (whirlpoolAccount == null) {
+        log.warn("Ignoring utxo from unknown account: " + ClientUtils.utxoToKey(utxo));
+        continue;
+      }
+      utxosByAccount.get(whirlpoolAccount).add(utxo);
+    }
 
     // refresh wallet indexs (to avoid address reuse while using mobile wallet)
-    try {
-      wallet.refreshIndexs();
-    } catch (Exception e) {
-      log.error("refreshIndexs failed", e);
+    boolean refreshIndexsFull =
+        System.currentTimeMillis() - lastRefreshIndexs >= config.getRefreshIndexsDelay() * 1000L;
+    if (refreshIndexsFull) {
+      // one request per account, concurrently
+      List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+      for (WhirlpoolAccount whirlpoolAccount : WhirlpoolAccount.values()) {
+        final Bip84ApiWallet wallet = whirlpoolWallet.getWallet(whirlpoolAccount);
+        tasks.add(
+            new Callable<Void>() {
+              @Override
+              public Void call() throws Exception {
+                try {
+                  wallet.refreshIndexs();
+                } catch (Exception e) {
+                  log.error("refreshIndexs failed", e);
+                }
+                return null;
+              }
+            });
+      }
+      refreshExecutor.invokeAll(tasks);
+      lastRefreshIndexs = System.currentTimeMillis();
+    } else {
+      // no extra request: indexs from fetched utxos
+      for (WhirlpoolAccount whirlpoolAccount : WhirlpoolAccount.values()) {
+        whirlpoolWallet
+            .getWallet(whirlpoolAccount)
+            .refreshIndexs(utxosByAccount.get(whirlpoolAccount));
+      }
+    }
+    return utxosByAccount;
+  }
+
+  // by xpub echoed by backend, or by address when backend echoes xpub in another form
+  private WhirlpoolAccount findAccount(
+      WhirlpoolWallet whirlpoolWallet,
+      UnspentOutput utxo,
+      Map<String, WhirlpoolAccount> accountsByXpub) {
+    if (utxo.xpub == null) {
+      return null;
+    }
+    WhirlpoolAccount whirlpoolAccount =
+        utxo.xpub.m != null ? accountsByXpub.get(utxo.xpub.m) : null;
+    if (whirlpoolAccount != null || utxo.addr == null || utxo.xpub.path == null) {
+      return whirlpoolAccount;
+    }
+    for (WhirlpoolAccount account : WhirlpoolAccount.values()) {
+      String addr;
+      try {
+        addr =
+            bech32Util.toBech32(
+                whirlpoolWallet.getWallet(account).getAddressAt(utxo),
+                config.getNetworkParameters());
+      } catch (Exception e) {
+        log.error("Invalid utxo path: " + utxo.xpub.path);
+        return null;
+      }
+      if (utxo.addr.equals(addr)) {
+        if (utxo.xpub.m != null) {
+          // next utxos of this account are matched by xpub
+          accountsByXpub.put(utxo.xpub.m, account);
+        }
+        return account;
+      }
     }
+    return null;
+  }
 
-    return utxos;
+  protected List<UnspentOutput> fetchUtxos(String[] zpubs) throws Exception {
+    // backend accepts multiple zpubs separated by '|'
+    return config.getBackendApi().fetchUtxos(StringUtils.join(zpubs, "|"));
+  }
+
+  // utxos index, refreshed as cache
+  public WhirlpoolUtxoIndex getUtxoIndex() throws Exception {
+    utxos.get().getOrThrow();
+    return utxoIndex;
   }
 
   private Collection<WhirlpoolUtxo> findUtxos(final WhirlpoolAccount... whirlpoolAccounts)
       throws Exception {
+    Map<WhirlpoolAccount, Map<String, WhirlpoolUtxo>> utxosByAccount = utxos.get().getOrThrow();
     List<WhirlpoolUtxo> result = new ArrayList<WhirlpoolUtxo>();
     for (WhirlpoolAccount whirlpoolAccount : whirlpoolAccounts) {
-      Collection<WhirlpoolUtxo> accountUtxos =
-          utxos.get(whirlpoolAccount).get().getOrThrow().values();
+      Collection<WhirlpoolUtxo> accountUtxos = utxosByAccount.get(whirlpoolAccount).values();
       result.addAll(accountUtxos);
     }
     return result;
@@ -393,20 +703,44 @@ public class WhirlpoolDataService {
               + result.size());
     }
 
-    // notify changes
-    if (!whirlpoolUtxoChanges.isEmpty()) {
-      // use a new thread to avoid deadlock on whirlpoolData -> whirlpoolWallet -> orchestrators
-      new Thread(
-              new Runnable() {
-                @Override
-                public void run() {
-                  whirlpoolWallet.onUtxoChanges(whirlpoolUtxoChanges);
-                }
-              },
-              "onUtxoChanges")
-          .start();
+    // update index
+    for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxoChanges.getUtxosRemoved()) {
+      utxoIndex.remove(whirlpoolUtxo);
+    }
+    for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxoChanges.getUtxosDetected()) {
+      utxoIndex.add(whirlpoolUtxo);
     }
 
+    // notify changes (asynchronously, in order)
+    utxoChangesDispatcher.dispatch(whirlpoolWallet, whirlpoolUtxoChanges);
     return result;
   }
+
+  public WhirlpoolUtxoChangesDispatcher getUtxoChangesDispatcher() {
+    return utxoChangesDispatcher;
+  }
+
+  private static class PendingTx {
+    private final String txid;
+    private final Collection<String> spentUtxoKeys;
+    private final Map<WhirlpoolAccount, List<UnspentOutput>> utxos;
+    private final long expireTime;
+    private boolean spentSeen; // inputs listed by backend since push
+
+    PendingTx(
+        String txid,
+        Collection<String> spentUtxoKeys,
+        Map<WhirlpoolAccount, List<UnspentOutput>> utxos,
+        long expireTime) {
+      this.txid = txid;
+      this.spentUtxoKeys = spentUtxoKeys;
+      this.utxos = utxos;
+      this.expireTime = expireTime;
+      this.spentSeen = false;
+    }
+
+    boolean isExpired() {
+      return System.currentTimeMillis() > expireTime;
+    }
+  }
 }
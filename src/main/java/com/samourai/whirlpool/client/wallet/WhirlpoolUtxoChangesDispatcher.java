@@ -0,0 +1,311 @@
+package com.samourai.whirlpool.client.wallet;
+
+import com.samourai.whirlpool.client.utils.ClientUtils;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxo;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoChanges;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single-writer dispatcher for WhirlpoolUtxoChanges: changes are delivered in order for each
+ * wallet, and pending changes are merged per utxo. Changes are never merged across a different
+ * isFirstFetch.
+ */
+public class WhirlpoolUtxoChangesDispatcher {
+  private final Logger log = LoggerFactory.getLogger(WhirlpoolUtxoChangesDispatcher.class);
+  private static final int QUEUE_MAX = 32;
+
+  private final int queueMax; // max pending change sets per wallet
+  private final Executor executor;
+  private final LinkedHashMap<WhirlpoolWallet, LinkedList<PendingChanges>> queue; // FIFO wallets
+  private boolean draining;
+
+  // metrics
+  private int queueDepth;
+  private int nbPendingUtxos;
+  private long nbDispatched;
+  private long nbMerged;
+  private long nbResyncs;
+  private volatile long nbDelivered;
+  private volatile long lastDeliveryLag;
+
+  public WhirlpoolUtxoChangesDispatcher() {
+    this(QUEUE_MAX, computeExecutor());
+  }
+
+  public WhirlpoolUtxoChangesDispatcher(int queueMax, Executor executor) {
+    this.queueMax = queueMax;
+    this.executor = executor;
+    this.queue = new LinkedHashMap<WhirlpoolWallet, LinkedList<PendingChanges>>();
+    this.draining = false;
+  }
+
+  private static Executor computeExecutor() {
+    // single thread, released when idle
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            ClientUtils.threadFactory("onUtxoChanges", true));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  // never blocks, to avoid deadlock on whirlpoolData -> whirlpoolWallet -> orchestrators
+  public synchronized void dispatch(
+      WhirlpoolWallet whirlpoolWallet, WhirlpoolUtxoChanges whirlpoolUtxoChanges) {
+    if (whirlpoolUtxoChanges.isEmpty()) {
+      return;
+    }
+    nbDispatched++;
+
+    LinkedList<PendingChanges> walletQueue = queue.get(whirlpoolWallet);
+    if (walletQueue == null) {
+      walletQueue = new LinkedList<PendingChanges>();
+      queue.put(whirlpoolWallet, walletQueue);
+    }
+    PendingChanges last = walletQueue.peekLast();
+    if (last != null && last.isFirstFetch == whirlpoolUtxoChanges.isFirstFetch()) {
+      // merge with last pending changes of this wallet
+      nbPendingUtxos -= last.size();
+      last.merge(whirlpoolUtxoChanges);
+      nbPendingUtxos += last.size();
+      nbMerged++;
+    } else if (walletQueue.size() >= queueMax) {
+      // queue full: drop pending changes and resync wallet from scratch
+      log.warn(
+          "utxo changes queue full ("
+              + walletQueue.size()
+              + "), dropping pending changes and resyncing");
+      for (PendingChanges pendingChanges : walletQueue) {
+        nbPendingUtxos -= pendingChanges.size();
+      }
+      queueDepth -= walletQueue.size();
+      queue.remove(whirlpoolWallet);
+      nbResyncs++;
+      resync(whirlpoolWallet);
+      return;
+    } else {
+      PendingChanges pendingChanges =
+          new PendingChanges(whirlpoolWallet, whirlpoolUtxoChanges.isFirstFetch());
+      pendingChanges.merge(whirlpoolUtxoChanges);
+      walletQueue.add(pendingChanges);
+      queueDepth++;
+      nbPendingUtxos += pendingChanges.size();
+    }
+
+    if (!draining) {
+      draining = true;
+      executor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              drain();
+            }
+          });
+    }
+  }
+
+  private void drain() {
+    while (true) {
+      PendingChanges pendingChanges;
+      synchronized (this) {
+        pendingChanges = poll();
+        if (pendingChanges == null) {
+          draining = false;
+          return;
+        }
+        queueDepth--;
+        nbPendingUtxos -= pendingChanges.size();
+      }
+
+      WhirlpoolUtxoChanges whirlpoolUtxoChanges = pendingChanges.toWhirlpoolUtxoChanges();
+      if (!whirlpoolUtxoChanges.isEmpty()) {
+        lastDeliveryLag = System.currentTimeMillis() - pendingChanges.since;
+        try {
+          deliver(pendingChanges.whirlpoolWallet, whirlpoolUtxoChanges);
+        } catch (Exception e) {
+          log.error("onUtxoChanges failed", e);
+        }
+        nbDelivered++;
+      }
+    }
+  }
+
+  // next changes of first wallet, which then goes back to end of queue
+  private PendingChanges poll() {
+    Iterator<Map.Entry<WhirlpoolWallet, LinkedList<PendingChanges>>> it =
+        queue.entrySet().iterator();
+    if (!it.hasNext()) {
+      return null;
+    }
+    Map.Entry<WhirlpoolWallet, LinkedList<PendingChanges>> first = it.next();
+    it.remove();
+    LinkedList<PendingChanges> walletQueue = first.getValue();
+    PendingChanges pendingChanges = walletQueue.poll();
+    if (!walletQueue.isEmpty()) {
+      queue.put(first.getKey(), walletQueue);
+    }
+    return pendingChanges;
+  }
+
+  protected void deliver(
+      WhirlpoolWallet whirlpoolWallet, WhirlpoolUtxoChanges whirlpoolUtxoChanges) {
+    whirlpoolWallet.onUtxoChanges(whirlpoolUtxoChanges);
+  }
+
+  // pending changes were dropped, utxos should be fetched again from scratch. Must not block.
+  protected void resync(WhirlpoolWallet whirlpoolWallet) {
+    // override here
+  }
+
+  public synchronized int getQueueDepth() {
+    return queueDepth;
+  }
+
+  public synchronized int getNbPendingUtxos() {
+    return nbPendingUtxos;
+  }
+
+  // age of oldest pending changes
+  public synchronized long getLag() {
+    long since = 0;
+    for (LinkedList<PendingChanges> walletQueue : queue.values()) {
+      PendingChanges first = walletQueue.peekFirst();
+      if (first != null && (since == 0 || first.since < since)) {
+        since = first.since;
+      }
+    }
+    return since > 0 ? System.currentTimeMillis() - since : 0;
+  }
+
+  public long getLastDeliveryLag() {
+    return lastDeliveryLag;
+  }
+
+  public synchronized long getNbDispatched() {
+    return nbDispatched;
+  }
+
+  public synchronized long getNbMerged() {
+    return nbMerged;
+  }
+
+  public synchronized long getNbResyncs() {
+    return nbResyncs;
+  }
+
+  public long getNbDelivered() {
+    return nbDelivered;
+  }
+
+  private static class PendingChanges {
+    private final WhirlpoolWallet whirlpoolWallet;
+    private final boolean isFirstFetch;
+    private final long since;
+    private final Map<String, UtxoChange> changes; // by utxo key, in order
+
+    PendingChanges(WhirlpoolWallet whirlpoolWallet, boolean isFirstFetch) {
+      this.whirlpoolWallet = whirlpoolWallet;
+      this.isFirstFetch = isFirstFetch;
+      this.since = System.currentTimeMillis();
+      this.changes = new LinkedHashMap<String, UtxoChange>();
+    }
+
+    void merge(WhirlpoolUtxoChanges whirlpoolUtxoChanges) {
+      for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxoChanges.getUtxosDetected()) {
+        getChange(whirlpoolUtxo).detected(whirlpoolUtxo);
+      }
+      for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxoChanges.getUtxosUpdated()) {
+        getChange(whirlpoolUtxo).updated(whirlpoolUtxo);
+      }
+      for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxoChanges.getUtxosRemoved()) {
+        String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
+        UtxoChange change = getChange(whirlpoolUtxo);
+        change.removed(whirlpoolUtxo);
+        if (change.isEmpty()) {
+          // detected then removed
+          changes.remove(key);
+        }
+      }
+    }
+
+    private UtxoChange getChange(WhirlpoolUtxo whirlpoolUtxo) {
+      String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
+      UtxoChange change = changes.get(key);
+      if (change == null) {
+        change = new UtxoChange();
+        changes.put(key, change);
+      }
+      return change;
+    }
+
+    int size() {
+      return changes.size();
+    }
+
+    WhirlpoolUtxoChanges toWhirlpoolUtxoChanges() {
+      WhirlpoolUtxoChanges whirlpoolUtxoChanges = new WhirlpoolUtxoChanges(isFirstFetch);
+      for (UtxoChange change : changes.values()) {
+        if (change.removed != null) {
+          whirlpoolUtxoChanges.getUtxosRemoved().add(change.removed);
+        }
+        if (change.detected != null) {
+          whirlpoolUtxoChanges.getUtxosDetected().add(change.detected);
+        }
+        if (change.updated != null) {
+          whirlpoolUtxoChanges.getUtxosUpdated().add(change.updated);
+        }
+      }
+      return whirlpoolUtxoChanges;
+    }
+  }
+
+  private static class UtxoChange {
+    private WhirlpoolUtxo removed; // previous instance, when replaced
+    private WhirlpoolUtxo detected;
+    private WhirlpoolUtxo updated;
+
+    void detected(WhirlpoolUtxo whirlpoolUtxo) {
+      this.detected = whirlpoolUtxo;
+      this.updated = null;
+    }
+
+    void updated(WhirlpoolUtxo whirlpoolUtxo) {
+      if (detected == whirlpoolUtxo) {
+        // detected then updated => detected
+        return;
+      }
+      this.updated = whirlpoolUtxo;
+    }
+
+    void removed(WhirlpoolUtxo whirlpoolUtxo) {
+      if (detected == whirlpoolUtxo) {
+        // detected then removed => nothing
+        this.detected = null;
+        return;
+      }
+      if (updated == whirlpoolUtxo) {
+        this.updated = null;
+      }
+      if (removed == null) {
+        this.removed = whirlpoolUtxo;
+      }
+    }
+
+    boolean isEmpty() {
+      return removed == null && detected == null && updated == null;
+    }
+  }
+}
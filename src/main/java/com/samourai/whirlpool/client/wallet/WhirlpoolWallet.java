@@ -13,6 +13,8 @@ import com.samourai.whirlpool.client.mix.listener.MixSuccess;
 import com.samourai.whirlpool.client.tx0.*;
 import com.samourai.whirlpool.client.utils.ClientUtils;
 import com.samourai.whirlpool.client.wallet.beans.*;
+import com.samourai.whirlpool.client.wallet.notifier.UtxoNotifier;
+import com.samourai.whirlpool.client.wallet.notifier.UtxoNotifierListener;
 import com.samourai.whirlpool.client.wallet.orchestrator.AutoTx0Orchestrator;
 import com.samourai.whirlpool.client.wallet.orchestrator.PersistOrchestrator;
 import com.samourai.whirlpool.client.whirlpool.beans.Pool;
@@ -20,7 +22,6 @@ import com.samourai.whirlpool.client.whirlpool.beans.Pools;
 import com.samourai.whirlpool.protocol.beans.Utxo;
 import io.reactivex.Observable;
 import java.util.*;
-import java8.util.Lists;
 import java8.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -139,51 +140,42 @@ public class WhirlpoolWallet {
     return false;
   }
 
-  private WhirlpoolUtxo findTx0SpendFrom(Tx0Param tx0Param, int nbOutputsMin)
+  private Collection<WhirlpoolUtxo> findTx0SpendFroms(
+      Tx0Param tx0Param, int nbOutputsMin, Integer maxOutputs)
       throws Exception { // throws EmptyWalletException, UnconfirmedUtxoException
 
-    List<WhirlpoolUtxo> depositUtxosByPriority =
-        new LinkedList<WhirlpoolUtxo>(getUtxosDeposit(true));
-    Collections.shuffle(depositUtxosByPriority);
-    return findTx0SpendFrom(
-        tx0Param,
-        nbOutputsMin,
-        depositUtxosByPriority); // throws EmptyWalletException, UnconfirmedUtxoException
-  }
-
-  private WhirlpoolUtxo findTx0SpendFrom(
-      Tx0Param tx0Param, int nbOutputsMin, Collection<WhirlpoolUtxo> depositUtxosByPriority)
-      throws EmptyWalletException, Exception, NotifiableException {
-    Pool pool = tx0Param.getPool();
-
-    WhirlpoolUtxo unconfirmedUtxo = null;
-    for (WhirlpoolUtxo whirlpoolUtxo : depositUtxosByPriority) {
-      Collection<Pool> eligiblePools =
-          config
-              .getTx0Service()
-              .findPools(tx0Param, nbOutputsMin, Lists.of(pool), whirlpoolUtxo.getUtxo().value);
-      // check pool
-      if (!eligiblePools.isEmpty()) {
-
-        // check confirmation
+    List<WhirlpoolUtxo> confirmedUtxos = new ArrayList<WhirlpoolUtxo>();
+    List<WhirlpoolUtxo> unconfirmedUtxos = new ArrayList<WhirlpoolUtxo>();
+    for (WhirlpoolUtxo whirlpoolUtxo : getUtxosDeposit(true)) {
+      WhirlpoolUtxoStatus utxoStatus = whirlpoolUtxo.getUtxoState().getStatus();
+      if (WhirlpoolUtxoStatus.READY.equals(utxoStatus)
+          || WhirlpoolUtxoStatus.STOP.equals(utxoStatus)
+          || WhirlpoolUtxoStatus.TX0_FAILED.equals(utxoStatus)) {
         if (whirlpoolUtxo.getUtxo().confirmations >= config.getTx0MinConfirmations()) {
-
-          // set pool
-          whirlpoolUtxo.getUtxoConfig().setPoolId(pool.getPoolId());
-
-          // utxo found
-          return whirlpoolUtxo;
+          confirmedUtxos.add(whirlpoolUtxo);
         } else {
-          // found unconfirmed
-          unconfirmedUtxo = whirlpoolUtxo;
+          unconfirmedUtxos.add(whirlpoolUtxo);
         }
       }
     }
 
-    // no confirmed utxo found, but we found unconfirmed utxo
-    if (unconfirmedUtxo != null) {
-      UnspentOutput utxo = unconfirmedUtxo.getUtxo();
-      throw new UnconfirmedUtxoException(utxo);
+    Collection<WhirlpoolUtxo> spendFroms =
+        selectTx0SpendFroms(tx0Param, nbOutputsMin, maxOutputs, confirmedUtxos);
+    if (!spendFroms.isEmpty()) {
+      return spendFroms;
+    }
+
+    // no confirmed utxos found, but it would be possible with unconfirmed utxos
+    if (!unconfirmedUtxos.isEmpty()) {
+      List<WhirlpoolUtxo> allUtxos = new ArrayList<WhirlpoolUtxo>(confirmedUtxos);
+      allUtxos.addAll(unconfirmedUtxos);
+      for (WhirlpoolUtxo whirlpoolUtxo :
+          selectTx0SpendFroms(tx0Param, nbOutputsMin, maxOutputs, allUtxos)) {
+        UnspentOutput utxo = whirlpoolUtxo.getUtxo();
+        if (utxo.confirmations < config.getTx0MinConfirmations()) {
+          throw new UnconfirmedUtxoException(utxo);
+        }
+      }
     }
 
     // no eligible deposit UTXO found
@@ -192,6 +184,26 @@ public class WhirlpoolWallet {
     throw new EmptyWalletException("No UTXO found to spend TX0 from", requiredBalance);
   }
 
+  private Collection<WhirlpoolUtxo> selectTx0SpendFroms(
+      Tx0Param tx0Param,
+      int nbOutputsMin,
+      Integer maxOutputs,
+      Collection<WhirlpoolUtxo> whirlpoolUtxos) {
+    Map<UnspentOutput, WhirlpoolUtxo> whirlpoolUtxoByUtxo =
+        new IdentityHashMap<UnspentOutput, WhirlpoolUtxo>();
+    for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxos) {
+      whirlpoolUtxoByUtxo.put(whirlpoolUtxo.getUtxo(), whirlpoolUtxo);
+    }
+    List<UnspentOutput> selected =
+        new Tx0CoinSelector(config.getTx0Service())
+            .select(whirlpoolUtxoByUtxo.keySet(), tx0Param, nbOutputsMin, maxOutputs);
+    List<WhirlpoolUtxo> result = new ArrayList<WhirlpoolUtxo>();
+    for (UnspentOutput utxo : selected) {
+      result.add(whirlpoolUtxoByUtxo.get(utxo));
+    }
+    return result;
+  }
+
   public long computeTx0SpendFromBalanceMin(
       Pool pool, Tx0FeeTarget tx0FeeTarget, int nbPremix, Long overspendOrNull) {
     Tx0Param tx0Param = getTx0Param(pool, tx0FeeTarget, overspendOrNull);
@@ -223,10 +235,22 @@ public class WhirlpoolWallet {
     Tx0Param tx0Param = getTx0Param(pool, tx0FeeTarget, null);
 
     Tx0Config tx0Config = getTx0Config(pool);
-    WhirlpoolUtxo spendFrom =
-        findTx0SpendFrom(tx0Param, 1); // throws UnconfirmedUtxoException, EmptyWalletException
+    Collection<WhirlpoolUtxo> spendFroms =
+        findTx0SpendFroms(
+            tx0Param,
+            1,
+            tx0Config.getMaxOutputs()); // throws UnconfirmedUtxoException, EmptyWalletException
 
-    return tx0(Lists.of(spendFrom), pool, tx0FeeTarget, tx0Config);
+    return tx0(spendFroms, pool, tx0FeeTarget, tx0Config);
+  }
+
+  // preview Tx0 from best deposit utxos
+  public Tx0Preview tx0Preview(Pool pool, Tx0Config tx0Config, Tx0FeeTarget tx0FeeTarget)
+      throws Exception { // throws UnconfirmedUtxoException, EmptyWalletException
+    Tx0Param tx0Param = getTx0Param(pool, tx0FeeTarget, tx0Config.getOverspend());
+    Collection<WhirlpoolUtxo> spendFroms =
+        findTx0SpendFroms(tx0Param, 1, tx0Config.getMaxOutputs());
+    return tx0Preview(spendFroms, pool, tx0Config, tx0FeeTarget);
   }
 
   public Tx0Preview tx0Preview(
@@ -251,6 +275,26 @@ public class WhirlpoolWallet {
     return config.getTx0Service().tx0Preview(spendFroms, tx0Config, tx0Param);
   }
 
+  /** Preview all pools & fee targets at once, best first. */
+  public List<Tx0PreviewOption> tx0Previews(
+      Collection<WhirlpoolUtxo> whirlpoolUtxos, Tx0Config tx0Config) throws Exception {
+    Collection<Pool> pools = getPools();
+    Map<Tx0FeeTarget, Tx0ParamSimple> tx0ParamsByFeeTarget =
+        new LinkedHashMap<Tx0FeeTarget, Tx0ParamSimple>();
+    for (Tx0FeeTarget feeTarget : Tx0FeeTarget.values()) {
+      Tx0ParamSimple tx0ParamSimple = getTx0ParamSimple(feeTarget);
+      if (tx0Config.getOverspend() != null) {
+        for (Pool pool : pools) {
+          tx0ParamSimple.setOverspend(pool.getPoolId(), tx0Config.getOverspend());
+        }
+      }
+      tx0ParamsByFeeTarget.put(feeTarget, tx0ParamSimple);
+    }
+
+    Collection<UnspentOutputWithKey> spendFroms = toUnspentOutputWithKeys(whirlpoolUtxos);
+    return config.getTx0Service().tx0Previews(spendFroms, tx0Config, tx0ParamsByFeeTarget, pools);
+  }
+
   public Tx0 tx0(
       Collection<WhirlpoolUtxo> whirlpoolUtxos,
       Pool pool,
@@ -282,19 +326,15 @@ public class WhirlpoolWallet {
       whirlpoolUtxo.getUtxoState().setStatus(WhirlpoolUtxoStatus.TX0, true);
     }
     try {
-      // run
-      Tx0 tx0 = tx0(spendFroms, pool, tx0Config, feeTarget);
+      // run, preserving utxo config
+      WhirlpoolUtxoConfig utxoConfig = whirlpoolUtxos.iterator().next().getUtxoConfig().copy();
+      Tx0 tx0 = tx0(spendFroms, pool, tx0Config, feeTarget, utxoConfig);
 
       // success
       for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxos) {
         WhirlpoolUtxoState utxoState = whirlpoolUtxo.getUtxoState();
         utxoState.setStatus(WhirlpoolUtxoStatus.TX0_SUCCESS, true);
       }
-
-      // preserve utxo config
-      String tx0Txid = tx0.getTx().getHashAsString();
-      addUtxoConfig(whirlpoolUtxos.iterator().next().getUtxoConfig().copy(), tx0Txid);
-
       return tx0;
     } catch (Exception e) {
       // error
@@ -313,6 +353,16 @@ public class WhirlpoolWallet {
       Tx0Config tx0Config,
       Tx0FeeTarget tx0FeeTarget)
       throws Exception {
+    return tx0(spendFroms, pool, tx0Config, tx0FeeTarget, null);
+  }
+
+  protected Tx0 tx0(
+      Collection<UnspentOutputWithKey> spendFroms,
+      Pool pool,
+      Tx0Config tx0Config,
+      Tx0FeeTarget tx0FeeTarget,
+      WhirlpoolUtxoConfig utxoConfigOrNull)
+      throws Exception {
 
     // check confirmations
     for (UnspentOutputWithKey spendFrom : spendFroms) {
@@ -352,14 +402,17 @@ public class WhirlpoolWallet {
       try {
         config.getBackendApi().pushTx(ClientUtils.getTxHex(tx0.getTx()));
       } catch (Exception e) {
+        // Tx0Data may have been rejected
+        config.getTx0Service().clearTx0Data(pool.getPoolId());
         // preserve pushTx message
         throw new NotifiableException(e.getMessage());
       }
+      if (utxoConfigOrNull != null) {
+        addUtxoConfig(utxoConfigOrNull, tx0.getTx().getHashAsString());
+      }
 
-      // refresh utxos
-      ClientUtils.sleepRefreshUtxos(config.getNetworkParameters());
-      clearCache(WhirlpoolAccount.DEPOSIT);
-      clearCache(WhirlpoolAccount.PREMIX);
+      // update utxos without waiting for backend
+      addTx0Utxos(tx0, spendFroms, tx0Config);
       return tx0;
     } catch (Exception e) {
       // revert index
@@ -368,6 +421,184 @@ public class WhirlpoolWallet {
     }
   }
 
+  public Tx0CascadePreview tx0CascadePreview(
+      Collection<WhirlpoolUtxo> whirlpoolUtxos, Tx0Config tx0Config, Tx0FeeTarget tx0FeeTarget)
+      throws Exception {
+    Collection<UnspentOutputWithKey> spendFroms = toUnspentOutputWithKeys(whirlpoolUtxos);
+    return config
+        .getTx0Service()
+        .tx0CascadePreview(
+            spendFroms, tx0Config, getTx0Params(tx0FeeTarget, tx0Config.getOverspend()));
+  }
+
+  /** Tx0 into each pool from largest to smallest, each Tx0 spending change of previous one. */
+  public List<Tx0> tx0Cascade(
+      Collection<WhirlpoolUtxo> whirlpoolUtxos, Tx0FeeTarget feeTarget, Tx0Config tx0Config)
+      throws Exception {
+
+    // verify utxos
+    for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxos) {
+      // check status
+      WhirlpoolUtxoStatus utxoStatus = whirlpoolUtxo.getUtxoState().getStatus();
+      if (!WhirlpoolUtxoStatus.READY.equals(utxoStatus)
+          && !WhirlpoolUtxoStatus.STOP.equals(utxoStatus)
+          && !WhirlpoolUtxoStatus.TX0_FAILED.equals(utxoStatus)) {
+        throw new NotifiableException("Cannot Tx0: utxoStatus=" + utxoStatus);
+      }
+      // check confirmations
+      UnspentOutput utxo = whirlpoolUtxo.getUtxo();
+      if (utxo.confirmations < config.getTx0MinConfirmations()) {
+        log.error("Minimum confirmation(s) for tx0: " + config.getTx0MinConfirmations());
+        throw new UnconfirmedUtxoException(utxo);
+      }
+    }
+
+    Collection<UnspentOutputWithKey> spendFroms = toUnspentOutputWithKeys(whirlpoolUtxos);
+    Tx0CascadePreview tx0CascadePreview =
+        config
+            .getTx0Service()
+            .tx0CascadePreview(
+                spendFroms, tx0Config, getTx0Params(feeTarget, tx0Config.getOverspend()));
+    List<Tx0Param> tx0Params = tx0CascadePreview.getTx0Params();
+    log.info(" • Tx0 cascade: spendFrom=" + spendFroms + ", preview=[" + tx0CascadePreview + "]");
+
+    // set utxos
+    String poolId = tx0Params.get(0).getPool().getPoolId();
+    for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxos) {
+      if (!poolId.equals(whirlpoolUtxo.getUtxoConfig().getPoolId())) {
+        whirlpoolUtxo.getUtxoConfig().setPoolId(poolId);
+      }
+      whirlpoolUtxo.getUtxoState().setStatus(WhirlpoolUtxoStatus.TX0, true);
+    }
+
+    int initialPremixIndex = premixWallet.getIndexHandler().get();
+    int nbPushed = 0;
+    try {
+      List<Tx0> tx0s =
+          config
+              .getTx0Service()
+              .tx0Cascade(
+                  spendFroms,
+                  depositWallet,
+                  premixWallet,
+                  postmixWallet,
+                  badbankWallet,
+                  tx0Config,
+                  tx0CascadePreview);
+
+      // pushTx in order, without waiting for utxos refresh
+      WhirlpoolUtxoConfig utxoConfig = whirlpoolUtxos.iterator().next().getUtxoConfig();
+      for (int i = 0; i < tx0s.size(); i++) {
+        Tx0 tx0 = tx0s.get(i);
+        try {
+          config.getBackendApi().pushTx(ClientUtils.getTxHex(tx0.getTx()));
+        } catch (Exception e) {
+          // preserve pushTx message
+          throw new NotifiableException(e.getMessage());
+        }
+        nbPushed++;
+        String tx0Txid = tx0.getTx().getHashAsString();
+        log.info(
+            " • Tx0 cascade result #"
+                + i
+                + ": txid="
+                + tx0Txid
+                + ", pool="
+                + tx0Params.get(i).getPool().getPoolId()
+                + ", nbPremixs="
+                + tx0.getPremixOutputs().size());
+
+        // preserve utxo config
+        WhirlpoolUtxoConfig tx0UtxoConfig = utxoConfig.copy();
+        tx0UtxoConfig.setPoolId(tx0Params.get(i).getPool().getPoolId());
+        addUtxoConfig(tx0UtxoConfig, tx0Txid);
+
+        // update utxos without waiting for backend
+        Collection<UnspentOutput> tx0SpendFroms = new ArrayList<UnspentOutput>();
+        if (i == 0) {
+          tx0SpendFroms.addAll(spendFroms);
+        } else {
+          // change of previous Tx0
+          tx0SpendFroms.add(config.getTx0Service().computeChangeUtxo(tx0s.get(i - 1), null));
+        }
+        addTx0Utxos(tx0, tx0SpendFroms, i == tx0s.size() - 1 ? tx0Config : null);
+      }
+
+      // success
+      for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxos) {
+        whirlpoolUtxo.getUtxoState().setStatus(WhirlpoolUtxoStatus.TX0_SUCCESS, true);
+      }
+      return tx0s;
+    } catch (Exception e) {
+      if (nbPushed > 0) {
+        // utxos were spent by first Tx0, remaining change stays in deposit
+        log.error("Tx0 cascade interrupted after " + nbPushed + " Tx0(s)", e);
+        for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxos) {
+          whirlpoolUtxo.getUtxoState().setStatus(WhirlpoolUtxoStatus.TX0_SUCCESS, true);
+        }
+        clearCache(WhirlpoolAccount.DEPOSIT);
+        clearCache(WhirlpoolAccount.PREMIX);
+        throw e;
+      }
+
+      // revert index
+      premixWallet.getIndexHandler().set(initialPremixIndex);
+      for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxos) {
+        WhirlpoolUtxoState utxoState = whirlpoolUtxo.getUtxoState();
+        String error = NotifiableException.computeNotifiableException(e).getMessage();
+        utxoState.setStatus(WhirlpoolUtxoStatus.TX0_FAILED, true, error);
+      }
+      throw e;
+    }
+  }
+
+  // premixs (and change) are known from Tx0 outputs
+  private void addTx0Utxos(
+      Tx0 tx0, Collection<? extends UnspentOutput> spendFroms, Tx0Config tx0ConfigOrNull) {
+    Tx0Service tx0Service = config.getTx0Service();
+    String txid = tx0.getTx().getHashAsString();
+    try {
+      Map<WhirlpoolAccount, List<UnspentOutput>> tx0Utxos =
+          new LinkedHashMap<WhirlpoolAccount, List<UnspentOutput>>();
+      tx0Utxos.put(
+          WhirlpoolAccount.PREMIX, tx0Service.computePremixUtxos(tx0, premixWallet.getZpub()));
+
+      // cascade: intermediate change is spent by next Tx0, to DEPOSIT
+      WhirlpoolAccount changeAccount =
+          tx0ConfigOrNull != null
+              ? WhirlpoolAccount.valueOf(tx0ConfigOrNull.getChangeWallet().name())
+              : WhirlpoolAccount.DEPOSIT;
+      UnspentOutput changeUtxo =
+          tx0Service.computeChangeUtxo(tx0, getWallet(changeAccount).getZpub());
+      if (changeUtxo != null) {
+        if (!tx0Utxos.containsKey(changeAccount)) {
+          tx0Utxos.put(changeAccount, new ArrayList<UnspentOutput>());
+        }
+        tx0Utxos.get(changeAccount).add(changeUtxo);
+      }
+
+      List<String> spentUtxoKeys = new ArrayList<String>();
+      for (UnspentOutput spendFrom : spendFroms) {
+        spentUtxoKeys.add(ClientUtils.utxoToKey(spendFrom));
+      }
+      dataService.addPendingTx(this, txid, spentUtxoKeys, tx0Utxos);
+    } catch (Exception e) {
+      // tx0 was pushed: fallback to utxos refresh
+      log.error("Unable to add Tx0 utxos: " + txid, e);
+      clearCache(WhirlpoolAccount.DEPOSIT);
+      clearCache(WhirlpoolAccount.PREMIX);
+    }
+  }
+
+  protected List<Tx0Param> getTx0Params(Tx0FeeTarget tx0FeeTarget, Long overspendOrNull)
+      throws Exception {
+    List<Tx0Param> tx0Params = new ArrayList<Tx0Param>();
+    for (Pool pool : getPools()) {
+      tx0Params.add(getTx0Param(pool, tx0FeeTarget, overspendOrNull));
+    }
+    return tx0Params;
+  }
+
   private Collection<UnspentOutputWithKey> toUnspentOutputWithKeys(
       Collection<WhirlpoolUtxo> whirlpoolUtxos) {
     Collection<UnspentOutputWithKey> spendFroms = new LinkedList<UnspentOutputWithKey>();
@@ -406,6 +637,7 @@ public class WhirlpoolWallet {
 
     persistOrchestrator.start(true);
     this.mixOrchestrator.start(true);
+    startUtxoNotifier();
     if (this.autoTx0Orchestrator.isPresent()) {
       this.autoTx0Orchestrator.get().start(true);
     }
@@ -418,6 +650,9 @@ public class WhirlpoolWallet {
       return;
     }
     log.info(" • Stopping WhirlpoolWallet");
+    if (config.getUtxoNotifier() != null) {
+      config.getUtxoNotifier().stop();
+    }
     this.mixOrchestrator.stop();
     if (this.autoTx0Orchestrator.isPresent()) {
       this.autoTx0Orchestrator.get().stop();
@@ -430,6 +665,33 @@ public class WhirlpoolWallet {
     clearCache();
   }
 
+  private void startUtxoNotifier() {
+    UtxoNotifier utxoNotifier = config.getUtxoNotifier();
+    if (utxoNotifier == null) {
+      return;
+    }
+    List<String> zpubs = new ArrayList<String>();
+    for (WhirlpoolAccount account : WhirlpoolAccount.values()) {
+      zpubs.add(getWallet(account).getZpub());
+    }
+    utxoNotifier.start(
+        zpubs,
+        new UtxoNotifierListener() {
+          @Override
+          public void onNotification(String zpub) {
+            if (log.isDebugEnabled()) {
+              log.debug("utxo notification => refreshing utxos");
+            }
+            dataService.refreshUtxos();
+          }
+
+          @Override
+          public void onResync() {
+            dataService.refreshUtxos();
+          }
+        });
+  }
+
   public void setPool(WhirlpoolUtxo whirlpoolUtxo, String poolId) throws Exception {
     // check pool
     Pool pool = null;
@@ -669,6 +931,10 @@ public class WhirlpoolWallet {
     return dataService.getUtxos(clearCache, accounts);
   }
 
+  public WhirlpoolUtxoIndex getUtxoIndex() throws Exception {
+    return dataService.getUtxoIndex();
+  }
+
   public void refreshUtxos(boolean clearCache) throws Exception {
     getUtxosDeposit(clearCache);
     getUtxosPremix(clearCache);
@@ -679,6 +945,10 @@ public class WhirlpoolWallet {
     return mixingState;
   }
 
+  public MixMetrics getMixMetrics() {
+    return mixOrchestrator.getMixMetrics();
+  }
+
   public String getDepositAddress(boolean increment) {
     return bech32Util.toBech32(
         depositWallet.getNextAddress(increment), config.getNetworkParameters());
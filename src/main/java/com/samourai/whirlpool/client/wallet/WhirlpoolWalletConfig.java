@@ -8,11 +8,13 @@ import com.samourai.wallet.bip47.rpc.java.SecretPointFactoryJava;
 import com.samourai.wallet.bip47.rpc.secretPoint.ISecretPointFactory;
 import com.samourai.whirlpool.client.tx0.Tx0Service;
 import com.samourai.whirlpool.client.wallet.beans.Tx0FeeTarget;
+import com.samourai.whirlpool.client.wallet.notifier.UtxoNotifier;
 import com.samourai.whirlpool.client.wallet.persist.WhirlpoolWalletPersistHandler;
 import com.samourai.whirlpool.client.whirlpool.WhirlpoolClientConfig;
 import com.samourai.whirlpool.protocol.WhirlpoolProtocol;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
 import org.apache.commons.lang3.StringUtils;
 import org.bitcoinj.core.NetworkParameters;
 import org.slf4j.Logger;
@@ -34,9 +36,19 @@ public class WhirlpoolWalletConfig extends WhirlpoolClientConfig {
   private int refreshUtxoDelay;
   private int refreshFeeDelay;
   private int refreshPoolsDelay;
+  private int refreshUtxoExpireDelay;
+  private int refreshFeeExpireDelay;
+  private int refreshPoolsExpireDelay;
+  private int refreshIndexsDelay;
+  private int refreshTx0DataDelay;
+  private int refreshTx0DataExpireDelay;
+  private UtxoNotifier utxoNotifier;
+  private int openWalletTimeout;
+  private int refreshUtxoFallbackDelay;
   private int mixsTarget;
   private int persistDelay;
   private int persistCleanDelay;
+  private ScheduledExecutorService orchestratorScheduler;
 
   private int feeMin;
   private int feeMax;
@@ -71,9 +83,19 @@ public class WhirlpoolWalletConfig extends WhirlpoolClientConfig {
     this.refreshUtxoDelay = 60; // 1min
     this.refreshFeeDelay = 300; // 5min
     this.refreshPoolsDelay = 300; // 5min
+    this.refreshUtxoExpireDelay = 600; // 10min
+    this.refreshFeeExpireDelay = 1800; // 30min
+    this.refreshPoolsExpireDelay = 1800; // 30min
+    this.refreshIndexsDelay = 300; // 5min
+    this.refreshTx0DataDelay = 30; // 30s
+    this.refreshTx0DataExpireDelay = 120; // 2min
+    this.utxoNotifier = null; // polling only
+    this.openWalletTimeout = 90; // 1min30
+    this.refreshUtxoFallbackDelay = 300; // 5min
     this.mixsTarget = 1;
     this.persistDelay = 4; // 4s
     this.persistCleanDelay = 300; // 5min
+    this.orchestratorScheduler = null; // one thread per orchestrator
 
     this.feeMin = 1;
     this.feeMax = 510;
@@ -180,6 +202,78 @@ public class WhirlpoolWalletConfig extends WhirlpoolClientConfig {
     this.refreshPoolsDelay = refreshPoolsDelay;
   }
 
+  public int getRefreshUtxoExpireDelay() {
+    return refreshUtxoExpireDelay;
+  }
+
+  public void setRefreshUtxoExpireDelay(int refreshUtxoExpireDelay) {
+    this.refreshUtxoExpireDelay = refreshUtxoExpireDelay;
+  }
+
+  public int getRefreshFeeExpireDelay() {
+    return refreshFeeExpireDelay;
+  }
+
+  public void setRefreshFeeExpireDelay(int refreshFeeExpireDelay) {
+    this.refreshFeeExpireDelay = refreshFeeExpireDelay;
+  }
+
+  public int getRefreshPoolsExpireDelay() {
+    return refreshPoolsExpireDelay;
+  }
+
+  public void setRefreshPoolsExpireDelay(int refreshPoolsExpireDelay) {
+    this.refreshPoolsExpireDelay = refreshPoolsExpireDelay;
+  }
+
+  public int getRefreshIndexsDelay() {
+    return refreshIndexsDelay;
+  }
+
+  public void setRefreshIndexsDelay(int refreshIndexsDelay) {
+    this.refreshIndexsDelay = refreshIndexsDelay;
+  }
+
+  public int getRefreshTx0DataDelay() {
+    return refreshTx0DataDelay;
+  }
+
+  public void setRefreshTx0DataDelay(int refreshTx0DataDelay) {
+    this.refreshTx0DataDelay = refreshTx0DataDelay;
+  }
+
+  public int getRefreshTx0DataExpireDelay() {
+    return refreshTx0DataExpireDelay;
+  }
+
+  public void setRefreshTx0DataExpireDelay(int refreshTx0DataExpireDelay) {
+    this.refreshTx0DataExpireDelay = refreshTx0DataExpireDelay;
+  }
+
+  public UtxoNotifier getUtxoNotifier() {
+    return utxoNotifier;
+  }
+
+  public void setUtxoNotifier(UtxoNotifier utxoNotifier) {
+    this.utxoNotifier = utxoNotifier;
+  }
+
+  public int getRefreshUtxoFallbackDelay() {
+    return refreshUtxoFallbackDelay;
+  }
+
+  public void setRefreshUtxoFallbackDelay(int refreshUtxoFallbackDelay) {
+    this.refreshUtxoFallbackDelay = refreshUtxoFallbackDelay;
+  }
+
+  public int getOpenWalletTimeout() {
+    return openWalletTimeout;
+  }
+
+  public void setOpenWalletTimeout(int openWalletTimeout) {
+    this.openWalletTimeout = openWalletTimeout;
+  }
+
   public int getMixsTarget() {
     return mixsTarget;
   }
@@ -204,6 +298,14 @@ public class WhirlpoolWalletConfig extends WhirlpoolClientConfig {
     this.persistCleanDelay = persistCleanDelay;
   }
 
+  public ScheduledExecutorService getOrchestratorScheduler() {
+    return orchestratorScheduler;
+  }
+
+  public void setOrchestratorScheduler(ScheduledExecutorService orchestratorScheduler) {
+    this.orchestratorScheduler = orchestratorScheduler;
+  }
+
   public int getFeeMin() {
     return feeMin;
   }
@@ -264,6 +366,9 @@ public class WhirlpoolWalletConfig extends WhirlpoolClientConfig {
             + Integer.toString(getPersistDelay())
             + ", persistCleanDelay="
             + Integer.toString(getPersistCleanDelay()));
+    configInfo.put(
+        "orchestrator",
+        "scheduler=" + (orchestratorScheduler != null ? "shared" : "dedicated-threads"));
     configInfo.put(
         "refreshDelay",
         "refreshUtxoDelay="
@@ -271,7 +376,26 @@ public class WhirlpoolWalletConfig extends WhirlpoolClientConfig {
             + ", refreshFeeDelay"
             + refreshFeeDelay
             + ", refreshPoolsDelay="
-            + refreshPoolsDelay);
+            + refreshPoolsDelay
+            + ", expireDelays="
+            + refreshUtxoExpireDelay
+            + "/"
+            + refreshFeeExpireDelay
+            + "/"
+            + refreshPoolsExpireDelay
+            + ", refreshIndexsDelay="
+            + refreshIndexsDelay
+            + ", refreshTx0DataDelay="
+            + refreshTx0DataDelay
+            + "/"
+            + refreshTx0DataExpireDelay);
+    configInfo.put(
+        "utxoNotifier",
+        utxoNotifier != null
+            ? utxoNotifier.getClass().getSimpleName()
+                + ", refreshUtxoFallbackDelay="
+                + refreshUtxoFallbackDelay
+            : "false");
     configInfo.put(
         "mix",
         "mobile="
@@ -280,6 +404,14 @@ public class WhirlpoolWalletConfig extends WhirlpoolClientConfig {
             + getMaxClients()
             + ", maxClientsPerPool="
             + getMaxClientsPerPool()
+            + ", maxConnecting="
+            + getMaxConnecting()
+            + ", warmTransports="
+            + getWarmTransports()
+            + ", reconnectDelay="
+            + getReconnectDelay()
+            + "/"
+            + getReconnectDelayMax()
             + ", clientDelay="
             + getClientDelay()
             + ", tx0Delay="
@@ -7,11 +7,15 @@ import com.samourai.wallet.client.indexHandler.IIndexHandler;
 import com.samourai.wallet.hd.HD_Wallet;
 import com.samourai.wallet.segwit.bech32.Bech32UtilGeneric;
 import com.samourai.whirlpool.client.WhirlpoolClient;
+import com.samourai.whirlpool.client.exception.NotifiableException;
 import com.samourai.whirlpool.client.utils.ClientUtils;
 import com.samourai.whirlpool.client.wallet.beans.WhirlpoolWalletAccount;
 import com.samourai.whirlpool.client.wallet.persist.WhirlpoolWalletPersistHandler;
 import com.samourai.whirlpool.client.whirlpool.WhirlpoolClientImpl;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.*;
 import java8.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -145,39 +149,45 @@ public class WhirlpoolWalletService {
         walletPersistHandler.getIndexHandler(INDEX_BADBANK_CHANGE);
     boolean init = !walletPersistHandler.isInitialized();
 
-    // deposit, premix, postmix & badbank wallets
-    Bip84ApiWallet depositWallet =
-        new Bip84ApiWallet(
+    // deposit, premix, postmix & badbank wallets (initialized concurrently)
+    List<Callable<Bip84ApiWallet>> tasks = new ArrayList<Callable<Bip84ApiWallet>>();
+    tasks.add(
+        computeBip84ApiWallet(
             bip84w,
-            WhirlpoolWalletAccount.DEPOSIT.getAccountIndex(),
+            WhirlpoolWalletAccount.DEPOSIT,
             depositIndexHandler,
             depositChangeIndexHandler,
             backendApi,
-            init);
-    Bip84ApiWallet premixWallet =
-        new Bip84ApiWallet(
+            init));
+    tasks.add(
+        computeBip84ApiWallet(
             bip84w,
-            WhirlpoolWalletAccount.PREMIX.getAccountIndex(),
+            WhirlpoolWalletAccount.PREMIX,
             premixIndexHandler,
             premixChangeIndexHandler,
             backendApi,
-            init);
-    Bip84ApiWallet postmixWallet =
-        new Bip84ApiWallet(
+            init));
+    tasks.add(
+        computeBip84ApiWallet(
             bip84w,
-            WhirlpoolWalletAccount.POSTMIX.getAccountIndex(),
+            WhirlpoolWalletAccount.POSTMIX,
             postmixIndexHandler,
             postmixChangeIndexHandler,
             backendApi,
-            init);
-    Bip84ApiWallet badbankWallet =
-        new Bip84ApiWallet(
+            init));
+    tasks.add(
+        computeBip84ApiWallet(
             bip84w,
-            WhirlpoolWalletAccount.BADBANK.getAccountIndex(),
+            WhirlpoolWalletAccount.BADBANK,
             badbankIndexHandler,
             badbankChangeIndexHandler,
             backendApi,
-            init);
+            init));
+    List<Bip84ApiWallet> wallets = invokeAll(tasks, config.getOpenWalletTimeout());
+    Bip84ApiWallet depositWallet = wallets.get(0);
+    Bip84ApiWallet premixWallet = wallets.get(1);
+    Bip84ApiWallet postmixWallet = wallets.get(2);
+    Bip84ApiWallet badbankWallet = wallets.get(3);
 
     if (init) {
       walletPersistHandler.setInitialized(true);
@@ -187,6 +197,50 @@ public class WhirlpoolWalletService {
         config, dataService, depositWallet, premixWallet, postmixWallet, badbankWallet);
   }
 
+  private Callable<Bip84ApiWallet> computeBip84ApiWallet(
+      final HD_Wallet bip84w,
+      final WhirlpoolWalletAccount account,
+      final IIndexHandler indexHandler,
+      final IIndexHandler indexChangeHandler,
+      final BackendApi backendApi,
+      final boolean init) {
+    return new Callable<Bip84ApiWallet>() {
+      @Override
+      public Bip84ApiWallet call() throws Exception {
+        return new Bip84ApiWallet(
+            bip84w,
+            account.getAccountIndex(),
+            indexHandler,
+            indexChangeHandler,
+            backendApi,
+            init);
+      }
+    };
+  }
+
+  // run tasks concurrently, with a shared deadline
+  private <T> List<T> invokeAll(List<Callable<T>> tasks, int timeout) throws Exception {
+    ExecutorService executor =
+        Executors.newFixedThreadPool(tasks.size(), ClientUtils.threadFactory("openWallet", true));
+    try {
+      List<Future<T>> futures = executor.invokeAll(tasks, timeout, TimeUnit.SECONDS);
+      List<T> results = new ArrayList<T>();
+      for (Future<T> future : futures) {
+        try {
+          results.add(future.get());
+        } catch (CancellationException e) {
+          throw new NotifiableException("Opening wallet timed out after " + timeout + "s");
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          throw cause instanceof Exception ? (Exception) cause : e;
+        }
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   protected WhirlpoolWallet computeWhirlpoolWallet(
       WhirlpoolWalletConfig config,
       WhirlpoolDataService dataService,
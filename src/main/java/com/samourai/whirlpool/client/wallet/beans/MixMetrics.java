@@ -0,0 +1,183 @@
+package com.samourai.whirlpool.client.wallet.beans;
+
+import com.samourai.whirlpool.client.mix.listener.MixFailReason;
+import com.samourai.whirlpool.client.mix.listener.MixStep;
+import com.samourai.whirlpool.client.utils.LatencyHistogram;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Mix latencies (millis) and outcomes by pool. Values returned by getters are snapshots. */
+public class MixMetrics {
+  public static final List<MixStep> FUNNEL =
+      Collections.unmodifiableList(
+          Arrays.asList(
+              MixStep.REGISTERED_INPUT, MixStep.CONFIRMED_INPUT, MixStep.SIGNED, MixStep.SUCCESS));
+
+  private ConcurrentHashMap<String, PoolMixMetrics> metricsByPool;
+
+  public MixMetrics() {
+    this.metricsByPool = new ConcurrentHashMap<String, PoolMixMetrics>();
+  }
+
+  public MixTracker newMix(String poolId) {
+    PoolMixMetrics poolMetrics = metricsByPool.get(poolId);
+    if (poolMetrics == null) {
+      metricsByPool.putIfAbsent(poolId, new PoolMixMetrics());
+      poolMetrics = metricsByPool.get(poolId);
+    }
+    return new MixTracker(poolMetrics);
+  }
+
+  public PoolMixMetrics getPoolMetrics(String poolId) {
+    PoolMixMetrics poolMetrics = metricsByPool.get(poolId);
+    return poolMetrics != null ? poolMetrics.copy() : null;
+  }
+
+  public Map<String, PoolMixMetrics> getPoolMetrics() {
+    Map<String, PoolMixMetrics> result = new LinkedHashMap<String, PoolMixMetrics>();
+    for (Map.Entry<String, PoolMixMetrics> entry : metricsByPool.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().copy());
+    }
+    return result;
+  }
+
+  public static class PoolMixMetrics {
+    private long nbStarted;
+    private Map<MixStep, LatencyHistogram> stepDurations; // time spent in each step
+    private Map<MixStep, Long> nbReached; // mixs which reached each FUNNEL step
+    private Map<MixFailReason, Long> nbFails;
+    private LatencyHistogram successDuration;
+
+    private PoolMixMetrics() {
+      this.nbStarted = 0;
+      this.stepDurations = new EnumMap<MixStep, LatencyHistogram>(MixStep.class);
+      this.nbReached = new EnumMap<MixStep, Long>(MixStep.class);
+      this.nbFails = new EnumMap<MixFailReason, Long>(MixFailReason.class);
+      this.successDuration = new LatencyHistogram();
+    }
+
+    private synchronized PoolMixMetrics copy() {
+      PoolMixMetrics copy = new PoolMixMetrics();
+      copy.nbStarted = nbStarted;
+      for (Map.Entry<MixStep, LatencyHistogram> entry : stepDurations.entrySet()) {
+        copy.stepDurations.put(entry.getKey(), entry.getValue().copy());
+      }
+      copy.nbReached.putAll(nbReached);
+      copy.nbFails.putAll(nbFails);
+      copy.successDuration = successDuration.copy();
+      return copy;
+    }
+
+    private synchronized void onStart() {
+      nbStarted++;
+    }
+
+    private synchronized void onStepDone(MixStep step, long duration) {
+      LatencyHistogram histogram = stepDurations.get(step);
+      if (histogram == null) {
+        histogram = new LatencyHistogram();
+        stepDurations.put(step, histogram);
+      }
+      histogram.record(duration);
+    }
+
+    private synchronized void onReached(MixStep step) {
+      nbReached.put(step, getNbReached(step) + 1);
+    }
+
+    private synchronized void onFail(MixFailReason reason) {
+      nbFails.put(reason, getNbFails(reason) + 1);
+    }
+
+    private synchronized void onSuccess(long duration) {
+      successDuration.record(duration);
+    }
+
+    public synchronized long getNbStarted() {
+      return nbStarted;
+    }
+
+    /** @return time spent in step, or null when never left */
+    public synchronized LatencyHistogram getStepDuration(MixStep step) {
+      return stepDurations.get(step);
+    }
+
+    public synchronized long getNbReached(MixStep step) {
+      Long nb = nbReached.get(step);
+      return nb != null ? nb : 0;
+    }
+
+    public synchronized long getNbFails(MixFailReason reason) {
+      Long nb = nbFails.get(reason);
+      return nb != null ? nb : 0;
+    }
+
+    public synchronized LatencyHistogram getSuccessDuration() {
+      return successDuration;
+    }
+
+    @Override
+    public synchronized String toString() {
+      StringBuilder sb = new StringBuilder("started=" + nbStarted + ", funnel=[");
+      for (MixStep step : FUNNEL) {
+        sb.append(step + "=" + getNbReached(step) + " ");
+      }
+      sb.append("], fails=" + nbFails + ", stepDurations=" + stepDurations);
+      return sb.toString();
+    }
+  }
+
+  /** Follows a single mix, from its listener. */
+  public static class MixTracker {
+    private PoolMixMetrics poolMetrics;
+    private long startTime;
+    private MixStep lastStep;
+    private long lastStepTime;
+    private Set<MixStep> reached;
+    private boolean done;
+
+    private MixTracker(PoolMixMetrics poolMetrics) {
+      this.poolMetrics = poolMetrics;
+      this.startTime = System.currentTimeMillis();
+      this.lastStep = null;
+      this.lastStepTime = startTime;
+      this.reached = EnumSet.noneOf(MixStep.class);
+      this.done = false;
+      poolMetrics.onStart();
+    }
+
+    public synchronized void progress(MixStep step) {
+      if (done || step == lastStep) {
+        return;
+      }
+      long now = System.currentTimeMillis();
+      if (lastStep != null) {
+        poolMetrics.onStepDone(lastStep, now - lastStepTime);
+      }
+      if (FUNNEL.contains(step) && reached.add(step)) {
+        poolMetrics.onReached(step);
+      }
+      lastStep = step;
+      lastStepTime = now;
+    }
+
+    public synchronized void success() {
+      progress(MixStep.SUCCESS);
+      if (!done) {
+        done = true;
+        poolMetrics.onSuccess(System.currentTimeMillis() - startTime);
+      }
+    }
+
+    public synchronized void fail(MixFailReason reason) {
+      if (done) {
+        return;
+      }
+      if (lastStep != null) {
+        poolMetrics.onStepDone(lastStep, System.currentTimeMillis() - lastStepTime);
+      }
+      done = true;
+      poolMetrics.onFail(reason);
+    }
+  }
+}
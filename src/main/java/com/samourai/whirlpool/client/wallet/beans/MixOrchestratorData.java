@@ -5,75 +5,156 @@ import com.samourai.whirlpool.client.utils.ClientUtils;
 import com.samourai.whirlpool.client.whirlpool.beans.Pool;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java8.util.function.Function;
+import java.util.concurrent.atomic.AtomicInteger;
 import java8.util.stream.Collectors;
 import java8.util.stream.Stream;
-import java8.util.stream.StreamSupport;
 
 public abstract class MixOrchestratorData {
   private ConcurrentHashMap<String, Mixing> mixing;
-  private Set<String> mixingHashs;
-  private Map<String, Integer> mixingPerPool;
+  private ConcurrentHashMap<String, WhirlpoolUtxo> utxosMixing;
+  private Collection<WhirlpoolUtxo> utxosMixingView;
+  private ConcurrentHashMap<String, AtomicInteger> mixingHashs;
+  private ConcurrentHashMap<String, AtomicInteger> mixingPerPool;
+  private AtomicInteger nbMixingMustMix;
+  private AtomicInteger nbMixingLiquidity;
+  private MixQueue queue;
 
   private MixingStateEditable mixingState;
 
+  // full scan of queued utxos, to (re)build queue index
   public abstract Stream<WhirlpoolUtxo> getQueue();
 
   public abstract Collection<Pool> getPools() throws Exception;
 
   public MixOrchestratorData(MixingStateEditable mixingState) {
     this.mixing = new ConcurrentHashMap<String, Mixing>();
-    this.mixingHashs = new HashSet<String>();
-    this.mixingPerPool = new HashMap<String, Integer>();
+    this.utxosMixing = new ConcurrentHashMap<String, WhirlpoolUtxo>();
+    this.utxosMixingView = Collections.unmodifiableCollection(utxosMixing.values());
+    this.mixingHashs = new ConcurrentHashMap<String, AtomicInteger>();
+    this.mixingPerPool = new ConcurrentHashMap<String, AtomicInteger>();
+    this.nbMixingMustMix = new AtomicInteger(0);
+    this.nbMixingLiquidity = new AtomicInteger(0);
+    this.queue = new MixQueue();
     this.mixingState = mixingState;
   }
 
-  public void clear() {
+  public synchronized void clear() {
     mixing.clear();
+    utxosMixing.clear();
     mixingHashs.clear();
     mixingPerPool.clear();
-    this.mixingState.setUtxosMixing(computeUtxosMixing());
+    nbMixingMustMix.set(0);
+    nbMixingLiquidity.set(0);
+    queue.clear();
+    emitMixingState();
   }
 
   public synchronized void removeMixing(WhirlpoolUtxo whirlpoolUtxo) {
     String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
-    mixing.remove(key);
-    mixingHashs.remove(whirlpoolUtxo.getUtxo().tx_hash);
-    mixingPerPool = computeMixingPerPool();
-    mixingState.setUtxosMixing(computeUtxosMixing());
+    Mixing mixingRemoved = mixing.remove(key);
+    if (mixingRemoved != null) {
+      onMixingRemoved(key, mixingRemoved);
+    }
+    emitMixingState();
   }
 
   public synchronized void addMixing(Mixing mixingToAdd) {
     WhirlpoolUtxo whirlpoolUtxo = mixingToAdd.getUtxo();
     String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
-    mixing.put(key, mixingToAdd);
-    mixingHashs.add(whirlpoolUtxo.getUtxo().tx_hash);
-    mixingPerPool = computeMixingPerPool();
+    Mixing mixingReplaced = mixing.put(key, mixingToAdd);
+    if (mixingReplaced != null) {
+      onMixingRemoved(key, mixingReplaced);
+    }
+    utxosMixing.put(key, whirlpoolUtxo);
+    increment(mixingHashs, whirlpoolUtxo.getUtxo().tx_hash);
+    increment(mixingPerPool, mixingToAdd.getPoolId());
+    getNbMixingCounter(whirlpoolUtxo).incrementAndGet();
+    emitMixingState();
+  }
+
+  private void onMixingRemoved(String key, Mixing mixingRemoved) {
+    WhirlpoolUtxo whirlpoolUtxo = mixingRemoved.getUtxo();
+    utxosMixing.remove(key);
+    decrement(mixingHashs, whirlpoolUtxo.getUtxo().tx_hash);
+    decrement(mixingPerPool, mixingRemoved.getPoolId());
+    getNbMixingCounter(whirlpoolUtxo).decrementAndGet();
+  }
+
+  private AtomicInteger getNbMixingCounter(WhirlpoolUtxo whirlpoolUtxo) {
+    return WhirlpoolAccount.POSTMIX.equals(whirlpoolUtxo.getAccount())
+        ? nbMixingLiquidity
+        : nbMixingMustMix;
+  }
+
+  private void increment(ConcurrentHashMap<String, AtomicInteger> counters, String key) {
+    AtomicInteger counter = counters.get(key);
+    if (counter == null) {
+      counter = new AtomicInteger(0);
+      counters.put(key, counter);
+    }
+    counter.incrementAndGet();
+  }
+
+  private void decrement(ConcurrentHashMap<String, AtomicInteger> counters, String key) {
+    AtomicInteger counter = counters.get(key);
+    if (counter != null && counter.decrementAndGet() <= 0) {
+      counters.remove(key);
+    }
+  }
+
+  private void emitMixingState() {
+    // counters only, MixingState copies mixing utxos when read
     mixingState.set(
-        computeUtxosMixing(),
-        getQueue().collect(Collectors.<WhirlpoolUtxo>toList())); // recount nbQueued too
-  }
-
-  private Collection<WhirlpoolUtxo> computeUtxosMixing() {
-    return StreamSupport.stream(mixing.values())
-        .map(
-            new Function<Mixing, WhirlpoolUtxo>() {
-              @Override
-              public WhirlpoolUtxo apply(Mixing m) {
-                return m.getUtxo();
-              }
-            })
-        .collect(Collectors.<WhirlpoolUtxo>toList());
-  }
-
-  private Map<String, Integer> computeMixingPerPool() {
-    Map<String, Integer> mixingPerPool = new HashMap<String, Integer>();
-    for (Mixing mixingItem : mixing.values()) {
-      String poolId = mixingItem.getPoolId();
-      int currentCount = mixingPerPool.containsKey(poolId) ? mixingPerPool.get(poolId) : 0;
-      mixingPerPool.put(poolId, currentCount + 1);
+        utxosMixingView,
+        nbMixingMustMix.get(),
+        nbMixingLiquidity.get(),
+        queue.getNbQueuedMustMix(),
+        queue.getNbQueuedLiquidity());
+  }
+
+  public void rebuildQueue() {
+    queue.clear();
+    for (WhirlpoolUtxo whirlpoolUtxo : getQueue().collect(Collectors.<WhirlpoolUtxo>toList())) {
+      queueAdd(whirlpoolUtxo);
     }
-    return mixingPerPool;
+    refreshNbQueued();
+  }
+
+  public void queueAdd(WhirlpoolUtxo whirlpoolUtxo) {
+    // only PREMIX & POSTMIX utxos can be mixed
+    WhirlpoolAccount account = whirlpoolUtxo.getAccount();
+    if (WhirlpoolAccount.PREMIX.equals(account) || WhirlpoolAccount.POSTMIX.equals(account)) {
+      queue.add(whirlpoolUtxo);
+      refreshNbQueued();
+    }
+  }
+
+  public void queueRemove(WhirlpoolUtxo whirlpoolUtxo) {
+    if (queue.remove(whirlpoolUtxo)) {
+      refreshNbQueued();
+    }
+  }
+
+  public void queueRemoveObsolete(WhirlpoolUtxo whirlpoolUtxo) {
+    if (queue.removeObsolete(whirlpoolUtxo)) {
+      refreshNbQueued();
+    }
+  }
+
+  public boolean queueRefreshPool(WhirlpoolUtxo whirlpoolUtxo, String indexedPoolId) {
+    return queue.refreshPool(whirlpoolUtxo, indexedPoolId);
+  }
+
+  private void refreshNbQueued() {
+    mixingState.setNbQueued(queue.getNbQueuedMustMix(), queue.getNbQueuedLiquidity());
+  }
+
+  public Iterable<WhirlpoolUtxo> getQueued(String poolId) {
+    return queue.getQueue(poolId);
+  }
+
+  public Iterable<WhirlpoolUtxo> getQueued() {
+    return queue.getQueue();
   }
 
   public Collection<Mixing> getMixing() {
@@ -86,12 +167,16 @@ public abstract class MixOrchestratorData {
   }
 
   public boolean isHashMixing(String txid) {
-    return mixingHashs.contains(txid);
+    return mixingHashs.containsKey(txid);
   }
 
   public int getNbMixing(String poolId) {
-    Integer nbMixingInPool = mixingPerPool.get(poolId);
-    return (nbMixingInPool != null ? nbMixingInPool : 0);
+    AtomicInteger nbMixingInPool = mixingPerPool.get(poolId);
+    return (nbMixingInPool != null ? nbMixingInPool.get() : 0);
+  }
+
+  public int getNbMixing() {
+    return nbMixingMustMix.get() + nbMixingLiquidity.get();
   }
 
   public MixingStateEditable getMixingState() {
@@ -99,6 +184,6 @@ public abstract class MixOrchestratorData {
   }
 
   public void recountQueued() {
-    mixingState.setUtxosQueued(getQueue().collect(Collectors.<WhirlpoolUtxo>toList()));
+    emitMixingState();
   }
 }
@@ -0,0 +1,187 @@
+package com.samourai.whirlpool.client.wallet.beans;
+
+import com.samourai.whirlpool.client.utils.ClientUtils;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java8.lang.Longs;
+
+/** Queued utxos indexed by pool, ordered by mix priority. */
+public class MixQueue {
+  private final Map<String, MixQueueItem> items; // by utxo key
+  private final Map<String, NavigableSet<MixQueueItem>> itemsByPool;
+  private final Random random;
+  private final AtomicInteger nbQueuedMustMix;
+  private final AtomicInteger nbQueuedLiquidity;
+
+  public MixQueue() {
+    this.items = new ConcurrentHashMap<String, MixQueueItem>();
+    this.itemsByPool = new ConcurrentHashMap<String, NavigableSet<MixQueueItem>>();
+    this.random = new Random();
+    this.nbQueuedMustMix = new AtomicInteger(0);
+    this.nbQueuedLiquidity = new AtomicInteger(0);
+  }
+
+  public synchronized void add(WhirlpoolUtxo whirlpoolUtxo) {
+    String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
+    remove(key);
+
+    String poolId = whirlpoolUtxo.getUtxoConfig().getPoolId();
+    if (poolId == null) {
+      return;
+    }
+    // random tie-break keeps same-priority utxos shuffled
+    MixQueueItem item = new MixQueueItem(whirlpoolUtxo, key, poolId, random.nextLong());
+    items.put(key, item);
+    NavigableSet<MixQueueItem> poolItems = itemsByPool.get(poolId);
+    if (poolItems == null) {
+      poolItems = new ConcurrentSkipListSet<MixQueueItem>();
+      itemsByPool.put(poolId, poolItems);
+    }
+    poolItems.add(item);
+    getCounter(item.account).incrementAndGet();
+  }
+
+  public synchronized boolean remove(WhirlpoolUtxo whirlpoolUtxo) {
+    String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
+    MixQueueItem item = items.get(key);
+    if (item == null || item.whirlpoolUtxo != whirlpoolUtxo) {
+      // not queued, or another instance of this utxo is queued
+      return false;
+    }
+    return remove(key);
+  }
+
+  private boolean remove(String key) {
+    MixQueueItem item = items.remove(key);
+    if (item == null) {
+      return false;
+    }
+    NavigableSet<MixQueueItem> poolItems = itemsByPool.get(item.poolId);
+    if (poolItems != null) {
+      poolItems.remove(item);
+    }
+    getCounter(item.account).decrementAndGet();
+    return true;
+  }
+
+  private AtomicInteger getCounter(WhirlpoolAccount account) {
+    return WhirlpoolAccount.POSTMIX.equals(account) ? nbQueuedLiquidity : nbQueuedMustMix;
+  }
+
+  // removes another instance of the same utxo (ie: after a cache reset)
+  public synchronized boolean removeObsolete(WhirlpoolUtxo whirlpoolUtxo) {
+    String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
+    MixQueueItem item = items.get(key);
+    if (item != null && item.whirlpoolUtxo != whirlpoolUtxo) {
+      return remove(key);
+    }
+    return false;
+  }
+
+  // re-index utxos which changed pool since queued
+  public synchronized boolean refreshPool(WhirlpoolUtxo whirlpoolUtxo, String indexedPoolId) {
+    String poolId = whirlpoolUtxo.getUtxoConfig().getPoolId();
+    if (indexedPoolId.equals(poolId)) {
+      return false;
+    }
+    String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
+    MixQueueItem item = items.get(key);
+    if (item != null && item.whirlpoolUtxo == whirlpoolUtxo) {
+      add(whirlpoolUtxo);
+    }
+    return true;
+  }
+
+  public synchronized void clear() {
+    items.clear();
+    itemsByPool.clear();
+    nbQueuedMustMix.set(0);
+    nbQueuedLiquidity.set(0);
+  }
+
+  // by priority, weakly consistent
+  public Iterable<WhirlpoolUtxo> getQueue(String poolId) {
+    NavigableSet<MixQueueItem> poolItems = itemsByPool.get(poolId);
+    if (poolItems == null) {
+      return Collections.emptyList();
+    }
+    return toUtxos(poolItems);
+  }
+
+  // unordered, weakly consistent
+  public Iterable<WhirlpoolUtxo> getQueue() {
+    return toUtxos(items.values());
+  }
+
+  public int getSize() {
+    return items.size();
+  }
+
+  public int getNbQueuedMustMix() {
+    return nbQueuedMustMix.get();
+  }
+
+  public int getNbQueuedLiquidity() {
+    return nbQueuedLiquidity.get();
+  }
+
+  private Iterable<WhirlpoolUtxo> toUtxos(final Iterable<MixQueueItem> queueItems) {
+    return new Iterable<WhirlpoolUtxo>() {
+      @Override
+      public Iterator<WhirlpoolUtxo> iterator() {
+        final Iterator<MixQueueItem> it = queueItems.iterator();
+        return new Iterator<WhirlpoolUtxo>() {
+          @Override
+          public boolean hasNext() {
+            return it.hasNext();
+          }
+
+          @Override
+          public WhirlpoolUtxo next() {
+            return it.next().whirlpoolUtxo;
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+    };
+  }
+
+  private static class MixQueueItem implements Comparable<MixQueueItem> {
+    private final WhirlpoolUtxo whirlpoolUtxo;
+    private final String key;
+    private final String poolId;
+    private final long tieBreak;
+    // priority snapshot, as ordering must not change while indexed
+    private final WhirlpoolAccount account;
+    private final Long lastError;
+
+    MixQueueItem(WhirlpoolUtxo whirlpoolUtxo, String key, String poolId, long tieBreak) {
+      this.whirlpoolUtxo = whirlpoolUtxo;
+      this.key = key;
+      this.poolId = poolId;
+      this.tieBreak = tieBreak;
+      this.account = whirlpoolUtxo.getAccount();
+      this.lastError = whirlpoolUtxo.getUtxoState().getLastError();
+    }
+
+    @Override
+    public int compareTo(MixQueueItem o) {
+      int result =
+          WhirlpoolUtxoPriorityComparator.compare(account, lastError, o.account, o.lastError);
+      if (result != 0) {
+        return result;
+      }
+      result = Longs.compare(tieBreak, o.tieBreak);
+      if (result != 0) {
+        return result;
+      }
+      return key.compareTo(o.key);
+    }
+  }
+}
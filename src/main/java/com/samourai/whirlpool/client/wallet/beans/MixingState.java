@@ -84,6 +84,31 @@ public class MixingState {
     emit();
   }
 
+  // counters maintained by caller, utxosMixing may be a live view
+  protected synchronized void set(
+      Collection<WhirlpoolUtxo> utxosMixing,
+      int nbMixingMustMix,
+      int nbMixingLiquidity,
+      int nbQueuedMustMix,
+      int nbQueuedLiquidity) {
+    this.utxosMixing = utxosMixing;
+    this.nbMixingMustMix = nbMixingMustMix;
+    this.nbMixingLiquidity = nbMixingLiquidity;
+    this.nbMixing = nbMixingMustMix + nbMixingLiquidity;
+    doSetNbQueued(nbQueuedMustMix, nbQueuedLiquidity);
+    emit();
+  }
+
+  protected synchronized void setNbQueued(int nbQueuedMustMix, int nbQueuedLiquidity) {
+    doSetNbQueued(nbQueuedMustMix, nbQueuedLiquidity);
+  }
+
+  private void doSetNbQueued(int nbQueuedMustMix, int nbQueuedLiquidity) {
+    this.nbQueuedMustMix = nbQueuedMustMix;
+    this.nbQueuedLiquidity = nbQueuedLiquidity;
+    this.nbQueued = nbQueuedMustMix + nbQueuedLiquidity;
+  }
+
   protected synchronized void setUtxosMixing(Collection<WhirlpoolUtxo> utxosMixing) {
     doSetUtxosMixing(utxosMixing);
     emit();
@@ -105,7 +130,8 @@ public class MixingState {
   }
 
   public Collection<WhirlpoolUtxo> getUtxosMixing() {
-    return utxosMixing;
+    // snapshot on read
+    return new ArrayList<WhirlpoolUtxo>(utxosMixing);
   }
 
   public int getNbMixing() {
@@ -19,6 +19,22 @@ public class MixingStateEditable extends MixingState {
     super.set(utxosMixing, utxosQueued);
   }
 
+  @Override
+  public synchronized void set(
+      Collection<WhirlpoolUtxo> utxosMixing,
+      int nbMixingMustMix,
+      int nbMixingLiquidity,
+      int nbQueuedMustMix,
+      int nbQueuedLiquidity) {
+    super.set(
+        utxosMixing, nbMixingMustMix, nbMixingLiquidity, nbQueuedMustMix, nbQueuedLiquidity);
+  }
+
+  @Override
+  public synchronized void setNbQueued(int nbQueuedMustMix, int nbQueuedLiquidity) {
+    super.setNbQueued(nbQueuedMustMix, nbQueuedLiquidity);
+  }
+
   @Override
   public void setUtxosMixing(Collection<WhirlpoolUtxo> utxosMixing) {
     super.setUtxosMixing(utxosMixing);
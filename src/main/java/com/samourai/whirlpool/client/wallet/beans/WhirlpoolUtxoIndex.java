@@ -0,0 +1,242 @@
+package com.samourai.whirlpool.client.wallet.beans;
+
+import com.samourai.whirlpool.client.utils.ClientUtils;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Cached utxos indexed by status, pool, account and tx hash. Views are weakly consistent. */
+public class WhirlpoolUtxoIndex {
+  private final Logger log = LoggerFactory.getLogger(WhirlpoolUtxoIndex.class);
+
+  private final Map<String, IndexEntry> entries; // by utxo key
+  private final Map<String, WhirlpoolUtxo> utxos; // by utxo key
+  private final Map<WhirlpoolUtxoStatus, Map<String, WhirlpoolUtxo>> byStatus;
+  private final Map<String, Map<String, WhirlpoolUtxo>> byPool;
+  private final Map<WhirlpoolAccount, Map<String, WhirlpoolUtxo>> byAccount;
+  private final Map<String, Map<String, WhirlpoolUtxo>> byHash;
+
+  public WhirlpoolUtxoIndex() {
+    this.entries = new ConcurrentHashMap<String, IndexEntry>();
+    this.utxos = new ConcurrentHashMap<String, WhirlpoolUtxo>();
+    this.byStatus = new ConcurrentHashMap<WhirlpoolUtxoStatus, Map<String, WhirlpoolUtxo>>();
+    this.byPool = new ConcurrentHashMap<String, Map<String, WhirlpoolUtxo>>();
+    this.byAccount = new ConcurrentHashMap<WhirlpoolAccount, Map<String, WhirlpoolUtxo>>();
+    this.byHash = new ConcurrentHashMap<String, Map<String, WhirlpoolUtxo>>();
+  }
+
+  public synchronized void add(final WhirlpoolUtxo whirlpoolUtxo) {
+    String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
+    remove(key);
+
+    IndexEntry entry = new IndexEntry(key, whirlpoolUtxo);
+    entries.put(key, entry);
+    utxos.put(key, whirlpoolUtxo);
+    put(byAccount, whirlpoolUtxo.getAccount(), key, whirlpoolUtxo);
+    put(byHash, whirlpoolUtxo.getUtxo().tx_hash, key, whirlpoolUtxo);
+    reindex(entry);
+
+    // follow status & pool changes
+    entry.subscribe();
+  }
+
+  public synchronized boolean remove(WhirlpoolUtxo whirlpoolUtxo) {
+    String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
+    IndexEntry entry = entries.get(key);
+    if (entry == null || entry.whirlpoolUtxo != whirlpoolUtxo) {
+      // not indexed, or another instance of this utxo is indexed
+      return false;
+    }
+    return remove(key);
+  }
+
+  private boolean remove(String key) {
+    IndexEntry entry = entries.remove(key);
+    if (entry == null) {
+      return false;
+    }
+    entry.dispose();
+    WhirlpoolUtxo whirlpoolUtxo = entry.whirlpoolUtxo;
+    utxos.remove(key);
+    delete(byAccount, whirlpoolUtxo.getAccount(), key);
+    delete(byHash, whirlpoolUtxo.getUtxo().tx_hash, key);
+    delete(byStatus, entry.status, key);
+    delete(byPool, entry.poolId, key);
+    return true;
+  }
+
+  public synchronized void clear() {
+    for (IndexEntry entry : entries.values()) {
+      entry.dispose();
+    }
+    entries.clear();
+    utxos.clear();
+    byStatus.clear();
+    byPool.clear();
+    byAccount.clear();
+    byHash.clear();
+  }
+
+  private synchronized void reindex(IndexEntry entry) {
+    if (entries.get(entry.key) != entry) {
+      // removed in the meantime
+      return;
+    }
+    WhirlpoolUtxo whirlpoolUtxo = entry.whirlpoolUtxo;
+    WhirlpoolUtxoStatus status = whirlpoolUtxo.getUtxoState().getStatus();
+    if (status != entry.status) {
+      delete(byStatus, entry.status, entry.key);
+      put(byStatus, status, entry.key, whirlpoolUtxo);
+      entry.status = status;
+    }
+    String poolId = whirlpoolUtxo.getUtxoConfig().getPoolId();
+    if (poolId == null ? entry.poolId != null : !poolId.equals(entry.poolId)) {
+      delete(byPool, entry.poolId, entry.key);
+      put(byPool, poolId, entry.key, whirlpoolUtxo);
+      entry.poolId = poolId;
+    }
+  }
+
+  private <K> void put(
+      Map<K, Map<String, WhirlpoolUtxo>> index, K indexKey, String key, WhirlpoolUtxo utxo) {
+    if (indexKey == null) {
+      return;
+    }
+    Map<String, WhirlpoolUtxo> values = index.get(indexKey);
+    if (values == null) {
+      values = new ConcurrentHashMap<String, WhirlpoolUtxo>();
+      index.put(indexKey, values);
+    }
+    values.put(key, utxo);
+  }
+
+  private <K> void delete(Map<K, Map<String, WhirlpoolUtxo>> index, K indexKey, String key) {
+    if (indexKey == null) {
+      return;
+    }
+    Map<String, WhirlpoolUtxo> values = index.get(indexKey);
+    if (values != null) {
+      values.remove(key);
+      if (values.isEmpty()) {
+        index.remove(indexKey);
+      }
+    }
+  }
+
+  private <K> Collection<WhirlpoolUtxo> find(Map<K, Map<String, WhirlpoolUtxo>> index, K key) {
+    Map<String, WhirlpoolUtxo> values = index.get(key);
+    if (values == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableCollection(values.values());
+  }
+
+  public WhirlpoolUtxo find(String utxoKey) {
+    return utxos.get(utxoKey);
+  }
+
+  public Collection<WhirlpoolUtxo> findAll() {
+    return Collections.unmodifiableCollection(utxos.values());
+  }
+
+  public Collection<WhirlpoolUtxo> findByStatus(WhirlpoolUtxoStatus status) {
+    return find(byStatus, status);
+  }
+
+  public Collection<WhirlpoolUtxo> findByPool(String poolId) {
+    return find(byPool, poolId);
+  }
+
+  public Collection<WhirlpoolUtxo> findByAccount(WhirlpoolAccount account) {
+    return find(byAccount, account);
+  }
+
+  public Collection<WhirlpoolUtxo> findByHash(String txHash) {
+    return find(byHash, txHash);
+  }
+
+  public Collection<WhirlpoolUtxo> findByStatusAndPool(WhirlpoolUtxoStatus status, String poolId) {
+    // iterate the smallest index
+    Collection<WhirlpoolUtxo> byStatusUtxos = findByStatus(status);
+    Collection<WhirlpoolUtxo> byPoolUtxos = findByPool(poolId);
+    boolean iterateStatus = byStatusUtxos.size() <= byPoolUtxos.size();
+    List<WhirlpoolUtxo> result = new ArrayList<WhirlpoolUtxo>();
+    for (WhirlpoolUtxo whirlpoolUtxo : (iterateStatus ? byStatusUtxos : byPoolUtxos)) {
+      if (iterateStatus
+          ? poolId.equals(whirlpoolUtxo.getUtxoConfig().getPoolId())
+          : status.equals(whirlpoolUtxo.getUtxoState().getStatus())) {
+        result.add(whirlpoolUtxo);
+      }
+    }
+    return result;
+  }
+
+  public int getSize() {
+    return utxos.size();
+  }
+
+  private class IndexEntry {
+    private final String key;
+    private final WhirlpoolUtxo whirlpoolUtxo;
+    private WhirlpoolUtxoStatus status; // as indexed
+    private String poolId; // as indexed
+    private Disposable stateSubscription;
+    private Disposable configSubscription;
+
+    IndexEntry(String key, WhirlpoolUtxo whirlpoolUtxo) {
+      this.key = key;
+      this.whirlpoolUtxo = whirlpoolUtxo;
+      this.status = null;
+      this.poolId = null;
+    }
+
+    void subscribe() {
+      final IndexEntry entry = this;
+      this.stateSubscription =
+          whirlpoolUtxo
+              .getUtxoState()
+              .getObservable()
+              .subscribe(
+                  new Consumer<WhirlpoolUtxoState>() {
+                    @Override
+                    public void accept(WhirlpoolUtxoState state) {
+                      reindex(entry);
+                    }
+                  },
+                  onError());
+      this.configSubscription =
+          whirlpoolUtxo
+              .getUtxoConfig()
+              .getObservable()
+              .subscribe(
+                  new Consumer<WhirlpoolUtxoConfig>() {
+                    @Override
+                    public void accept(WhirlpoolUtxoConfig config) {
+                      reindex(entry);
+                    }
+                  },
+                  onError());
+    }
+
+    private Consumer<Throwable> onError() {
+      return new Consumer<Throwable>() {
+        @Override
+        public void accept(Throwable e) {
+          log.error("", e);
+        }
+      };
+    }
+
+    void dispose() {
+      if (stateSubscription != null) {
+        stateSubscription.dispose();
+      }
+      if (configSubscription != null) {
+        configSubscription.dispose();
+      }
+    }
+  }
+}
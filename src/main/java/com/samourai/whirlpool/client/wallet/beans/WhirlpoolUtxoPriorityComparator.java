@@ -15,28 +15,33 @@ public class WhirlpoolUtxoPriorityComparator implements Comparator<WhirlpoolUtxo
 
   @Override
   public int compare(WhirlpoolUtxo o1, WhirlpoolUtxo o2) {
+    return compare(
+        o1.getAccount(),
+        o1.getUtxoState().getLastError(),
+        o2.getAccount(),
+        o2.getUtxoState().getLastError());
+  }
+
+  public static int compare(
+      WhirlpoolAccount account1, Long lastError1, WhirlpoolAccount account2, Long lastError2) {
     // premix before postmix
-    if (WhirlpoolAccount.PREMIX.equals(o1.getAccount())
-        && WhirlpoolAccount.POSTMIX.equals(o2.getAccount())) {
+    if (WhirlpoolAccount.PREMIX.equals(account1) && WhirlpoolAccount.POSTMIX.equals(account2)) {
       return -1;
     }
-    if (WhirlpoolAccount.POSTMIX.equals(o1.getAccount())
-        && WhirlpoolAccount.PREMIX.equals(o2.getAccount())) {
+    if (WhirlpoolAccount.POSTMIX.equals(account1) && WhirlpoolAccount.PREMIX.equals(account2)) {
       return 1;
     }
 
     // when same priority: no error first
-    WhirlpoolUtxoState s1 = o1.getUtxoState();
-    WhirlpoolUtxoState s2 = o2.getUtxoState();
-    if (s1.getLastError() != null && s2.getLastError() == null) {
+    if (lastError1 != null && lastError2 == null) {
       return 1;
     }
-    if (s2.getLastError() != null && s1.getLastError() == null) {
+    if (lastError2 != null && lastError1 == null) {
       return -1;
     }
-    if (s1.getLastError() != null && s2.getLastError() != null) {
+    if (lastError1 != null && lastError2 != null) {
       // both errors: older error first
-      return Longs.compare(s1.getLastError(), s2.getLastError());
+      return Longs.compare(lastError1, lastError2);
     }
 
     // same priority
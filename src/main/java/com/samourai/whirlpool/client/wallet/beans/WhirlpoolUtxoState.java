@@ -58,6 +58,7 @@ public class WhirlpoolUtxoState {
     if (updateLastActivity) {
       setLastActivity();
     }
+    emit();
   }
 
   public void setStatus(
@@ -0,0 +1,61 @@
+package com.samourai.whirlpool.client.wallet.notifier;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Local notifier, for tests or when utxo activity is known by the application. */
+public class MemoryUtxoNotifier implements UtxoNotifier {
+  private final Logger log = LoggerFactory.getLogger(MemoryUtxoNotifier.class);
+
+  private Collection<String> zpubs;
+  private UtxoNotifierListener listener;
+
+  public MemoryUtxoNotifier() {
+    this.zpubs = Collections.emptyList();
+    this.listener = null;
+  }
+
+  @Override
+  public synchronized void start(Collection<String> zpubs, UtxoNotifierListener listener) {
+    this.zpubs = new ArrayList<String>(zpubs);
+    this.listener = listener;
+    listener.onResync();
+  }
+
+  @Override
+  public synchronized void stop() {
+    this.zpubs = Collections.emptyList();
+    this.listener = null;
+  }
+
+  public void push(String zpub) {
+    UtxoNotifierListener l;
+    synchronized (this) {
+      if (listener == null || !zpubs.contains(zpub)) {
+        if (log.isDebugEnabled()) {
+          log.debug("push ignored: zpub not subscribed");
+        }
+        return;
+      }
+      l = listener;
+    }
+    l.onNotification(zpub);
+  }
+
+  public void resync() {
+    UtxoNotifierListener l;
+    synchronized (this) {
+      l = listener;
+    }
+    if (l != null) {
+      l.onResync();
+    }
+  }
+
+  public synchronized boolean isStarted() {
+    return listener != null;
+  }
+}
@@ -0,0 +1,157 @@
+package com.samourai.whirlpool.client.wallet.notifier;
+
+import com.samourai.stomp.client.IStompClient;
+import com.samourai.stomp.client.IStompClientService;
+import com.samourai.stomp.client.IStompMessage;
+import com.samourai.stomp.client.StompTransport;
+import com.samourai.whirlpool.client.utils.MessageErrorListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Subscribes to backend notifications for each zpub (destinationPrefix + zpub). */
+public class StompUtxoNotifier implements UtxoNotifier {
+  private final Logger log = LoggerFactory.getLogger(StompUtxoNotifier.class);
+  private static final int RECONNECT_DELAY = 30; // seconds
+
+  private IStompClientService stompClientService;
+  private ScheduledExecutorService scheduler;
+  private String wsUrl;
+  private String destinationPrefix;
+
+  private IStompClient stompClient;
+  private Collection<String> zpubs;
+  private UtxoNotifierListener listener;
+  private boolean done;
+
+  public StompUtxoNotifier(
+      IStompClientService stompClientService,
+      ScheduledExecutorService scheduler,
+      String wsUrl,
+      String destinationPrefix) {
+    this.stompClientService = stompClientService;
+    this.scheduler = scheduler;
+    this.wsUrl = wsUrl;
+    this.destinationPrefix = destinationPrefix;
+    this.done = true;
+  }
+
+  @Override
+  public synchronized void start(Collection<String> zpubs, UtxoNotifierListener listener) {
+    if (!done) {
+      log.warn("already started");
+      return;
+    }
+    this.zpubs = new ArrayList<String>(zpubs);
+    this.listener = listener;
+    this.done = false;
+    connect();
+  }
+
+  private synchronized void connect() {
+    if (done) {
+      return;
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("connecting to " + wsUrl);
+    }
+    final IStompClient client = stompClientService.newStompClient();
+    this.stompClient = client;
+    client.connect(
+        wsUrl,
+        new HashMap<String, String>(),
+        new MessageErrorListener<Void, Throwable>() {
+          // onConnect
+          @Override
+          public void onMessage(Void foo) {
+            onConnected(client);
+          }
+
+          // onDisconnect
+          @Override
+          public void onError(Throwable exception) {
+            onDisconnected(client, exception);
+          }
+        });
+  }
+
+  private void onConnected(IStompClient client) {
+    synchronized (this) {
+      if (done || client != stompClient) {
+        return;
+      }
+      for (final String zpub : zpubs) {
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put(StompTransport.HEADER_DESTINATION, destinationPrefix + zpub);
+        client.subscribe(
+            headers,
+            new MessageErrorListener<IStompMessage, String>() {
+              @Override
+              public void onMessage(IStompMessage stompMessage) {
+                UtxoNotifierListener l = getListener();
+                if (l != null) {
+                  l.onNotification(zpub);
+                }
+              }
+
+              @Override
+              public void onError(String error) {
+                log.error("subscribe error: " + error);
+              }
+            });
+      }
+    }
+    log.info(" • Listening for utxo notifications (" + zpubs.size() + " zpubs)");
+
+    // notifications may have been missed while disconnected
+    UtxoNotifierListener l = getListener();
+    if (l != null) {
+      l.onResync();
+    }
+  }
+
+  private synchronized void onDisconnected(IStompClient client, Throwable exception) {
+    if (done || client != stompClient) {
+      return;
+    }
+    log.warn(
+        " x Utxo notifications disconnected, reconnecting in "
+            + RECONNECT_DELAY
+            + "s: "
+            + (exception != null ? exception.getMessage() : "unknown"));
+    this.stompClient = null;
+    try {
+      client.disconnect();
+    } catch (Exception e) {
+      log.error("", e);
+    }
+    scheduler.schedule(
+        new Runnable() {
+          @Override
+          public void run() {
+            connect();
+          }
+        },
+        RECONNECT_DELAY,
+        TimeUnit.SECONDS);
+  }
+
+  private synchronized UtxoNotifierListener getListener() {
+    return done ? null : listener;
+  }
+
+  @Override
+  public synchronized void stop() {
+    this.done = true;
+    this.listener = null;
+    if (stompClient != null) {
+      stompClient.disconnect();
+      stompClient = null;
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package com.samourai.whirlpool.client.wallet.notifier;
+
+import java.util.Collection;
+
+/** Pushes utxo activity (new tx, confirmation, spend) for wallet zpubs. */
+public interface UtxoNotifier {
+
+  void start(Collection<String> zpubs, UtxoNotifierListener listener);
+
+  void stop();
+}
@@ -0,0 +1,10 @@
+package com.samourai.whirlpool.client.wallet.notifier;
+
+public interface UtxoNotifierListener {
+
+  // activity detected for zpub
+  void onNotification(String zpub);
+
+  // notifications may have been missed (connected, reconnected)
+  void onResync();
+}
@@ -1,5 +1,10 @@
 package com.samourai.whirlpool.client.wallet.orchestrator;
 
+import com.samourai.whirlpool.client.utils.ClientUtils;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -8,9 +13,14 @@ public abstract class AbstractOrchestrator {
   private final int LOOP_DELAY;
   private final int START_DELAY;
   private final Integer LAST_RUN_DELAY;
-
-  private boolean started;
-  protected Thread myThread;
+  private final ScheduledExecutorService sharedScheduler; // null => dedicated thread
+
+  private volatile boolean started;
+  private ScheduledExecutorService scheduler;
+  private ScheduledFuture<?> nextRun;
+  private int generation;
+  private boolean running;
+  private boolean notifiedWhileRunning;
   private boolean dontDisturb;
   private long lastRun;
   private boolean lastRunSetInLoop;
@@ -20,10 +30,16 @@ public abstract class AbstractOrchestrator {
   }
 
   public AbstractOrchestrator(int loopDelay, int startDelay, Integer lastRunDelay) {
+    this(loopDelay, startDelay, lastRunDelay, null);
+  }
+
+  public AbstractOrchestrator(
+      int loopDelay, int startDelay, Integer lastRunDelay, ScheduledExecutorService scheduler) {
     this.log = LoggerFactory.getLogger(getClass().getName());
     this.LOOP_DELAY = loopDelay;
     this.START_DELAY = startDelay;
     this.LAST_RUN_DELAY = lastRunDelay;
+    this.sharedScheduler = scheduler;
     resetOrchestrator();
   }
 
@@ -41,44 +57,114 @@ public abstract class AbstractOrchestrator {
       log.debug("Starting...");
     }
     this.started = true;
-    this.myThread =
-        new Thread(
+    if (running) {
+      // stopped while running: current loop goes on and schedules next one from onRunDone()
+      return;
+    }
+    if (scheduler != null) {
+      // quickStop() not ended yet
+      onEnded();
+    }
+    this.generation++;
+    if (sharedScheduler != null) {
+      this.scheduler = sharedScheduler;
+    } else {
+      this.scheduler =
+          Executors.newSingleThreadScheduledExecutor(
+              ClientUtils.threadFactory(getClass().getSimpleName(), daemon));
+    }
+    schedule(START_DELAY, false);
+  }
+
+  protected abstract void runOrchestrator();
+
+  private synchronized void schedule(long delay, boolean withDontDisturb) {
+    if (nextRun != null) {
+      nextRun.cancel(false);
+    }
+    this.dontDisturb = withDontDisturb;
+    final int runGeneration = generation;
+    this.nextRun =
+        scheduler.schedule(
             new Runnable() {
               @Override
               public void run() {
-                if (START_DELAY > 0) {
-                  doSleep(START_DELAY);
-                }
-                while (started) {
-                  lastRunSetInLoop = false;
-                  runOrchestrator();
-
-                  // orchestrator may have been stopped in the meantime, as function is not
-                  // synchronized
-                  if (lastRunSetInLoop && LAST_RUN_DELAY != null) {
-                    // wait for lastRunDelay if we did run in this loop
-                    waitForLastRunDelay(LAST_RUN_DELAY);
-                  } else {
-                    doSleep(LOOP_DELAY);
-                  }
-
-                  lastRunSetInLoop = false;
-                }
-
-                // thread exiting
-                myThread = null;
-                if (log.isDebugEnabled()) {
-                  log.debug("Ended. started=" + started);
-                }
-                resetOrchestrator();
+                doRun(runGeneration);
               }
             },
-            getClass().getSimpleName());
-    this.myThread.setDaemon(daemon);
-    this.myThread.start();
+            Math.max(delay, 0),
+            TimeUnit.MILLISECONDS);
   }
 
-  protected abstract void runOrchestrator();
+  private void doRun(int runGeneration) {
+    synchronized (this) {
+      if (runGeneration != generation || running) {
+        return;
+      }
+      this.nextRun = null;
+      if (!started) {
+        // quickStop()
+        onEnded();
+        return;
+      }
+      this.running = true;
+      this.notifiedWhileRunning = false;
+      this.dontDisturb = false;
+      this.lastRunSetInLoop = false;
+    }
+    try {
+      runOrchestrator();
+    } catch (Exception e) {
+      log.error("runOrchestrator failed", e);
+    } finally {
+      onRunDone(runGeneration);
+    }
+  }
+
+  private synchronized void onRunDone(int runGeneration) {
+    this.running = false;
+    if (runGeneration != generation) {
+      // restarted in the meantime
+      return;
+    }
+
+    // orchestrator may have been stopped in the meantime, as runOrchestrator() is not synchronized
+    if (!started) {
+      onEnded();
+      return;
+    }
+    if (lastRunSetInLoop && LAST_RUN_DELAY != null) {
+      // wait for lastRunDelay if we did run in this loop
+      long timeToWait = computeWaitForLastRunDelay(LAST_RUN_DELAY);
+      if (timeToWait > 0) {
+        if (log.isDebugEnabled()) {
+          log.debug("Sleeping for lastRunDelay (" + (timeToWait / 1000) + "s to wait)");
+        }
+        schedule(timeToWait, true);
+      } else {
+        schedule(0, false);
+      }
+    } else {
+      schedule(notifiedWhileRunning ? 0 : LOOP_DELAY, false);
+    }
+    this.lastRunSetInLoop = false;
+  }
+
+  private void onEnded() {
+    this.generation++;
+    if (nextRun != null) {
+      nextRun.cancel(false);
+      nextRun = null;
+    }
+    if (scheduler != null && scheduler != sharedScheduler) {
+      scheduler.shutdown();
+    }
+    this.scheduler = null;
+    if (log.isDebugEnabled()) {
+      log.debug("Ended. started=" + started);
+    }
+    resetOrchestrator();
+  }
 
   public void quickStop() {
     this.started = false;
@@ -93,21 +179,19 @@ public abstract class AbstractOrchestrator {
       log.debug("Ending...");
     }
     this.started = false;
-    if (log.isDebugEnabled()) {
-      log.debug("Ended.");
-    }
-    synchronized (myThread) {
-      myThread.notify();
-    }
-    if (log.isDebugEnabled()) {
-      log.debug("Ended notified.");
+    if (!running) {
+      onEnded();
     }
+    // else ended by onRunDone()
   }
 
   protected synchronized void notifyOrchestrator() {
     if (isStarted() && !isDontDisturb()) {
-      synchronized (myThread) {
-        myThread.notify();
+      if (running) {
+        // run again as soon as current loop is done
+        notifiedWhileRunning = true;
+      } else {
+        schedule(0, false);
       }
     } else {
       if (log.isTraceEnabled()) {
@@ -116,43 +200,12 @@ public abstract class AbstractOrchestrator {
     }
   }
 
-  protected void sleepOrchestrator(long timeToWait, boolean withDontDisturb) {
-    if (withDontDisturb) {
-      dontDisturb = true;
-    }
-    doSleep(timeToWait);
-    if (withDontDisturb) {
-      dontDisturb = false;
-    }
-  }
-
-  private void doSleep(long timeToWait) {
-    try {
-      synchronized (myThread) {
-        myThread.wait(timeToWait);
-      }
-    } catch (InterruptedException e) {
-    }
-  }
-
   private long computeWaitForLastRunDelay(int delay) {
     long elapsedTimeSinceLastRun = System.currentTimeMillis() - lastRun;
     long timeToWait = (delay * 1000) - elapsedTimeSinceLastRun;
     return timeToWait;
   }
 
-  private boolean waitForLastRunDelay(int delay) {
-    long timeToWait = computeWaitForLastRunDelay(delay);
-    if (timeToWait > 0) {
-      if (log.isDebugEnabled()) {
-        log.debug("Sleeping for lastRunDelay (" + (timeToWait / 1000) + "s to wait)");
-      }
-      sleepOrchestrator(timeToWait, true);
-      return true;
-    }
-    return false;
-  }
-
   protected void setLastRun() {
     this.lastRun = System.currentTimeMillis();
     this.lastRunSetInLoop = true;
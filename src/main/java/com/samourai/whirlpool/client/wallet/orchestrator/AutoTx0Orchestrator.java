@@ -19,7 +19,11 @@ public class AutoTx0Orchestrator extends AbstractOrchestrator {
 
   public AutoTx0Orchestrator(
       int loopDelay, WhirlpoolWallet whirlpoolWallet, int tx0Delay, String autoTx0PoolId) {
-    super(loopDelay, START_DELAY, tx0Delay);
+    super(
+        loopDelay,
+        START_DELAY,
+        tx0Delay,
+        whirlpoolWallet.getConfig().getOrchestratorScheduler());
     this.whirlpoolWallet = whirlpoolWallet;
     this.autoTx0PoolId = autoTx0PoolId;
   }
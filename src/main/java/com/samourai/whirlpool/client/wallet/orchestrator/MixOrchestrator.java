@@ -11,13 +11,10 @@ import com.samourai.whirlpool.client.whirlpool.listener.LoggingWhirlpoolClientLi
 import com.samourai.whirlpool.client.whirlpool.listener.WhirlpoolClientListener;
 import io.reactivex.Observable;
 import io.reactivex.subjects.Subject;
-import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
 import java8.util.Optional;
 import java8.util.function.Predicate;
-import java8.util.stream.Collectors;
-import java8.util.stream.Stream;
 import java8.util.stream.StreamSupport;
-import org.apache.commons.lang3.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,6 +24,7 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
   private static final int MIX_MIN_CONFIRMATIONS = 1;
 
   private MixOrchestratorData data;
+  private MixMetrics mixMetrics;
 
   private int maxClients;
   private int maxClientsPerPool;
@@ -41,8 +39,29 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
       int maxClientsPerPool,
       boolean autoMix,
       int mixsTargetMin) {
-    super(loopDelay, 0, clientDelay);
+    this(
+        loopDelay,
+        clientDelay,
+        data,
+        maxClients,
+        maxClientsPerPool,
+        autoMix,
+        mixsTargetMin,
+        null);
+  }
+
+  public MixOrchestrator(
+      int loopDelay,
+      int clientDelay,
+      MixOrchestratorData data,
+      int maxClients,
+      int maxClientsPerPool,
+      boolean autoMix,
+      int mixsTargetMin,
+      ScheduledExecutorService scheduler) {
+    super(loopDelay, 0, clientDelay, scheduler);
     this.data = data;
+    this.mixMetrics = new MixMetrics();
 
     this.maxClients = maxClients;
     this.maxClientsPerPool = maxClientsPerPool;
@@ -95,6 +114,9 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
         if (foundForPool) {
           found = true;
         }
+        if (isMixDemandListened()) {
+          onMixDemand(pool.getPoolId(), computeMixDemand(pool.getPoolId()));
+        }
       } catch (Exception e) {
         log.error("", e);
       }
@@ -102,6 +124,34 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
     return found;
   }
 
+  // mixable utxos waiting in pool queue
+  private int computeMixDemand(String poolId) {
+    int nbMixable = 0;
+    for (WhirlpoolUtxo whirlpoolUtxo : data.getQueued(poolId)) {
+      if (MixableStatus.MIXABLE.equals(whirlpoolUtxo.getUtxoState().getMixableStatus())) {
+        nbMixable++;
+      }
+    }
+    return nbMixable;
+  }
+
+  // skip scanning queue on each loop when nobody listens mix demand
+  protected boolean isMixDemandListened() {
+    return false;
+  }
+
+  protected void onMixDemand(String poolId, int nbMixable) {
+    // override here
+  }
+
+  @Override
+  public synchronized void start(boolean daemon) {
+    if (!isStarted()) {
+      data.rebuildQueue();
+    }
+    super.start(daemon);
+  }
+
   @Override
   public synchronized void stop() {
     super.stop();
@@ -177,14 +227,19 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
   }
 
   public boolean hasMoreMixableOrUnconfirmed() {
-    List<WhirlpoolUtxo> unconfirmedUtxos =
-        getQueueByMixableStatus(false, null, MixableStatus.MIXABLE, MixableStatus.UNCONFIRMED);
-    return !unconfirmedUtxos.isEmpty();
+    for (WhirlpoolUtxo whirlpoolUtxo : data.getQueued()) {
+      MixableStatus mixableStatus = whirlpoolUtxo.getUtxoState().getMixableStatus();
+      if (MixableStatus.MIXABLE.equals(mixableStatus)
+          || MixableStatus.UNCONFIRMED.equals(mixableStatus)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   public boolean hasMoreMixingThreadAvailable(String poolId) {
     // check maxClients
-    if (data.getMixing().size() >= maxClients) {
+    if (data.getNbMixing() >= maxClients) {
       return false;
     }
 
@@ -198,21 +253,23 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
 
   // returns [mixable,mixingToSwapOrNull]
   private WhirlpoolUtxo[] findMixable(final String poolId) {
-    Predicate<WhirlpoolUtxo> filter =
-        new Predicate<WhirlpoolUtxo>() {
-          @Override
-          public boolean test(WhirlpoolUtxo whirlpoolUtxo) {
-            // filter by poolId
-            if (!poolId.equals(whirlpoolUtxo.getUtxoConfig().getPoolId())) {
-              return false;
-            }
-            return true;
-          }
-        };
-    List<WhirlpoolUtxo> mixableUtxos = getQueueByMixableStatus(true, filter, MixableStatus.MIXABLE);
-
-    // find first mixable utxo, eventually by swapping a lower priority mixing utxo
-    for (WhirlpoolUtxo toMix : mixableUtxos) {
+    final long lastErrorMax = System.currentTimeMillis() - (LAST_ERROR_DELAY * 1000);
+
+    // find first mixable utxo by priority, eventually by swapping a lower priority mixing utxo
+    for (WhirlpoolUtxo toMix : data.getQueued(poolId)) {
+      if (data.queueRefreshPool(toMix, poolId)) {
+        // pool changed since queued
+        continue;
+      }
+      WhirlpoolUtxoState utxoState = toMix.getUtxoState();
+      // don't retry before errorDelay
+      if (utxoState.getLastError() != null && utxoState.getLastError() >= lastErrorMax) {
+        continue;
+      }
+      if (!MixableStatus.MIXABLE.equals(utxoState.getMixableStatus())) {
+        continue;
+      }
+
       WhirlpoolUtxo[] swap = findSwap(toMix, false);
       if (swap != null) {
         return swap;
@@ -242,51 +299,6 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
     return null;
   }
 
-  private List<WhirlpoolUtxo> getQueueByMixableStatus(
-      final boolean filterErrorDelay,
-      Predicate<WhirlpoolUtxo> utxosFilter,
-      final MixableStatus... filterMixableStatuses) {
-    final long lastErrorMax = System.currentTimeMillis() - (LAST_ERROR_DELAY * 1000);
-
-    // find queued
-    Stream<WhirlpoolUtxo> stream =
-        data.getQueue()
-            .filter(
-                new Predicate<WhirlpoolUtxo>() {
-                  @Override
-                  public boolean test(WhirlpoolUtxo whirlpoolUtxo) {
-                    WhirlpoolUtxoState utxoState = whirlpoolUtxo.getUtxoState();
-                    // don't retry before errorDelay
-                    boolean accepted =
-                        (!filterErrorDelay
-                            || utxoState.getLastError() == null
-                            || utxoState.getLastError() < lastErrorMax);
-                    if (!accepted) {
-                      return false;
-                    }
-
-                    // filter by mixableStatus
-                    return ArrayUtils.contains(filterMixableStatuses, utxoState.getMixableStatus());
-                  }
-                });
-    if (utxosFilter != null) {
-      stream = stream.filter(utxosFilter);
-    }
-    List<WhirlpoolUtxo> whirlpoolUtxos = stream.collect(Collectors.<WhirlpoolUtxo>toList());
-
-    // suffle & sort
-    sortShuffled(whirlpoolUtxos);
-    return whirlpoolUtxos;
-  }
-
-  protected void sortShuffled(List<WhirlpoolUtxo> whirlpoolUtxos) {
-    // shuffle
-    Collections.shuffle(whirlpoolUtxos);
-
-    // sort by priority, but keep utxos shuffled when same-priority
-    Collections.sort(whirlpoolUtxos, WhirlpoolUtxoPriorityComparator.getInstance());
-  }
-
   private MixableStatus computeMixableStatus(WhirlpoolUtxo whirlpoolUtxo) {
 
     // check pool
@@ -351,10 +363,10 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
 
     // add to queue
     utxoState.setStatus(WhirlpoolUtxoStatus.MIX_QUEUE, false);
+    data.queueAdd(whirlpoolUtxo);
     if (log.isDebugEnabled()) {
       log.debug(" + mixQueue: " + whirlpoolUtxo);
     }
-    data.getMixingState().incrementUtxoQueued(whirlpoolUtxo);
     if (notify) {
       notifyOrchestrator();
     }
@@ -393,6 +405,7 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
 
       // recount QUEUE if it was queued
       if (wasQueued) {
+        data.queueRemove(whirlpoolUtxo);
         data.recountQueued();
       }
     }
@@ -427,6 +440,7 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
     // mix
     MixProgress mixProgress = new MixProgress(MixStep.CONNECTING);
     whirlpoolUtxo.getUtxoState().setStatus(WhirlpoolUtxoStatus.MIX_STARTED, true, mixProgress);
+    data.queueRemove(whirlpoolUtxo);
 
     // run mix
     WhirlpoolClientListener listener = computeMixListener(whirlpoolUtxo);
@@ -440,10 +454,13 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
   }
 
   private WhirlpoolClientListener computeMixListener(final WhirlpoolUtxo whirlpoolUtxo) {
-    return new LoggingWhirlpoolClientListener(whirlpoolUtxo.getUtxoConfig().getPoolId()) {
+    String poolId = whirlpoolUtxo.getUtxoConfig().getPoolId();
+    final MixMetrics.MixTracker mixTracker = mixMetrics.newMix(poolId);
+    return new LoggingWhirlpoolClientListener(poolId) {
       @Override
       public void success(MixSuccess mixSuccess) {
         super.success(mixSuccess);
+        mixTracker.success();
         MixProgressSuccess mixProgress =
             new MixProgressSuccess(mixSuccess.getReceiveAddress(), mixSuccess.getReceiveUtxo());
 
@@ -467,6 +484,7 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
       @Override
       public void fail(MixFailReason reason, String notifiableError) {
         super.fail(reason, notifiableError);
+        mixTracker.fail(reason);
         MixProgress mixProgress = new MixProgressFail(reason);
 
         // update utxo
@@ -499,6 +517,7 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
       @Override
       public void progress(MixStep step) {
         super.progress(step);
+        mixTracker.progress(step);
         MixProgress mixProgress = new MixProgress(step);
 
         // update utxo
@@ -511,6 +530,10 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
     };
   }
 
+  public MixMetrics getMixMetrics() {
+    return mixMetrics;
+  }
+
   protected void onMixSuccess(WhirlpoolUtxo whirlpoolUtxo, MixSuccess mixSuccess) {
     // override here
   }
@@ -525,6 +548,8 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
 
     // DETECTED
     for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxoChanges.getUtxosDetected()) {
+      // forget previous instance of this utxo
+      data.queueRemoveObsolete(whirlpoolUtxo);
       // autoQueue
       autoQueue(whirlpoolUtxo, whirlpoolUtxoChanges.isFirstFetch());
       // refresh MIXABLE status
@@ -543,6 +568,8 @@ public abstract class MixOrchestrator extends AbstractOrchestrator {
 
     // REMOVED
     for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxoChanges.getUtxosRemoved()) {
+      data.queueRemove(whirlpoolUtxo);
+
       // stop mixing it
       Mixing mixing = data.getMixing(whirlpoolUtxo.getUtxo());
       if (mixing != null) {
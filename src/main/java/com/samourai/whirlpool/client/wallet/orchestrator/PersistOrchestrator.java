@@ -1,7 +1,6 @@
 package com.samourai.whirlpool.client.wallet.orchestrator;
 
 import com.samourai.whirlpool.client.wallet.WhirlpoolWallet;
-import com.samourai.whirlpool.client.wallet.beans.WhirlpoolAccount;
 import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxo;
 import java.util.Collection;
 import org.slf4j.Logger;
@@ -15,7 +14,7 @@ public class PersistOrchestrator extends AbstractOrchestrator {
   private long lastClean;
 
   public PersistOrchestrator(int loopDelay, WhirlpoolWallet whirlpoolWallet, int cleanDelay) {
-    super(loopDelay, 0, loopDelay);
+    super(loopDelay, 0, loopDelay, whirlpoolWallet.getConfig().getOrchestratorScheduler());
     this.whirlpoolWallet = whirlpoolWallet;
     this.cleanDelay = cleanDelay;
     this.lastClean = 0;
@@ -59,8 +58,7 @@ public class PersistOrchestrator extends AbstractOrchestrator {
   }
 
   protected void cleanUtxoConfig() throws Exception {
-    Collection<WhirlpoolUtxo> knownUtxos =
-        whirlpoolWallet.getUtxos(false, WhirlpoolAccount.values());
+    Collection<WhirlpoolUtxo> knownUtxos = whirlpoolWallet.getUtxoIndex().findAll();
     whirlpoolWallet.getConfig().getPersistHandler().cleanUtxoConfig(knownUtxos);
   }
 
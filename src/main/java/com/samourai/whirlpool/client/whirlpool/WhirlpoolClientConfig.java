@@ -2,11 +2,23 @@ package com.samourai.whirlpool.client.whirlpool;
 
 import com.samourai.http.client.IHttpClient;
 import com.samourai.stomp.client.IStompClientService;
+import com.samourai.stomp.client.StompConnectLimiter;
 import com.samourai.whirlpool.client.WhirlpoolClient;
+import com.samourai.whirlpool.client.mix.dialog.MixTransportPool;
+import com.samourai.whirlpool.client.mix.dialog.ReconnectScheduler;
+import com.samourai.whirlpool.client.utils.ClientUtils;
 import com.samourai.whirlpool.client.wallet.persist.WhirlpoolWalletPersistHandler;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import org.bitcoinj.core.NetworkParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class WhirlpoolClientConfig {
+  private static final Logger log = LoggerFactory.getLogger(WhirlpoolClientConfig.class);
+
   private IHttpClient httpClient;
   private IStompClientService stompClientService;
   private WhirlpoolWalletPersistHandler persistHandler;
@@ -15,7 +27,16 @@ public class WhirlpoolClientConfig {
   private boolean mobile;
   private int reconnectDelay;
   private int reconnectUntil;
+  private int reconnectDelayMax;
+  private ReconnectScheduler reconnectScheduler;
   private String scode;
+  private Executor clientExecutor;
+  private boolean clientExecutorOwned;
+  private ScheduledExecutorService clientScheduler;
+  private int maxConnecting;
+  private StompConnectLimiter stompConnectLimiter;
+  private int warmTransports;
+  private MixTransportPool mixTransportPool;
 
   public WhirlpoolClientConfig(
       IHttpClient httpClient,
@@ -54,7 +75,16 @@ public class WhirlpoolClientConfig {
     this.mobile = mobile;
     this.reconnectDelay = reconnectDelay;
     this.reconnectUntil = reconnectUntil;
+    this.reconnectDelayMax = 60;
+    this.reconnectScheduler = null; // lazily created
     this.scode = scode;
+    this.clientExecutor = null; // lazily created
+    this.clientExecutorOwned = false;
+    this.clientScheduler = null; // lazily created
+    this.maxConnecting = 10;
+    this.stompConnectLimiter = null; // lazily created
+    this.warmTransports = 0;
+    this.mixTransportPool = null; // lazily created
   }
 
   public WhirlpoolClient newClient() {
@@ -101,8 +131,9 @@ public class WhirlpoolClientConfig {
     return reconnectDelay;
   }
 
-  public void setReconnectDelay(int reconnectDelay) {
+  public synchronized void setReconnectDelay(int reconnectDelay) {
     this.reconnectDelay = reconnectDelay;
+    this.reconnectScheduler = null;
   }
 
   public int getReconnectUntil() {
@@ -113,6 +144,28 @@ public class WhirlpoolClientConfig {
     this.reconnectUntil = reconnectUntil;
   }
 
+  public int getReconnectDelayMax() {
+    return reconnectDelayMax;
+  }
+
+  // max backoff between reconnect attempts (seconds)
+  public synchronized void setReconnectDelayMax(int reconnectDelayMax) {
+    this.reconnectDelayMax = reconnectDelayMax;
+    this.reconnectScheduler = null;
+  }
+
+  public synchronized ReconnectScheduler getReconnectScheduler() {
+    if (reconnectScheduler == null) {
+      reconnectScheduler =
+          new ReconnectScheduler(
+              getClientScheduler(),
+              getClientExecutor(),
+              reconnectDelay * 1000L,
+              reconnectDelayMax * 1000L);
+    }
+    return reconnectScheduler;
+  }
+
   public String getScode() {
     return scode;
   }
@@ -120,4 +173,86 @@ public class WhirlpoolClientConfig {
   public void setScode(String scode) {
     this.scode = scode;
   }
+
+  public synchronized Executor getClientExecutor() {
+    if (clientExecutor == null) {
+      // mix clients are driven by transport callbacks: threads are only used for short tasks
+      clientExecutor =
+          Executors.newCachedThreadPool(ClientUtils.threadFactory("whirlpoolClient", true));
+      clientExecutorOwned = true;
+    }
+    return clientExecutor;
+  }
+
+  public synchronized void setClientExecutor(Executor clientExecutor) {
+    replaceClientExecutor(clientExecutor, false);
+  }
+
+  public synchronized boolean useVirtualThreads() {
+    ExecutorService virtualThreadExecutor = ClientUtils.newVirtualThreadExecutor();
+    if (virtualThreadExecutor == null) {
+      log.warn("Virtual threads not supported by this runtime, using platform threads");
+      return false;
+    }
+    replaceClientExecutor(virtualThreadExecutor, true);
+    return true;
+  }
+
+  private void replaceClientExecutor(Executor clientExecutor, boolean owned) {
+    if (this.clientExecutor instanceof ExecutorService && clientExecutorOwned) {
+      // previous executor was created here: let running tasks end, then release its threads
+      ((ExecutorService) this.clientExecutor).shutdown();
+    }
+    this.clientExecutor = clientExecutor;
+    this.clientExecutorOwned = owned;
+    // recreated with new executor
+    this.reconnectScheduler = null;
+    this.stompConnectLimiter = null;
+  }
+
+  public synchronized ScheduledExecutorService getClientScheduler() {
+    if (clientScheduler == null) {
+      clientScheduler =
+          Executors.newSingleThreadScheduledExecutor(
+              ClientUtils.threadFactory("whirlpoolClient-scheduler", true));
+    }
+    return clientScheduler;
+  }
+
+  public synchronized void setClientScheduler(ScheduledExecutorService clientScheduler) {
+    this.clientScheduler = clientScheduler;
+  }
+
+  public int getMaxConnecting() {
+    return maxConnecting;
+  }
+
+  // max concurrent STOMP handshakes (0 = unlimited)
+  public synchronized void setMaxConnecting(int maxConnecting) {
+    this.maxConnecting = maxConnecting;
+    this.stompConnectLimiter = null;
+  }
+
+  public synchronized StompConnectLimiter getStompConnectLimiter() {
+    if (stompConnectLimiter == null) {
+      stompConnectLimiter = new StompConnectLimiter(maxConnecting, getClientExecutor());
+    }
+    return stompConnectLimiter;
+  }
+
+  public int getWarmTransports() {
+    return warmTransports;
+  }
+
+  // max connected transports kept ready per pool (0 = disabled)
+  public void setWarmTransports(int warmTransports) {
+    this.warmTransports = warmTransports;
+  }
+
+  public synchronized MixTransportPool getMixTransportPool() {
+    if (mixTransportPool == null) {
+      mixTransportPool = new MixTransportPool(this);
+    }
+    return mixTransportPool;
+  }
 }
@@ -20,7 +20,6 @@ public class WhirlpoolClientImpl implements WhirlpoolClient {
   private String logPrefix;
 
   private MixClient mixClient;
-  private Thread mixThread;
   private WhirlpoolClientListener listener;
 
   /**
@@ -47,28 +46,23 @@ public class WhirlpoolClientImpl implements WhirlpoolClient {
   public void whirlpool(final MixParams mixParams, WhirlpoolClientListener listener) {
     this.listener = listener;
 
-    this.mixThread =
-        new Thread(
+    // no thread is held while mixing: MixClient is driven by transport callbacks
+    config
+        .getClientExecutor()
+        .execute(
             new Runnable() {
               @Override
-              public synchronized void run() {
+              public void run() {
                 runClient(mixParams);
-                while (!done) {
-                  try {
-                    synchronized (mixThread) {
-                      mixThread.wait();
-                    }
-                  } catch (Exception e) {
-                  }
-                }
               }
-            },
-            "whirlpoolClient-" + logPrefix);
-    this.mixThread.setDaemon(true);
-    this.mixThread.start();
+            });
   }
 
-  private void runClient(MixParams mixParams) {
+  private synchronized void runClient(MixParams mixParams) {
+    if (done) {
+      // stopped before running
+      return;
+    }
     MixClientListener mixListener = computeMixListener();
 
     mixClient = new MixClient(config, logPrefix);
@@ -98,8 +92,17 @@ public class WhirlpoolClientImpl implements WhirlpoolClient {
   }
 
   @Override
-  public void stop(boolean cancel) {
-    mixClient.stop(cancel);
+  public synchronized void stop(boolean cancel) {
+    if (mixClient != null) {
+      mixClient.stop(cancel);
+    } else if (!done) {
+      // not running yet: fail as MixClient would
+      done = true;
+      if (listener != null) {
+        MixFailReason failReason = cancel ? MixFailReason.CANCEL : MixFailReason.STOP;
+        listener.fail(failReason, null);
+      }
+    }
   }
 
   private void disconnect() {
@@ -111,11 +114,6 @@ public class WhirlpoolClientImpl implements WhirlpoolClient {
       if (mixClient != null) {
         mixClient.disconnect();
       }
-      if (mixThread != null) {
-        synchronized (mixThread) {
-          mixThread.notify();
-        }
-      }
     }
   }
 
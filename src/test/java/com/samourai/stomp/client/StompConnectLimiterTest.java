@@ -0,0 +1,63 @@
+package com.samourai.stomp.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class StompConnectLimiterTest {
+  private Executor directExecutor =
+      new Executor() {
+        @Override
+        public void execute(Runnable runnable) {
+          runnable.run();
+        }
+      };
+
+  private Runnable newConnect(final List<Integer> connected, final int id) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        connected.add(id);
+      }
+    };
+  }
+
+  @Test
+  public void limit() throws Exception {
+    StompConnectLimiter limiter = new StompConnectLimiter(2, directExecutor);
+    List<Integer> connected = new ArrayList<Integer>();
+    for (int i = 0; i < 5; i++) {
+      limiter.connect(newConnect(connected, i));
+    }
+    Assertions.assertEquals(2, connected.size());
+    Assertions.assertEquals(2, limiter.getNbConnecting());
+    Assertions.assertEquals(3, limiter.getNbWaiting());
+
+    // slots are handed over in order
+    limiter.onConnectDone();
+    Assertions.assertEquals(3, connected.size());
+    Assertions.assertEquals(2, connected.get(2).intValue());
+    limiter.onConnectDone();
+    limiter.onConnectDone();
+    Assertions.assertEquals(5, connected.size());
+    Assertions.assertEquals(2, limiter.getNbConnecting());
+    Assertions.assertEquals(0, limiter.getNbWaiting());
+
+    limiter.onConnectDone();
+    limiter.onConnectDone();
+    Assertions.assertEquals(0, limiter.getNbConnecting());
+  }
+
+  @Test
+  public void unlimited() throws Exception {
+    StompConnectLimiter limiter = new StompConnectLimiter(0, directExecutor);
+    List<Integer> connected = new ArrayList<Integer>();
+    for (int i = 0; i < 100; i++) {
+      limiter.connect(newConnect(connected, i));
+    }
+    Assertions.assertEquals(100, connected.size());
+    Assertions.assertEquals(0, limiter.getNbWaiting());
+  }
+}
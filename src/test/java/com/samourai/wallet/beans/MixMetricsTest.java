@@ -0,0 +1,52 @@
+package com.samourai.wallet.beans;
+
+import com.samourai.whirlpool.client.mix.listener.MixFailReason;
+import com.samourai.whirlpool.client.mix.listener.MixStep;
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.wallet.beans.MixMetrics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MixMetricsTest extends AbstractTest {
+  private MixMetrics mixMetrics = new MixMetrics();
+
+  @Test
+  public void funnel() throws Exception {
+    // success
+    MixMetrics.MixTracker mix1 = mixMetrics.newMix("pool1");
+    mix1.progress(MixStep.CONNECTING);
+    mix1.progress(MixStep.REGISTERED_INPUT);
+    mix1.progress(MixStep.CONFIRMING_INPUT);
+    mix1.progress(MixStep.CONFIRMING_INPUT); // repeated
+    mix1.progress(MixStep.CONFIRMED_INPUT);
+    mix1.progress(MixStep.SIGNED);
+    mix1.progress(MixStep.SUCCESS);
+    mix1.success();
+
+    // fail after reconnecting
+    MixMetrics.MixTracker mix2 = mixMetrics.newMix("pool1");
+    mix2.progress(MixStep.REGISTERED_INPUT);
+    mix2.progress(MixStep.CONNECTING);
+    mix2.progress(MixStep.REGISTERED_INPUT);
+    mix2.fail(MixFailReason.DISCONNECTED);
+    mix2.fail(MixFailReason.STOP); // ignored
+
+    MixMetrics.PoolMixMetrics pool1 = mixMetrics.getPoolMetrics("pool1");
+    Assertions.assertEquals(2, pool1.getNbStarted());
+    Assertions.assertEquals(2, pool1.getNbReached(MixStep.REGISTERED_INPUT));
+    Assertions.assertEquals(1, pool1.getNbReached(MixStep.CONFIRMED_INPUT));
+    Assertions.assertEquals(1, pool1.getNbReached(MixStep.SIGNED));
+    Assertions.assertEquals(1, pool1.getNbReached(MixStep.SUCCESS));
+    Assertions.assertEquals(1, pool1.getNbFails(MixFailReason.DISCONNECTED));
+    Assertions.assertEquals(0, pool1.getNbFails(MixFailReason.STOP));
+    Assertions.assertEquals(1, pool1.getSuccessDuration().getCount());
+
+    // time spent in steps
+    Assertions.assertEquals(3, pool1.getStepDuration(MixStep.REGISTERED_INPUT).getCount());
+    Assertions.assertEquals(1, pool1.getStepDuration(MixStep.CONFIRMING_INPUT).getCount());
+    Assertions.assertNull(pool1.getStepDuration(MixStep.SUCCESS));
+
+    Assertions.assertNull(mixMetrics.getPoolMetrics("pool2"));
+    Assertions.assertEquals(1, mixMetrics.getPoolMetrics().size());
+  }
+}
@@ -0,0 +1,66 @@
+package com.samourai.wallet.beans;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.wallet.beans.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class WhirlpoolUtxoIndexTest extends AbstractTest {
+  private WhirlpoolUtxoIndex index = new WhirlpoolUtxoIndex();
+
+  @Test
+  public void index() throws Exception {
+    WhirlpoolUtxo utxo1 = newUtxo("pool1", WhirlpoolAccount.PREMIX, "hash1", 1, null);
+    WhirlpoolUtxo utxo2 = newUtxo("pool1", WhirlpoolAccount.POSTMIX, "hash2", 1, null);
+    WhirlpoolUtxo utxo3 = newUtxo(null, WhirlpoolAccount.DEPOSIT, "hash2", 1, null);
+    utxo3.getUtxo().tx_output_n = 4;
+    index.add(utxo1);
+    index.add(utxo2);
+    index.add(utxo3);
+
+    Assertions.assertEquals(3, index.getSize());
+    Assertions.assertEquals(3, index.findByStatus(WhirlpoolUtxoStatus.READY).size());
+    Assertions.assertEquals(2, index.findByPool("pool1").size());
+    Assertions.assertEquals(1, index.findByAccount(WhirlpoolAccount.PREMIX).size());
+    Assertions.assertEquals(2, index.findByHash("hash2").size());
+    Assertions.assertTrue(index.findByPool("pool2").isEmpty());
+
+    // status change
+    utxo1.getUtxoState().setStatus(WhirlpoolUtxoStatus.MIX_QUEUE, false);
+    Assertions.assertEquals(2, index.findByStatus(WhirlpoolUtxoStatus.READY).size());
+    Assertions.assertSame(
+        utxo1, index.findByStatus(WhirlpoolUtxoStatus.MIX_QUEUE).iterator().next());
+    Assertions.assertEquals(
+        1, index.findByStatusAndPool(WhirlpoolUtxoStatus.MIX_QUEUE, "pool1").size());
+
+    // pool change
+    utxo1.getUtxoConfig().setPoolId("pool2");
+    Assertions.assertEquals(1, index.findByPool("pool1").size());
+    Assertions.assertSame(utxo1, index.findByPool("pool2").iterator().next());
+
+    // remove
+    Assertions.assertTrue(index.remove(utxo1));
+    Assertions.assertTrue(index.findByStatus(WhirlpoolUtxoStatus.MIX_QUEUE).isEmpty());
+    Assertions.assertTrue(index.findByPool("pool2").isEmpty());
+    Assertions.assertNull(index.find("hash1:3"));
+
+    // no longer followed
+    utxo1.getUtxoState().setStatus(WhirlpoolUtxoStatus.READY, false);
+    Assertions.assertEquals(2, index.findByStatus(WhirlpoolUtxoStatus.READY).size());
+  }
+
+  @Test
+  public void replace() throws Exception {
+    WhirlpoolUtxo utxo1 = newUtxo("pool1", WhirlpoolAccount.PREMIX, "hash1", 1, null);
+    WhirlpoolUtxo utxo1New = newUtxo("pool1", WhirlpoolAccount.PREMIX, "hash1", 2, null);
+    index.add(utxo1);
+    index.add(utxo1New);
+    Assertions.assertEquals(1, index.getSize());
+
+    // obsolete instance is ignored
+    Assertions.assertFalse(index.remove(utxo1));
+    utxo1.getUtxoState().setStatus(WhirlpoolUtxoStatus.MIX_QUEUE, false);
+    Assertions.assertTrue(index.findByStatus(WhirlpoolUtxoStatus.MIX_QUEUE).isEmpty());
+    Assertions.assertSame(utxo1New, index.find("hash1:3"));
+  }
+}
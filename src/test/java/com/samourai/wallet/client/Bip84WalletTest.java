@@ -4,6 +4,7 @@ import com.samourai.wallet.client.indexHandler.MemoryIndexHandler;
 import com.samourai.wallet.hd.HD_Address;
 import com.samourai.wallet.hd.HD_Wallet;
 import com.samourai.whirlpool.client.test.AbstractTest;
+import java.util.List;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -50,6 +51,20 @@ public class Bip84WalletTest extends AbstractTest {
         toBech32(bip84Wallet.getAddressAt(1, 2)), toBech32(bip84Wallet.getNextChangeAddress()));
   }
 
+  @Test
+  public void getNextAddresses() throws Exception {
+    bip84Wallet.getNextAddress();
+
+    List<HD_Address> addresses = bip84Wallet.getNextAddresses(50);
+    Assertions.assertEquals(50, addresses.size());
+    for (int i = 0; i < addresses.size(); i++) {
+      Assertions.assertEquals(
+          toBech32(bip84Wallet.getAddressAt(0, i + 1)), toBech32(addresses.get(i)));
+    }
+    Assertions.assertEquals(
+        toBech32(bip84Wallet.getAddressAt(0, 51)), toBech32(bip84Wallet.getNextAddress()));
+  }
+
   @Test
   public void getZpub() throws Exception {
     Assertions.assertEquals(
@@ -23,6 +23,11 @@ public class IndexHandlerTest extends AbstractTest {
     indexHandler.set(5);
     Assertions.assertEquals(5, indexHandler.getAndIncrement());
     Assertions.assertEquals(6, indexHandler.getAndIncrement());
+
+    // batch
+    Assertions.assertEquals(7, indexHandler.getAndIncrement(10));
+    Assertions.assertEquals(17, indexHandler.get());
+    Assertions.assertEquals(17, indexHandler.getAndIncrement());
   }
 
   @Test
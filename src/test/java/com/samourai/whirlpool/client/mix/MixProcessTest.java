@@ -0,0 +1,272 @@
+package com.samourai.whirlpool.client.mix;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samourai.wallet.client.Bip84Wallet;
+import com.samourai.wallet.client.indexHandler.MemoryIndexHandler;
+import com.samourai.wallet.hd.HD_Wallet;
+import com.samourai.whirlpool.client.mix.handler.Bip84PostmixHandler;
+import com.samourai.whirlpool.client.mix.handler.PremixHandler;
+import com.samourai.whirlpool.client.mix.handler.UtxoWithBalance;
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.utils.ClientCryptoService;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolWalletAccount;
+import com.samourai.whirlpool.client.whirlpool.WhirlpoolClientConfig;
+import com.samourai.whirlpool.protocol.WhirlpoolProtocol;
+import com.samourai.whirlpool.protocol.beans.Utxo;
+import com.samourai.whirlpool.protocol.websocket.messages.ConfirmInputResponse;
+import com.samourai.whirlpool.protocol.websocket.messages.SigningRequest;
+import com.samourai.whirlpool.protocol.websocket.messages.SubscribePoolResponse;
+import com.samourai.whirlpool.protocol.websocket.notifications.*;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.bitcoinj.core.*;
+import org.bouncycastle.crypto.engines.RSAEngine;
+import org.bouncycastle.crypto.params.RSAKeyParameters;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MixProcessTest extends AbstractTest {
+  private static final long PREMIX_BALANCE = 100500;
+  private static final String MIX_ID = "mix1";
+
+  private ObjectMapper objectMapper;
+  private long denomination;
+  private UtxoWithBalance utxo;
+  private MixProcess mixProcess;
+  private byte[] receiveScript;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    objectMapper = new ObjectMapper();
+    objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    denomination = pool001btc.getDenomination();
+
+    byte[] seed =
+        hdWalletFactory.computeSeedFromWords("all all all all all all all all all all all all");
+    HD_Wallet bip84w = hdWalletFactory.getBIP84(seed, "whirlpool", params);
+    Bip84Wallet postmixWallet =
+        new Bip84Wallet(
+            bip84w,
+            WhirlpoolWalletAccount.POSTMIX.getAccountIndex(),
+            new MemoryIndexHandler(),
+            new MemoryIndexHandler());
+
+    utxo = new UtxoWithBalance(Sha256Hash.of("utxo".getBytes()).toString(), 2, PREMIX_BALANCE);
+    WhirlpoolClientConfig config =
+        new WhirlpoolClientConfig(null, null, null, "test", params, false);
+    mixProcess =
+        new MixProcess(
+            config,
+            pool001btc.getPoolId(),
+            denomination,
+            new PremixHandler(utxo, new ECKey(), "userPreHash"),
+            new Bip84PostmixHandler(postmixWallet, false),
+            new ClientCryptoService());
+  }
+
+  @Test
+  public void verifyTx() throws Exception {
+    List<TransactionOutPoint> inputs = computeInputs(4);
+    List<byte[]> outputs = computeOutputs(4);
+    registerOutput(inputs);
+    outputs.set(2, receiveScript);
+
+    SigningRequest signingRequest = signing(inputs, outputs);
+    Assertions.assertNotNull(signingRequest);
+    MixSuccess mixSuccess = mixProcess.computeMixSuccess();
+    Assertions.assertEquals(2, mixSuccess.getReceiveUtxo().getIndex());
+  }
+
+  @Test
+  public void inputsHashMismatch() throws Exception {
+    List<TransactionOutPoint> inputs = computeInputs(4);
+    List<byte[]> outputs = computeOutputs(4);
+    registerOutput(inputs.subList(0, 3));
+    outputs.set(0, receiveScript);
+
+    assertSigningFails("Inputs hash mismatch. Aborting.", inputs, outputs);
+  }
+
+  @Test
+  public void outputNotFound() throws Exception {
+    List<TransactionOutPoint> inputs = computeInputs(4);
+    registerOutput(inputs);
+
+    assertSigningFails("Output not found in tx", inputs, computeOutputs(4));
+  }
+
+  @Test
+  public void inputNotFound() throws Exception {
+    List<TransactionOutPoint> inputs = computeInputs(4);
+    inputs.set(0, newOutPoint(Sha256Hash.of("other".getBytes()), 2));
+    List<byte[]> outputs = computeOutputs(4);
+    registerOutput(inputs);
+    outputs.set(0, receiveScript);
+
+    assertSigningFails("Input not found in tx", inputs, outputs);
+  }
+
+  @Test
+  public void prevTxReuse() throws Exception {
+    List<TransactionOutPoint> inputs = computeInputs(4);
+    Sha256Hash reusedHash = inputs.get(1).getHash();
+    inputs.set(2, newOutPoint(reusedHash, 5));
+    List<byte[]> outputs = computeOutputs(4);
+    registerOutput(inputs);
+    outputs.set(0, receiveScript);
+
+    assertSigningFails("Prev-tx reuse detected: " + reusedHash, inputs, outputs);
+  }
+
+  @Test
+  public void scriptReuse() throws Exception {
+    List<TransactionOutPoint> inputs = computeInputs(4);
+    List<byte[]> outputs = computeOutputs(4);
+    registerOutput(inputs);
+    outputs.set(0, receiveScript);
+    outputs.set(3, outputs.get(1));
+
+    String reusedAddress =
+        bech32Util.getAddressFromScript(new String(Hex.encode(outputs.get(1))), params);
+    assertSigningFails("Address reuse detected for output: " + reusedAddress, inputs, outputs);
+  }
+
+  @Test
+  public void nonP2wpkhOutput() throws Exception {
+    List<TransactionOutPoint> inputs = computeInputs(4);
+    List<byte[]> outputs = computeOutputs(4);
+    registerOutput(inputs);
+    outputs.set(0, receiveScript);
+
+    // P2PKH
+    byte[] script = new byte[25];
+    script[0] = (byte) 0x76;
+    script[1] = (byte) 0xa9;
+    script[2] = 0x14;
+    System.arraycopy(new ECKey().getPubKeyHash(), 0, script, 3, 20);
+    script[23] = (byte) 0x88;
+    script[24] = (byte) 0xac;
+    outputs.set(1, script);
+
+    assertSigningFails("Unexpected output script: " + Hex.toHexString(script), inputs, outputs);
+  }
+
+  private void assertSigningFails(
+      String message, List<TransactionOutPoint> inputs, List<byte[]> outputs) throws Exception {
+    try {
+      signing(inputs, outputs);
+      Assertions.fail("signing should fail: " + message);
+    } catch (Exception e) {
+      Assertions.assertEquals(message, e.getMessage());
+    }
+  }
+
+  // our utxo first, then others
+  private List<TransactionOutPoint> computeInputs(int nbInputs) {
+    List<TransactionOutPoint> inputs = new ArrayList<TransactionOutPoint>();
+    inputs.add(newOutPoint(Sha256Hash.wrap(utxo.getHash()), utxo.getIndex()));
+    for (int i = 1; i < nbInputs; i++) {
+      inputs.add(newOutPoint(Sha256Hash.of(("input" + i).getBytes()), i));
+    }
+    return inputs;
+  }
+
+  private List<byte[]> computeOutputs(int nbOutputs) {
+    List<byte[]> outputs = new ArrayList<byte[]>();
+    for (int i = 0; i < nbOutputs; i++) {
+      // P2WPKH
+      byte[] script = new byte[22];
+      script[0] = 0x00;
+      script[1] = 0x14;
+      System.arraycopy(new ECKey().getPubKeyHash(), 0, script, 2, 20);
+      outputs.add(script);
+    }
+    return outputs;
+  }
+
+  private TransactionOutPoint newOutPoint(Sha256Hash hash, long index) {
+    return new TransactionOutPoint(params, index, hash);
+  }
+
+  // protocol steps up to REGISTER_OUTPUT, for a mix with these inputs
+  private void registerOutput(List<TransactionOutPoint> inputs) throws Exception {
+    Map<String, Object> subscribePoolResponse = new HashMap<String, Object>();
+    subscribePoolResponse.put("networkId", params.getPaymentProtocolId());
+    subscribePoolResponse.put("denomination", denomination);
+    subscribePoolResponse.put("mustMixBalanceMin", pool001btc.getMustMixBalanceMin());
+    subscribePoolResponse.put("mustMixBalanceCap", pool001btc.getMustMixBalanceCap());
+    subscribePoolResponse.put("mustMixBalanceMax", pool001btc.getMustMixBalanceMax());
+    mixProcess.registerInput(convert(SubscribePoolResponse.class, subscribePoolResponse));
+
+    KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+    keyPairGenerator.initialize(1024);
+    KeyPair keyPair = keyPairGenerator.generateKeyPair();
+    RSAPrivateKey priv = (RSAPrivateKey) keyPair.getPrivate();
+    Map<String, Object> confirmInput = notification(MixStatus.CONFIRM_INPUT);
+    confirmInput.put(
+        "publicKey64",
+        WhirlpoolProtocol.encodeBytes(((RSAPublicKey) keyPair.getPublic()).getEncoded()));
+    Object confirmInputRequest =
+        mixProcess.confirmInput(convert(ConfirmInputMixStatusNotification.class, confirmInput));
+
+    // sign blinded bordereau as coordinator
+    byte[] blinded =
+        WhirlpoolProtocol.decodeBytes(
+            objectMapper.valueToTree(confirmInputRequest).get("blindedBordereau64").asText());
+    RSAEngine signer = new RSAEngine();
+    signer.init(true, new RSAKeyParameters(true, priv.getModulus(), priv.getPrivateExponent()));
+    Map<String, Object> confirmInputResponse = new HashMap<String, Object>();
+    confirmInputResponse.put("mixId", MIX_ID);
+    confirmInputResponse.put(
+        "signedBordereau64",
+        WhirlpoolProtocol.encodeBytes(signer.processBlock(blinded, 0, blinded.length)));
+    mixProcess.onConfirmInputResponse(convert(ConfirmInputResponse.class, confirmInputResponse));
+
+    List<Utxo> utxos = new ArrayList<Utxo>();
+    for (TransactionOutPoint input : inputs) {
+      utxos.add(new Utxo(input.getHash().toString(), input.getIndex()));
+    }
+    Map<String, Object> registerOutput = notification(MixStatus.REGISTER_OUTPUT);
+    registerOutput.put("inputsHash", WhirlpoolProtocol.computeInputsHash(utxos));
+    Object registerOutputRequest =
+        mixProcess.registerOutput(
+            convert(RegisterOutputMixStatusNotification.class, registerOutput));
+    String receiveAddress =
+        objectMapper.valueToTree(registerOutputRequest).get("receiveAddress").asText();
+    receiveScript = bech32Util.computeScriptPubKey(receiveAddress, params);
+  }
+
+  private SigningRequest signing(List<TransactionOutPoint> inputs, List<byte[]> outputs)
+      throws Exception {
+    Transaction tx = new Transaction(params);
+    for (TransactionOutPoint input : inputs) {
+      tx.addInput(new TransactionInput(params, tx, new byte[0], input));
+    }
+    for (byte[] script : outputs) {
+      tx.addOutput(new TransactionOutput(params, tx, Coin.valueOf(denomination), script));
+    }
+    Map<String, Object> signing = notification(MixStatus.SIGNING);
+    signing.put("transaction64", WhirlpoolProtocol.encodeBytes(tx.bitcoinSerialize()));
+    return mixProcess.signing(convert(SigningMixStatusNotification.class, signing));
+  }
+
+  private Map<String, Object> notification(MixStatus mixStatus) {
+    Map<String, Object> notification = new HashMap<String, Object>();
+    notification.put("status", mixStatus.name());
+    notification.put("mixId", MIX_ID);
+    return notification;
+  }
+
+  private <T> T convert(Class<T> type, Map<String, Object> payload) {
+    return objectMapper.convertValue(payload, type);
+  }
+}
@@ -0,0 +1,155 @@
+package com.samourai.whirlpool.client.mix.dialog;
+
+import com.samourai.stomp.client.*;
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.utils.MessageErrorListener;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolServer;
+import com.samourai.whirlpool.client.whirlpool.WhirlpoolClientConfig;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MixTransportPoolTest extends AbstractTest {
+  private AtomicInteger nbConnects;
+  private MixTransportPool mixTransportPool;
+
+  @BeforeEach
+  public void setup() {
+    nbConnects = new AtomicInteger(0);
+    // connects immediately
+    IStompClientService stompClientService =
+        new IStompClientService() {
+          @Override
+          public IStompClient newStompClient() {
+            return new IStompClient() {
+              @Override
+              public void connect(
+                  String url,
+                  Map<String, String> stompHeaders,
+                  MessageErrorListener<Void, Throwable> onConnectOnDisconnectListener) {
+                nbConnects.incrementAndGet();
+                onConnectOnDisconnectListener.onMessage(null);
+              }
+
+              @Override
+              public void subscribe(
+                  Map<String, String> stompHeaders,
+                  MessageErrorListener<IStompMessage, String> onMessageOnErrorListener) {}
+
+              @Override
+              public void send(Map<String, String> stompHeaders, Object payload) {}
+
+              @Override
+              public void disconnect() {}
+            };
+          }
+        };
+    WhirlpoolServer server = WhirlpoolServer.LOCAL_TESTNET;
+    WhirlpoolClientConfig config =
+        new WhirlpoolClientConfig(
+            null, stompClientService, null, server.getServerUrlClear(), params, false);
+    config.setClientExecutor(
+        new Executor() {
+          @Override
+          public void execute(Runnable runnable) {
+            runnable.run();
+          }
+        });
+    config.setWarmTransports(2);
+    mixTransportPool = config.getMixTransportPool();
+  }
+
+  @Test
+  public void take() throws Exception {
+    IStompTransportListener listener =
+        new IStompTransportListener() {
+          @Override
+          public void onTransportConnected() {}
+
+          @Override
+          public void onTransportDisconnected(Throwable exception) {}
+        };
+
+    // disabled until demand
+    Assertions.assertNull(mixTransportPool.take("pool1", listener));
+    Assertions.assertEquals(0, nbConnects.get());
+
+    // capped by warmTransports
+    mixTransportPool.setTarget("pool1", 5);
+    Assertions.assertEquals(2, nbConnects.get());
+
+    // connected transport is handed over, then replaced
+    StompTransport transport = mixTransportPool.take("pool1", listener);
+    Assertions.assertNotNull(transport);
+    Assertions.assertTrue(transport.isConnected());
+    Assertions.assertEquals(3, nbConnects.get());
+
+    // no transport for other pools
+    Assertions.assertNull(mixTransportPool.take("pool2", listener));
+
+    // no more demand
+    mixTransportPool.setTarget("pool1", 0);
+    mixTransportPool.stop();
+    Assertions.assertNull(mixTransportPool.take("pool1", listener));
+    Assertions.assertEquals(3, nbConnects.get());
+  }
+
+  @Test
+  public void handOver() throws Exception {
+    final AtomicReference<MessageErrorListener<Void, Throwable>> connectListener =
+        new AtomicReference<MessageErrorListener<Void, Throwable>>();
+    IStompClientService stompClientService =
+        new IStompClientService() {
+          @Override
+          public IStompClient newStompClient() {
+            return new IStompClient() {
+              @Override
+              public void connect(
+                  String url,
+                  Map<String, String> stompHeaders,
+                  MessageErrorListener<Void, Throwable> onConnectOnDisconnectListener) {
+                connectListener.set(onConnectOnDisconnectListener);
+                onConnectOnDisconnectListener.onMessage(null);
+              }
+
+              @Override
+              public void subscribe(
+                  Map<String, String> stompHeaders,
+                  MessageErrorListener<IStompMessage, String> onMessageOnErrorListener) {}
+
+              @Override
+              public void send(Map<String, String> stompHeaders, Object payload) {}
+
+              @Override
+              public void disconnect() {}
+            };
+          }
+        };
+    final AtomicInteger nbDisconnected = new AtomicInteger(0);
+    IStompTransportListener listener =
+        new IStompTransportListener() {
+          @Override
+          public void onTransportConnected() {}
+
+          @Override
+          public void onTransportDisconnected(Throwable exception) {
+            nbDisconnected.incrementAndGet();
+          }
+        };
+
+    // disconnection after hand over is notified to new listener
+    StompTransport transport = new StompTransport(stompClientService, null, "test");
+    transport.connect("url", new HashMap<String, String>());
+    Assertions.assertTrue(transport.handOver(listener));
+    connectListener.get().onError(new Exception("disconnected"));
+    Assertions.assertEquals(1, nbDisconnected.get());
+
+    // disconnected transport is not handed over
+    Assertions.assertFalse(transport.handOver(listener));
+  }
+}
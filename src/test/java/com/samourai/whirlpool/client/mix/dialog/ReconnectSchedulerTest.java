@@ -0,0 +1,78 @@
+package com.samourai.whirlpool.client.mix.dialog;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ReconnectSchedulerTest extends AbstractTest {
+  private ScheduledExecutorService scheduler;
+  private Executor executor;
+
+  @BeforeEach
+  public void setup() {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    executor =
+        new Executor() {
+          @Override
+          public void execute(Runnable runnable) {
+            runnable.run();
+          }
+        };
+  }
+
+  @AfterEach
+  public void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void computeDelay() throws Exception {
+    ReconnectScheduler reconnectScheduler =
+        new ReconnectScheduler(scheduler, executor, 1000, 8000);
+    boolean jitter = false;
+    for (int i = 0; i < 200; i++) {
+      long delay0 = reconnectScheduler.computeDelay(0);
+      Assertions.assertTrue(delay0 >= 0 && delay0 <= 1000);
+      long delay2 = reconnectScheduler.computeDelay(2);
+      Assertions.assertTrue(delay2 >= 0 && delay2 <= 4000);
+      // capped
+      long delay100 = reconnectScheduler.computeDelay(100);
+      Assertions.assertTrue(delay100 >= 0 && delay100 <= 8000);
+      if (delay100 != reconnectScheduler.computeDelay(100)) {
+        jitter = true;
+      }
+    }
+    Assertions.assertTrue(jitter);
+  }
+
+  @Test
+  public void schedule() throws Exception {
+    ReconnectScheduler reconnectScheduler = new ReconnectScheduler(scheduler, executor, 10, 50);
+    final CountDownLatch latch = new CountDownLatch(3);
+    Runnable reconnect =
+        new Runnable() {
+          @Override
+          public void run() {
+            latch.countDown();
+          }
+        };
+    long delay = reconnectScheduler.schedule("pool1", 0, reconnect);
+    Assertions.assertTrue(delay <= 10);
+    reconnectScheduler.schedule("pool1", 3, reconnect);
+    reconnectScheduler.schedule("pool2", 1, reconnect);
+
+    Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    ReconnectScheduler.ReconnectStats stats = reconnectScheduler.getStats("pool1");
+    Assertions.assertEquals(2, stats.getNbReconnects());
+    Assertions.assertEquals(3, stats.getLastAttempt());
+    Assertions.assertEquals(1, reconnectScheduler.getStats("pool2").getNbReconnects());
+    Assertions.assertEquals(2, reconnectScheduler.getStats().size());
+  }
+}
@@ -0,0 +1,755 @@
+package com.samourai.whirlpool.client.test;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samourai.http.client.IHttpClient;
+import com.samourai.http.client.JacksonHttpClient;
+import com.samourai.stomp.client.IStompClient;
+import com.samourai.stomp.client.IStompClientService;
+import com.samourai.stomp.client.IStompMessage;
+import com.samourai.stomp.client.StompTransport;
+import com.samourai.wallet.api.backend.beans.UnspentResponse;
+import com.samourai.wallet.client.Bip84Wallet;
+import com.samourai.wallet.segwit.bech32.Bech32UtilGeneric;
+import com.samourai.whirlpool.client.utils.ClientUtils;
+import com.samourai.whirlpool.client.utils.MessageErrorListener;
+import com.samourai.whirlpool.client.whirlpool.beans.Pool;
+import com.samourai.whirlpool.protocol.WhirlpoolEndpoint;
+import com.samourai.whirlpool.protocol.WhirlpoolProtocol;
+import com.samourai.whirlpool.protocol.beans.Utxo;
+import com.samourai.whirlpool.protocol.websocket.messages.ConfirmInputResponse;
+import com.samourai.whirlpool.protocol.websocket.messages.SubscribePoolResponse;
+import com.samourai.whirlpool.protocol.websocket.notifications.*;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bitcoinj.core.*;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.engines.RSAEngine;
+import org.bouncycastle.crypto.params.RSAKeyParameters;
+import org.bouncycastle.crypto.signers.PSSSigner;
+import org.bouncycastle.util.encoders.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-process coordinator speaking the Whirlpool protocol over simulated STOMP sessions and
+ * REGISTER_OUTPUT over a simulated HTTP client, with configurable latency, anonymity set and
+ * failure injection. Messages are serialized to JSON and back, as on the wire.
+ *
+ * <p>The HTTP client also serves pools, tx0 data and a minimal backend (unspent, multiaddr,
+ * pushtx) indexing registered wallets, so a WhirlpoolWallet can be driven from deposit to postmix.
+ * Pushed txs and successful mixs are confirmed immediately.
+ */
+public class CoordinatorSimulator implements IStompClientService {
+  private static final Logger log = LoggerFactory.getLogger(CoordinatorSimulator.class);
+  private static final int BACKEND_LOOKAHEAD = 50; // addresses indexed per chain
+  private static final String FEE_PAYMENT_CODE =
+      "PM8TJXp19gCE6hQzqRi719FGJzF6AreRwvoQKLRnQ7dpgaakakFns22jHUqhtPQWmfevPQRCyfFbdDrKvrfw9oZv5PjaCerQMa3BKkPyUf9yN1CDR3w6";
+  private static final String FEE_ADDRESS = "tb1qjara0278vrsr8gvaga7jpy2c9amtgvytr44xym";
+
+  private NetworkParameters params;
+  private Map<String, SimPool> pools;
+  private ObjectMapper objectMapper;
+  private ScheduledExecutorService scheduler;
+  private ExecutorService executor;
+  private Random random;
+
+  // settings
+  private int anonymitySet;
+  private int latencyMin; // millis
+  private int latencyMax; // millis
+  private double failRate; // fail mix on REGISTER_OUTPUT
+  private double disconnectRate; // disconnect client on each request
+  private int rsaKeyBits;
+
+  private AtomicInteger mixIds;
+
+  // backend
+  private Map<String, SimAddress> backendAddresses; // by scriptPubKey hex
+  private Map<String, UnspentResponse.UnspentOutput> backendUtxos; // by utxo key
+  private Set<String> backendZpubs;
+  private int nbFunds;
+
+  // stats
+  private AtomicInteger nbSessions;
+  private AtomicInteger nbMixSuccess;
+  private AtomicInteger nbMixFail;
+  private AtomicInteger nbDisconnects;
+  private AtomicInteger nbPushTxs;
+
+  public CoordinatorSimulator(NetworkParameters params, Collection<Pool> pools) {
+    this.params = params;
+    this.pools = new HashMap<String, SimPool>();
+    for (Pool pool : pools) {
+      this.pools.put(pool.getPoolId(), new SimPool(pool));
+    }
+    this.objectMapper = new ObjectMapper();
+    objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(ClientUtils.threadFactory("simulator", true));
+    this.executor = Executors.newCachedThreadPool(ClientUtils.threadFactory("simulator", true));
+    this.random = new Random();
+
+    this.anonymitySet = 5;
+    this.latencyMin = 0;
+    this.latencyMax = 0;
+    this.failRate = 0;
+    this.disconnectRate = 0;
+    this.rsaKeyBits = 1024;
+
+    this.mixIds = new AtomicInteger(0);
+    this.backendAddresses = new HashMap<String, SimAddress>();
+    this.backendUtxos = new LinkedHashMap<String, UnspentResponse.UnspentOutput>();
+    this.backendZpubs = new HashSet<String>();
+    this.nbFunds = 0;
+    this.nbSessions = new AtomicInteger(0);
+    this.nbMixSuccess = new AtomicInteger(0);
+    this.nbMixFail = new AtomicInteger(0);
+    this.nbDisconnects = new AtomicInteger(0);
+    this.nbPushTxs = new AtomicInteger(0);
+  }
+
+  @Override
+  public IStompClient newStompClient() {
+    return new SimSession();
+  }
+
+  public IHttpClient newHttpClient() {
+    return new SimHttpClient();
+  }
+
+  public void stop() {
+    scheduler.shutdownNow();
+    executor.shutdownNow();
+  }
+
+  // client => server
+
+  private synchronized void onRegisterInput(SimSession session, JsonNode request) {
+    SimPool pool = pools.get(session.poolId);
+    session.utxo = new Utxo(request.get("utxoHash").asText(), request.get("utxoIndex").asLong());
+    session.liquidity = request.get("liquidity").asBoolean();
+    pool.queue.add(session);
+    pool.tryStartMix();
+  }
+
+  private synchronized void onConfirmInput(SimSession session, JsonNode request) {
+    SimMix mix = session.mix;
+    if (mix == null || !mix.mixId.equals(request.get("mixId").asText())) {
+      return;
+    }
+    byte[] blinded = WhirlpoolProtocol.decodeBytes(request.get("blindedBordereau64").asText());
+    RSAEngine signer = new RSAEngine();
+    signer.init(true, mix.privateKey);
+    byte[] signed = signer.processBlock(blinded, 0, blinded.length);
+
+    Map<String, Object> response = new HashMap<String, Object>();
+    response.put("mixId", mix.mixId);
+    response.put("signedBordereau64", WhirlpoolProtocol.encodeBytes(signed));
+    session.push(ConfirmInputResponse.class, response);
+
+    mix.confirmed.add(session);
+    if (mix.confirmed.size() == mix.inputs.size()) {
+      if (random.nextDouble() < failRate) {
+        mix.fail();
+        return;
+      }
+      Map<String, Object> notification = mix.notification(MixStatus.REGISTER_OUTPUT);
+      notification.put("inputsHash", mix.inputsHash);
+      mix.pushAll(RegisterOutputMixStatusNotification.class, notification);
+    }
+  }
+
+  private synchronized void onRegisterOutput(JsonNode request) throws Exception {
+    String inputsHash = request.get("inputsHash").asText();
+    SimMix mix = null;
+    for (SimPool pool : pools.values()) {
+      if (pool.mix != null && pool.mix.inputsHash.equals(inputsHash)) {
+        mix = pool.mix;
+      }
+    }
+    if (mix == null) {
+      throw new Exception("Mix not found");
+    }
+
+    // verify unblinded bordereau
+    String receiveAddress = request.get("receiveAddress").asText();
+    byte[] unblinded =
+        WhirlpoolProtocol.decodeBytes(request.get("unblindedSignedBordereau64").asText());
+    PSSSigner verifier = new PSSSigner(new RSAEngine(), new SHA256Digest(), 32);
+    verifier.init(false, mix.publicKey);
+    byte[] receiveAddressBytes = receiveAddress.getBytes();
+    verifier.update(receiveAddressBytes, 0, receiveAddressBytes.length);
+    if (!verifier.verifySignature(unblinded)) {
+      throw new Exception("Invalid unblindedSignedBordereau");
+    }
+    if (!mix.outputs.add(receiveAddress)) {
+      throw new Exception("Output already registered");
+    }
+
+    if (mix.outputs.size() == mix.inputs.size()) {
+      mix.tx = mix.computeTx();
+      Map<String, Object> notification = mix.notification(MixStatus.SIGNING);
+      notification.put("transaction64", WhirlpoolProtocol.encodeBytes(mix.tx));
+      mix.pushAll(SigningMixStatusNotification.class, notification);
+    }
+  }
+
+  private synchronized void onSigning(SimSession session, JsonNode request) {
+    SimMix mix = session.mix;
+    if (mix == null || !mix.mixId.equals(request.get("mixId").asText())) {
+      return;
+    }
+    mix.signed.add(session);
+    if (mix.signed.size() == mix.inputs.size()) {
+      broadcast(new Transaction(params, mix.tx));
+      mix.pushAll(SuccessMixStatusNotification.class, mix.notification(MixStatus.SUCCESS));
+      nbMixSuccess.incrementAndGet();
+      mix.pool.endMix();
+    }
+  }
+
+  private synchronized void onDisconnect(SimSession session) {
+    SimPool pool = pools.get(session.poolId);
+    if (pool == null) {
+      return;
+    }
+    pool.queue.remove(session);
+    if (session.mix != null && session.mix == pool.mix) {
+      session.mix.inputs.remove(session);
+      session.mix.fail();
+    }
+  }
+
+  // backend
+
+  /** Index first addresses of both chains, as backend does for a registered zpub. */
+  public synchronized void addBackendWallet(Bip84Wallet wallet) {
+    String zpub = wallet.getZpub();
+    backendZpubs.add(zpub);
+    for (int chain = 0; chain < 2; chain++) {
+      for (int index = 0; index < BACKEND_LOOKAHEAD; index++) {
+        String address =
+            Bech32UtilGeneric.getInstance().toBech32(wallet.getAddressAt(chain, index), params);
+        byte[] script = Bech32UtilGeneric.getInstance().computeScriptPubKey(address, params);
+        backendAddresses.put(
+            Hex.toHexString(script), new SimAddress(zpub, "M/" + chain + "/" + index, address));
+      }
+    }
+  }
+
+  /** Receive a confirmed utxo on a registered wallet address. */
+  public synchronized UnspentResponse.UnspentOutput fund(
+      Bip84Wallet wallet, int chain, int index, long value) throws Exception {
+    String address =
+        Bech32UtilGeneric.getInstance().toBech32(wallet.getAddressAt(chain, index), params);
+    byte[] script = Bech32UtilGeneric.getInstance().computeScriptPubKey(address, params);
+    String hash = Sha256Hash.of(("fund" + (nbFunds++)).getBytes()).toString();
+    UnspentResponse.UnspentOutput utxo = addBackendUtxo(hash, 0, value, script);
+    if (utxo == null) {
+      throw new Exception("Address not indexed: " + address);
+    }
+    return utxo;
+  }
+
+  private UnspentResponse.UnspentOutput addBackendUtxo(
+      String hash, int index, long value, byte[] script) {
+    SimAddress simAddress = backendAddresses.get(Hex.toHexString(script));
+    if (simAddress == null) {
+      return null; // not indexed
+    }
+    UnspentResponse.UnspentOutput utxo = new UnspentResponse.UnspentOutput();
+    utxo.tx_hash = hash;
+    utxo.tx_output_n = index;
+    utxo.value = value;
+    utxo.script = Hex.toHexString(script);
+    utxo.addr = simAddress.address;
+    utxo.confirmations = 1;
+    utxo.xpub = new UnspentResponse.UnspentOutput.Xpub();
+    utxo.xpub.m = simAddress.zpub;
+    utxo.xpub.path = simAddress.path;
+    backendUtxos.put(hash + ":" + index, utxo);
+    return utxo;
+  }
+
+  // confirm tx: spend its inputs, index its outputs
+  private synchronized void broadcast(Transaction tx) {
+    for (TransactionInput input : tx.getInputs()) {
+      TransactionOutPoint outPoint = input.getOutpoint();
+      backendUtxos.remove(outPoint.getHash().toString() + ":" + outPoint.getIndex());
+    }
+    for (TransactionOutput output : tx.getOutputs()) {
+      addBackendUtxo(
+          tx.getHashAsString(),
+          output.getIndex(),
+          output.getValue().getValue(),
+          output.getScriptBytes());
+    }
+  }
+
+  private synchronized String onFetchUtxos(String urlStr) throws Exception {
+    List<Map<String, Object>> unspentOutputs = new ArrayList<Map<String, Object>>();
+    for (UnspentResponse.UnspentOutput utxo : backendUtxos.values()) {
+      if (urlStr.contains(utxo.xpub.m)) {
+        Map<String, Object> xpub = new HashMap<String, Object>();
+        xpub.put("m", utxo.xpub.m);
+        xpub.put("path", utxo.xpub.path);
+        Map<String, Object> unspentOutput = new HashMap<String, Object>();
+        unspentOutput.put("tx_hash", utxo.tx_hash);
+        unspentOutput.put("tx_output_n", utxo.tx_output_n);
+        unspentOutput.put("value", utxo.value);
+        unspentOutput.put("script", utxo.script);
+        unspentOutput.put("addr", utxo.addr);
+        unspentOutput.put("confirmations", utxo.confirmations);
+        unspentOutput.put("xpub", xpub);
+        unspentOutputs.add(unspentOutput);
+      }
+    }
+    Map<String, Object> response = new HashMap<String, Object>();
+    response.put("unspent_outputs", unspentOutputs);
+    return objectMapper.writeValueAsString(response);
+  }
+
+  private synchronized String onFetchAddresses(String urlStr) throws Exception {
+    List<Map<String, Object>> addresses = new ArrayList<Map<String, Object>>();
+    for (String zpub : backendZpubs) {
+      if (urlStr.contains(zpub)) {
+        // wallet keeps track of its own indexes
+        Map<String, Object> address = new HashMap<String, Object>();
+        address.put("address", zpub);
+        address.put("account_index", 0);
+        address.put("change_index", 0);
+        addresses.add(address);
+      }
+    }
+    Map<String, Object> response = new HashMap<String, Object>();
+    response.put("addresses", addresses);
+    return objectMapper.writeValueAsString(response);
+  }
+
+  private String onPushTx(String txHex) throws Exception {
+    Transaction tx = new Transaction(params, Hex.decode(txHex));
+    broadcast(tx);
+    nbPushTxs.incrementAndGet();
+    Map<String, Object> response = new HashMap<String, Object>();
+    response.put("status", "ok");
+    response.put("data", tx.getHashAsString());
+    return objectMapper.writeValueAsString(response);
+  }
+
+  private synchronized String onFetchPools() throws Exception {
+    List<Map<String, Object>> poolInfos = new ArrayList<Map<String, Object>>();
+    for (SimPool simPool : pools.values()) {
+      Pool pool = simPool.pool;
+      Map<String, Object> poolInfo = new HashMap<String, Object>();
+      poolInfo.put("poolId", pool.getPoolId());
+      poolInfo.put("denomination", pool.getDenomination());
+      poolInfo.put("feeValue", pool.getFeeValue());
+      poolInfo.put("mustMixBalanceMin", pool.getMustMixBalanceMin());
+      poolInfo.put("mustMixBalanceCap", pool.getMustMixBalanceCap());
+      poolInfo.put("mustMixBalanceMax", pool.getMustMixBalanceMax());
+      poolInfo.put("minAnonymitySet", anonymitySet);
+      poolInfo.put("minMustMix", pool.getMinMustMix());
+      poolInfo.put("nbRegistered", simPool.queue.size());
+      poolInfo.put("mixAnonymitySet", anonymitySet);
+      poolInfo.put("mixStatus", MixStatus.CONFIRM_INPUT.name());
+      poolInfo.put("elapsedTime", 0);
+      poolInfo.put("nbConfirmed", 0);
+      poolInfos.add(poolInfo);
+    }
+    Map<String, Object> response = new HashMap<String, Object>();
+    response.put("pools", poolInfos);
+    return objectMapper.writeValueAsString(response);
+  }
+
+  private String onFetchTx0Data(Pool pool) throws Exception {
+    Map<String, Object> response = new HashMap<String, Object>();
+    response.put("feePaymentCode", FEE_PAYMENT_CODE);
+    response.put("feeValue", pool.getFeeValue());
+    response.put("feeChange", 0);
+    response.put("feeDiscountPercent", 0);
+    response.put("feePayload64", WhirlpoolProtocol.encodeBytes(new byte[] {1, 2}));
+    response.put("feeAddress", FEE_ADDRESS);
+    response.put("feeIndice", 0);
+    return objectMapper.writeValueAsString(response);
+  }
+
+  private int computeLatency() {
+    return latencyMin + (latencyMax > latencyMin ? random.nextInt(latencyMax - latencyMin) : 0);
+  }
+
+  private class SimPool {
+    private Pool pool;
+    private List<SimSession> queue;
+    private SimMix mix;
+
+    SimPool(Pool pool) {
+      this.pool = pool;
+      this.queue = new ArrayList<SimSession>();
+      this.mix = null;
+    }
+
+    void tryStartMix() {
+      if (mix != null || queue.size() < anonymitySet) {
+        return;
+      }
+      List<SimSession> inputs = new ArrayList<SimSession>(queue.subList(0, anonymitySet));
+      queue.removeAll(inputs);
+      try {
+        mix = new SimMix(this, inputs);
+      } catch (Exception e) {
+        log.error("", e);
+        return;
+      }
+      Map<String, Object> notification = mix.notification(MixStatus.CONFIRM_INPUT);
+      notification.put("publicKey64", mix.publicKey64);
+      mix.pushAll(ConfirmInputMixStatusNotification.class, notification);
+    }
+
+    void endMix() {
+      for (SimSession session : mix.inputs) {
+        session.mix = null;
+      }
+      mix = null;
+      tryStartMix();
+    }
+  }
+
+  private class SimMix {
+    private SimPool pool;
+    private String mixId;
+    private List<SimSession> inputs;
+    private String inputsHash;
+    private RSAKeyParameters publicKey;
+    private RSAKeyParameters privateKey;
+    private String publicKey64;
+    private Set<SimSession> confirmed;
+    private Set<String> outputs;
+    private Set<SimSession> signed;
+    private byte[] tx;
+
+    SimMix(SimPool pool, List<SimSession> inputs) throws Exception {
+      this.pool = pool;
+      this.mixId = "mix" + mixIds.incrementAndGet();
+      this.inputs = inputs;
+      List<Utxo> utxos = new ArrayList<Utxo>();
+      for (SimSession session : inputs) {
+        session.mix = this;
+        utxos.add(session.utxo);
+      }
+      this.inputsHash = WhirlpoolProtocol.computeInputsHash(utxos);
+
+      KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+      keyPairGenerator.initialize(rsaKeyBits);
+      KeyPair keyPair = keyPairGenerator.generateKeyPair();
+      RSAPublicKey pub = (RSAPublicKey) keyPair.getPublic();
+      RSAPrivateKey priv = (RSAPrivateKey) keyPair.getPrivate();
+      this.publicKey = new RSAKeyParameters(false, pub.getModulus(), pub.getPublicExponent());
+      this.privateKey = new RSAKeyParameters(true, priv.getModulus(), priv.getPrivateExponent());
+      this.publicKey64 = WhirlpoolProtocol.encodeBytes(pub.getEncoded());
+
+      this.confirmed = new HashSet<SimSession>();
+      this.outputs = new HashSet<String>();
+      this.signed = new HashSet<SimSession>();
+    }
+
+    Map<String, Object> notification(MixStatus mixStatus) {
+      Map<String, Object> notification = new HashMap<String, Object>();
+      notification.put("status", mixStatus.name());
+      notification.put("mixId", mixId);
+      return notification;
+    }
+
+    void pushAll(Class<?> type, Map<String, Object> payload) {
+      for (SimSession session : inputs) {
+        session.push(type, payload);
+      }
+    }
+
+    byte[] computeTx() throws Exception {
+      long denomination = pool.pool.getDenomination();
+      Transaction tx = new Transaction(params);
+      List<SimSession> shuffledInputs = new ArrayList<SimSession>(inputs);
+      Collections.shuffle(shuffledInputs);
+      for (SimSession session : shuffledInputs) {
+        TransactionOutPoint outPoint =
+            new TransactionOutPoint(
+                params, session.utxo.getIndex(), Sha256Hash.wrap(session.utxo.getHash()));
+        tx.addInput(new TransactionInput(params, tx, new byte[0], outPoint));
+      }
+      List<String> shuffledOutputs = new ArrayList<String>(outputs);
+      Collections.shuffle(shuffledOutputs);
+      for (String receiveAddress : shuffledOutputs) {
+        byte[] script = Bech32UtilGeneric.getInstance().computeScriptPubKey(receiveAddress, params);
+        tx.addOutput(new TransactionOutput(params, tx, Coin.valueOf(denomination), script));
+      }
+      return tx.bitcoinSerialize();
+    }
+
+    void fail() {
+      if (pool.mix != this) {
+        return; // already failed
+      }
+      pushAll(FailMixStatusNotification.class, notification(MixStatus.FAIL));
+      nbMixFail.incrementAndGet();
+      pool.endMix();
+    }
+  }
+
+  private class SimSession implements IStompClient {
+    private String poolId;
+    private MessageErrorListener<Void, Throwable> connectListener;
+    private MessageErrorListener<IStompMessage, String> subscribeListener;
+    private volatile boolean connected;
+
+    private Utxo utxo;
+    private boolean liquidity;
+    private SimMix mix;
+
+    // delivered in order
+    private ConcurrentLinkedQueue<Runnable> inbox = new ConcurrentLinkedQueue<Runnable>();
+    private long nextDeliveryTime;
+
+    @Override
+    public void connect(
+        String url,
+        Map<String, String> stompHeaders,
+        MessageErrorListener<Void, Throwable> onConnectOnDisconnectListener) {
+      this.poolId = stompHeaders.get(WhirlpoolProtocol.HEADER_POOL_ID);
+      this.connectListener = onConnectOnDisconnectListener;
+      this.connected = true;
+      nbSessions.incrementAndGet();
+      deliver(
+          new Runnable() {
+            @Override
+            public void run() {
+              connectListener.onMessage(null);
+            }
+          });
+    }
+
+    @Override
+    public void subscribe(
+        Map<String, String> stompHeaders,
+        MessageErrorListener<IStompMessage, String> onMessageOnErrorListener) {
+      this.subscribeListener = onMessageOnErrorListener;
+      Pool pool = pools.get(poolId).pool;
+      Map<String, Object> response = new HashMap<String, Object>();
+      response.put("networkId", params.getPaymentProtocolId());
+      response.put("denomination", pool.getDenomination());
+      response.put("mustMixBalanceMin", pool.getMustMixBalanceMin());
+      response.put("mustMixBalanceCap", pool.getMustMixBalanceCap());
+      response.put("mustMixBalanceMax", pool.getMustMixBalanceMax());
+      push(SubscribePoolResponse.class, response);
+    }
+
+    @Override
+    public void send(Map<String, String> stompHeaders, Object payload) {
+      if (random.nextDouble() < disconnectRate) {
+        nbDisconnects.incrementAndGet();
+        deliver(
+            new Runnable() {
+              @Override
+              public void run() {
+                connectListener.onError(new Exception("simulated disconnect"));
+              }
+            });
+        return;
+      }
+      String destination = stompHeaders.get(StompTransport.HEADER_DESTINATION);
+      JsonNode request = objectMapper.valueToTree(payload);
+      if (WhirlpoolEndpoint.WS_REGISTER_INPUT.equals(destination)) {
+        onRegisterInput(this, request);
+      } else if (WhirlpoolEndpoint.WS_CONFIRM_INPUT.equals(destination)) {
+        onConfirmInput(this, request);
+      } else if (WhirlpoolEndpoint.WS_SIGNING.equals(destination)) {
+        onSigning(this, request);
+      } else {
+        log.warn("Unexpected destination: " + destination);
+      }
+    }
+
+    @Override
+    public void disconnect() {
+      synchronized (this) {
+        if (!connected) {
+          return;
+        }
+        connected = false;
+      }
+      onDisconnect(this);
+    }
+
+    void push(Class<?> type, Map<String, Object> payload) {
+      final Object message = objectMapper.convertValue(payload, type);
+      deliver(
+          new Runnable() {
+            @Override
+            public void run() {
+              subscribeListener.onMessage(
+                  new IStompMessage() {
+                    @Override
+                    public String getStompHeader(String headerName) {
+                      if (WhirlpoolProtocol.HEADER_PROTOCOL_VERSION.equals(headerName)) {
+                        return WhirlpoolProtocol.PROTOCOL_VERSION;
+                      }
+                      return null;
+                    }
+
+                    @Override
+                    public Object getPayload() {
+                      return message;
+                    }
+                  });
+            }
+          });
+    }
+
+    // never call client from caller's thread (which may hold simulator's lock)
+    private synchronized void deliver(final Runnable runnable) {
+      long deliveryTime = Math.max(System.currentTimeMillis() + computeLatency(), nextDeliveryTime);
+      nextDeliveryTime = deliveryTime;
+      scheduler.schedule(
+          new Runnable() {
+            @Override
+            public void run() {
+              inbox.add(runnable);
+              executor.execute(
+                  new Runnable() {
+                    @Override
+                    public void run() {
+                      drain();
+                    }
+                  });
+            }
+          },
+          deliveryTime - System.currentTimeMillis(),
+          TimeUnit.MILLISECONDS);
+    }
+
+    private void drain() {
+      synchronized (inbox) {
+        Runnable item;
+        while ((item = inbox.poll()) != null) {
+          if (!connected) {
+            continue; // disconnected by client
+          }
+          try {
+            item.run();
+          } catch (Exception e) {
+            log.error("", e);
+          }
+        }
+      }
+    }
+  }
+
+  private class SimHttpClient extends JacksonHttpClient {
+    @Override
+    protected String requestJsonGet(String urlStr, Map<String, String> headers) throws Exception {
+      Thread.sleep(computeLatency());
+      if (urlStr.contains("/unspent")) {
+        return onFetchUtxos(urlStr);
+      }
+      if (urlStr.contains("/multiaddr")) {
+        return onFetchAddresses(urlStr);
+      }
+      if (urlStr.endsWith(WhirlpoolProtocol.getUrlFetchPools(""))) {
+        return onFetchPools();
+      }
+      for (SimPool simPool : pools.values()) {
+        if (urlStr.endsWith(WhirlpoolProtocol.getUrlTx0Data("", simPool.pool.getPoolId(), null))) {
+          return onFetchTx0Data(simPool.pool);
+        }
+      }
+      throw new Exception("Not simulated: GET " + urlStr);
+    }
+
+    @Override
+    protected String requestJsonPost(String urlStr, Map<String, String> headers, String jsonBody)
+        throws Exception {
+      throw new Exception("Not simulated: POST " + urlStr);
+    }
+
+    @Override
+    protected String requestJsonPostOverTor(
+        String urlStr, Map<String, String> headers, String jsonBody) throws Exception {
+      Thread.sleep(computeLatency());
+      onRegisterOutput(getObjectMapper().readTree(jsonBody));
+      return "";
+    }
+
+    @Override
+    protected String requestJsonPostUrlEncoded(
+        String urlStr, Map<String, String> headers, Map<String, String> body) throws Exception {
+      Thread.sleep(computeLatency());
+      if (urlStr.contains("/pushtx")) {
+        return onPushTx(body.get("tx"));
+      }
+      throw new Exception("Not simulated: POST " + urlStr);
+    }
+  }
+
+  private static class SimAddress {
+    private final String zpub;
+    private final String path;
+    private final String address;
+
+    SimAddress(String zpub, String path, String address) {
+      this.zpub = zpub;
+      this.path = path;
+      this.address = address;
+    }
+  }
+
+  public int getAnonymitySet() {
+    return anonymitySet;
+  }
+
+  public void setAnonymitySet(int anonymitySet) {
+    this.anonymitySet = anonymitySet;
+  }
+
+  public void setLatency(int latencyMin, int latencyMax) {
+    this.latencyMin = latencyMin;
+    this.latencyMax = latencyMax;
+  }
+
+  public void setFailRate(double failRate) {
+    this.failRate = failRate;
+  }
+
+  public void setDisconnectRate(double disconnectRate) {
+    this.disconnectRate = disconnectRate;
+  }
+
+  public void setRsaKeyBits(int rsaKeyBits) {
+    this.rsaKeyBits = rsaKeyBits;
+  }
+
+  public int getNbSessions() {
+    return nbSessions.get();
+  }
+
+  public int getNbMixSuccess() {
+    return nbMixSuccess.get();
+  }
+
+  public int getNbMixFail() {
+    return nbMixFail.get();
+  }
+
+  public int getNbDisconnects() {
+    return nbDisconnects.get();
+  }
+
+  public int getNbPushTxs() {
+    return nbPushTxs.get();
+  }
+}
@@ -0,0 +1,91 @@
+package com.samourai.whirlpool.client.tx0;
+
+import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.wallet.WhirlpoolWalletConfig;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolServer;
+import java.util.ArrayList;
+import java.util.List;
+import java8.util.Lists;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class Tx0CoinSelectorTest extends AbstractTest {
+  private Tx0Service tx0Service;
+  private Tx0CoinSelector tx0CoinSelector;
+  private Tx0Param tx0Param;
+  private long premixValue;
+
+  @BeforeEach
+  public void setup() {
+    WhirlpoolServer server = WhirlpoolServer.LOCAL_TESTNET;
+    WhirlpoolWalletConfig config =
+        new WhirlpoolWalletConfig(
+            null, null, null, server.getServerUrlClear(), server.getParams(), false, null);
+    tx0Service = new Tx0Service(config);
+    tx0CoinSelector = new Tx0CoinSelector(tx0Service);
+    tx0Param = new Tx0Param(5, 1, pool001btc, null);
+    premixValue = tx0Param.getPremixValue();
+  }
+
+  private List<UnspentOutput> newUtxos(long... values) {
+    List<UnspentOutput> utxos = new ArrayList<UnspentOutput>();
+    for (int i = 0; i < values.length; i++) {
+      utxos.add(newUnspentOutput("hash" + i, i, values[i]));
+    }
+    return utxos;
+  }
+
+  private int computeNbPremix(List<UnspentOutput> spendFroms) {
+    return tx0Service.computeNbPremixMax(
+        premixValue, spendFroms, pool001btc.getFeeValue(), tx0Param.getFeeTx0());
+  }
+
+  @Test
+  public void combineSmallUtxos() throws Exception {
+    long value = premixValue * 6 / 10;
+    List<UnspentOutput> utxos = newUtxos(value, value, value, value, value);
+
+    List<UnspentOutput> selected = tx0CoinSelector.select(utxos, tx0Param, 1, null);
+    Assertions.assertEquals(4, selected.size()); // 5th utxo is not needed
+    Assertions.assertEquals(2, computeNbPremix(selected));
+  }
+
+  @Test
+  public void maxOutputs() throws Exception {
+    long value = premixValue * 2;
+    List<UnspentOutput> utxos =
+        newUtxos(value, value, value, value, value, value, value, value, value, value);
+
+    // 2 utxos are enough for 3 premixs
+    List<UnspentOutput> selected = tx0CoinSelector.select(utxos, tx0Param, 1, 3);
+    Assertions.assertEquals(2, selected.size());
+    Assertions.assertTrue(computeNbPremix(selected) >= 3);
+  }
+
+  @Test
+  public void leastChange() throws Exception {
+    UnspentOutput big = newUnspentOutput("hashBig", 0, premixValue * 10);
+    long minerFee = tx0Service.computeTx0MinerFee(3, tx0Param.getFeeTx0(), Lists.of(big));
+    UnspentOutput exact =
+        newUnspentOutput("hashExact", 0, premixValue * 3 + pool001btc.getFeeValue() + minerFee + 10);
+    UnspentOutput small = newUnspentOutput("hashSmall", 0, premixValue / 2);
+
+    // greedy would spend the biggest utxo, bnb finds the least change
+    List<UnspentOutput> selected =
+        tx0CoinSelector.select(Lists.of(small, big, exact), tx0Param, 1, 3);
+    Assertions.assertEquals(1, selected.size());
+    Assertions.assertSame(exact, selected.get(0));
+  }
+
+  @Test
+  public void insufficientBalance() throws Exception {
+    List<UnspentOutput> utxos = newUtxos(premixValue / 4, premixValue / 4);
+    Assertions.assertTrue(tx0CoinSelector.select(utxos, tx0Param, 1, null).isEmpty());
+
+    // nbPremixMin not reached
+    utxos = newUtxos(premixValue * 2);
+    Assertions.assertTrue(tx0CoinSelector.select(utxos, tx0Param, 3, null).isEmpty());
+  }
+}
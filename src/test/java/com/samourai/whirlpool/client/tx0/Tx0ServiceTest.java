@@ -6,9 +6,17 @@ import com.samourai.wallet.client.indexHandler.MemoryIndexHandler;
 import com.samourai.wallet.hd.HD_Wallet;
 import com.samourai.whirlpool.client.test.AbstractTest;
 import com.samourai.whirlpool.client.wallet.WhirlpoolWalletConfig;
+import com.samourai.whirlpool.client.wallet.beans.Tx0FeeTarget;
 import com.samourai.whirlpool.client.wallet.beans.WhirlpoolServer;
 import com.samourai.whirlpool.client.wallet.beans.WhirlpoolWalletAccount;
+import com.samourai.whirlpool.client.whirlpool.beans.Pool;
 import com.samourai.whirlpool.client.whirlpool.beans.Tx0Data;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java8.util.Lists;
 import org.bitcoinj.core.*;
 import org.bouncycastle.util.encoders.Hex;
@@ -938,4 +946,261 @@ public class Tx0ServiceTest extends AbstractTest {
         "01000000000101ae24e3f5dbcee7971ae0e5b83fcb1eb67057901f2d371ca494f868b3dc8c58cc0100000000ffffffff040000000000000000426a409ae6649a7b1fc9ab17f408cbf7b41e27f3a5484650aafdf5167852bd348afa8aa8213dda856188683ab187a902923e7ec3b672a6fbb637a4063c71879f6859171027000000000000160014f6a884f18f4d7e78a4167c3e56773c3ae58e0164ee2b000000000000160014d49377882fdc939d951aa51a3c0ad6dd4a152e26d6420f00000000001600141dffe6e395c95927e4a16e8e6bd6d05604447e4d0247304402204e37d89e31eb2242049605dabc803579c717f41eea9e53e7a460e8ac7a3806800220460816a471b9dd9cae5b937368da68166d7b2d28a946a01bc1d6317018e3063801210349baf197181fe53937d225d0e7bd14d8b5f921813c038a95d7c2648500c119b000000000",
         tx0Hex);
   }
+
+  // Tx0Data with pool feeValue, without http
+  private Tx0Service newTx0ServiceMock(final AtomicInteger nbFetchs) {
+    return new Tx0Service(config) {
+      @Override
+      protected Tx0Data fetchTx0Data(String poolId, String scode) {
+        nbFetchs.incrementAndGet();
+        long feeValue = 0;
+        for (Pool pool : getPools()) {
+          if (pool.getPoolId().equals(poolId)) {
+            feeValue = pool.getFeeValue();
+          }
+        }
+        return new Tx0Data(
+            "PM8TJXp19gCE6hQzqRi719FGJzF6AreRwvoQKLRnQ7dpgaakakFns22jHUqhtPQWmfevPQRCyfFbdDrKvrfw9oZv5PjaCerQMa3BKkPyUf9yN1CDR3w6",
+            feeValue,
+            0,
+            0,
+            new byte[] {1, 2},
+            "tb1qjara0278vrsr8gvaga7jpy2c9amtgvytr44xym",
+            0);
+      }
+    };
+  }
+
+  @Test
+  public void tx0Previews() throws Exception {
+    AtomicInteger nbFetchs = new AtomicInteger(0);
+    tx0Service = newTx0ServiceMock(nbFetchs);
+    Collection<UnspentOutputWithKey> spendFroms =
+        Lists.of(new UnspentOutputWithKey(newUnspentOutput("hash", 1, 7500000), null));
+    Map<Tx0FeeTarget, Tx0ParamSimple> tx0ParamsByFeeTarget =
+        new LinkedHashMap<Tx0FeeTarget, Tx0ParamSimple>();
+    tx0ParamsByFeeTarget.put(Tx0FeeTarget.BLOCKS_24, new Tx0ParamSimple(1, 1));
+    tx0ParamsByFeeTarget.put(Tx0FeeTarget.BLOCKS_2, new Tx0ParamSimple(50, 1));
+
+    List<Tx0PreviewOption> tx0PreviewOptions =
+        tx0Service.tx0Previews(spendFroms, new Tx0Config(), tx0ParamsByFeeTarget, getPools());
+    Assertions.assertEquals(6, tx0PreviewOptions.size());
+    Assertions.assertEquals(3, nbFetchs.get()); // one per pool
+
+    // most premixs first, then cheapest
+    Tx0PreviewOption best = tx0PreviewOptions.get(0);
+    Assertions.assertEquals(pool001btc, best.getPool());
+    Assertions.assertEquals(Tx0FeeTarget.BLOCKS_24, best.getFeeTarget());
+    for (int i = 1; i < tx0PreviewOptions.size(); i++) {
+      Tx0Preview previous = tx0PreviewOptions.get(i - 1).getTx0Preview();
+      Assertions.assertTrue(
+          previous.getNbPremix() >= tx0PreviewOptions.get(i).getTx0Preview().getNbPremix());
+    }
+    Assertions.assertEquals(pool05btc, tx0PreviewOptions.get(5).getPool());
+
+    // Tx0Data cached
+    tx0Service.tx0Previews(spendFroms, new Tx0Config(), tx0ParamsByFeeTarget, getPools());
+    Assertions.assertEquals(3, nbFetchs.get());
+  }
+
+  @Test
+  public void tx0DataCache() throws Exception {
+    AtomicInteger nbFetchs = new AtomicInteger(0);
+    tx0Service = newTx0ServiceMock(nbFetchs);
+    String poolId = pool01btc.getPoolId();
+
+    // previews are served from cache
+    Tx0Data tx0Data = tx0Service.getTx0DataCached(poolId);
+    Assertions.assertSame(tx0Data, tx0Service.getTx0DataCached(poolId));
+    Assertions.assertEquals(1, nbFetchs.get());
+
+    // Tx0 reuses preview Tx0Data, which is never served again
+    Assertions.assertSame(tx0Data, tx0Service.consumeTx0Data(poolId));
+    Tx0Data nextTx0Data = tx0Service.getTx0DataCached(poolId);
+    Assertions.assertNotSame(tx0Data, nextTx0Data);
+
+    // rejected
+    tx0Service.clearTx0Data(poolId);
+    Assertions.assertNotSame(nextTx0Data, tx0Service.getTx0DataCached(poolId));
+
+    // cached by scode
+    tx0Data = tx0Service.getTx0DataCached(poolId);
+    config.setScode("foo");
+    Assertions.assertNotSame(tx0Data, tx0Service.getTx0DataCached(poolId));
+  }
+
+  @Test
+  public void tx0Cascade() throws Exception {
+    tx0Service = newTx0ServiceMock(new AtomicInteger(0));
+    String seedWords = "all all all all all all all all all all all all";
+    String passphrase = "whirlpool";
+    byte[] seed = hdWalletFactory.computeSeedFromWords(seedWords);
+    HD_Wallet bip84w = hdWalletFactory.getBIP84(seed, passphrase, params);
+
+    ECKey spendFromKey = bip84w.getAccountAt(0).getChain(0).getAddressAt(61).getECKey();
+    UnspentResponse.UnspentOutput spendFrom =
+        newUnspentOutput(
+            "cc588cdcb368f894a41c372d1f905770b61ecb3fb8e5e01a97e7cedbf5e324ae", 1, 7500000);
+    Collection<UnspentOutputWithKey> spendFroms =
+        Lists.of(new UnspentOutputWithKey(spendFrom, spendFromKey.getPrivKeyBytes()));
+
+    Bip84Wallet depositWallet =
+        new Bip84Wallet(
+            bip84w,
+            WhirlpoolWalletAccount.DEPOSIT.getAccountIndex(),
+            new MemoryIndexHandler(),
+            new MemoryIndexHandler());
+    Bip84Wallet premixWallet =
+        new Bip84Wallet(
+            bip84w,
+            WhirlpoolWalletAccount.PREMIX.getAccountIndex(),
+            new MemoryIndexHandler(),
+            new MemoryIndexHandler());
+    Bip84Wallet postmixWallet =
+        new Bip84Wallet(
+            bip84w,
+            WhirlpoolWalletAccount.POSTMIX.getAccountIndex(),
+            new MemoryIndexHandler(),
+            new MemoryIndexHandler());
+    Bip84Wallet badbankWallet =
+        new Bip84Wallet(
+            bip84w,
+            WhirlpoolWalletAccount.BADBANK.getAccountIndex(),
+            new MemoryIndexHandler(),
+            new MemoryIndexHandler());
+    Tx0Config tx0Config = new Tx0Config();
+
+    // pools in any order
+    List<Tx0Param> tx0Params = new ArrayList<Tx0Param>();
+    for (Pool pool : Lists.of(pool001btc, pool05btc, pool01btc)) {
+      tx0Params.add(new Tx0Param(1, 1, pool, null));
+    }
+
+    // preview: largest pool first, change feeding next pool
+    Tx0CascadePreview tx0CascadePreview =
+        tx0Service.tx0CascadePreview(spendFroms, tx0Config, tx0Params);
+    List<Tx0Preview> tx0Previews = tx0CascadePreview.getTx0Previews();
+    Assertions.assertEquals(3, tx0Previews.size());
+    Assertions.assertEquals(pool05btc, tx0CascadePreview.getTx0Params().get(0).getPool());
+    Assertions.assertEquals(pool01btc, tx0CascadePreview.getTx0Params().get(1).getPool());
+    Assertions.assertEquals(pool001btc, tx0CascadePreview.getTx0Params().get(2).getPool());
+    Assertions.assertEquals(1, tx0Previews.get(0).getNbPremix());
+    Assertions.assertEquals(2, tx0Previews.get(1).getNbPremix());
+    Assertions.assertEquals(1, tx0Previews.get(2).getNbPremix());
+    Assertions.assertEquals(
+        spendFrom.value,
+        tx0CascadePreview.getPremixSum()
+            + pool05btc.getFeeValue()
+            + pool01btc.getFeeValue()
+            + pool001btc.getFeeValue()
+            + tx0CascadePreview.getMinerFee()
+            + tx0CascadePreview.getChangeValue());
+
+    // chained Tx0s
+    List<Tx0> tx0s =
+        tx0Service.tx0Cascade(
+            spendFroms,
+            depositWallet,
+            premixWallet,
+            postmixWallet,
+            badbankWallet,
+            tx0Config,
+            tx0CascadePreview);
+    Assertions.assertEquals(3, tx0s.size());
+    for (int i = 0; i < tx0s.size(); i++) {
+      Tx0 tx0 = tx0s.get(i);
+      assertEquals(tx0Previews.get(i), tx0);
+      if (i > 0) {
+        // spends change of previous Tx0
+        TransactionOutput previousChange = tx0s.get(i - 1).getChangeOutput();
+        Transaction tx = tx0.getTx();
+        Assertions.assertEquals(1, tx.getInputs().size());
+        Assertions.assertEquals(
+            previousChange.getOutPointFor(), tx.getInput(0).getOutpoint());
+      }
+
+      // premix utxos known before backend lists them
+      List<UnspentResponse.UnspentOutput> premixUtxos =
+          tx0Service.computePremixUtxos(tx0, premixWallet.getZpub());
+      Assertions.assertEquals(tx0.getNbPremix(), premixUtxos.size());
+      for (UnspentResponse.UnspentOutput premixUtxo : premixUtxos) {
+        TransactionOutput output = tx0.getTx().getOutput(premixUtxo.tx_output_n);
+        Assertions.assertEquals(tx0.getTx().getHashAsString(), premixUtxo.tx_hash);
+        Assertions.assertEquals(tx0.getPremixValue(), premixUtxo.value);
+        Assertions.assertEquals(premixUtxo.value, output.getValue().getValue());
+        Assertions.assertEquals(
+            premixUtxo.addr, bech32Util.toBech32(premixWallet.getAddressAt(premixUtxo), params));
+      }
+    }
+  }
+
+  @Test
+  public void computeNbPremixMax() throws Exception {
+    long[] premixValues = new long[] {100170, 1000170, 5000170};
+    long[] feeValues = new long[] {0, FEE_VALUE, 42500};
+    int[] feesTx0 = new int[] {1, 7, 75, 510};
+    int nbChecks = 0;
+    for (long premixValue : premixValues) {
+      for (long feeValueOrFeeChange : feeValues) {
+        for (int feeTx0 : feesTx0) {
+          for (int nbSpendFroms = 1; nbSpendFroms <= 3; nbSpendFroms++) {
+            for (int n = 0; n <= 650; n += 13) {
+              for (long delta : new long[] {-100000, -1, 0, 1, 5000, 100000}) {
+                long balance = Math.max(1, premixValue * n + feeValueOrFeeChange + delta);
+                List<UnspentResponse.UnspentOutput> spendFroms =
+                    new ArrayList<UnspentResponse.UnspentOutput>();
+                for (int i = 0; i < nbSpendFroms; i++) {
+                  long value = balance / nbSpendFroms + (i == 0 ? balance % nbSpendFroms : 0);
+                  spendFroms.add(newUnspentOutput("hash" + i, i, value));
+                }
+                int expected =
+                    computeNbPremixMaxLoop(premixValue, spendFroms, feeValueOrFeeChange, feeTx0);
+                int result =
+                    tx0Service.computeNbPremixMax(
+                        premixValue, spendFroms, feeValueOrFeeChange, feeTx0);
+                Assertions.assertEquals(
+                    expected,
+                    result,
+                    "premixValue="
+                        + premixValue
+                        + ", balance="
+                        + balance
+                        + ", feeValueOrFeeChange="
+                        + feeValueOrFeeChange
+                        + ", feeTx0="
+                        + feeTx0
+                        + ", nbSpendFroms="
+                        + nbSpendFroms);
+                nbChecks++;
+              }
+            }
+          }
+        }
+      }
+    }
+    log.info("computeNbPremixMax: " + nbChecks + " checks");
+  }
+
+  // previous linear implementation
+  private int computeNbPremixMaxLoop(
+      long premixValue,
+      Collection<UnspentResponse.UnspentOutput> spendFrom,
+      long feeValueOrFeeChange,
+      int feeTx0) {
+    long spendFromBalance = tx0Service.computeSpendFromBalance(spendFrom);
+    int nbPremix = (int) Math.ceil(spendFromBalance / premixValue);
+    while (true) {
+      long tx0MinerFee = tx0Service.computeTx0MinerFee(nbPremix, feeTx0, spendFrom);
+      long spendValue = (premixValue * nbPremix) + feeValueOrFeeChange + tx0MinerFee;
+      if (spendFromBalance < spendValue) {
+        nbPremix--;
+      } else {
+        break;
+      }
+    }
+    if (nbPremix < 0) {
+      nbPremix = 0;
+    }
+    return nbPremix;
+  }
 }
@@ -0,0 +1,26 @@
+package com.samourai.whirlpool.client.utils;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class Bip143HasherTest extends AbstractTest {
+
+  @Test
+  public void hashForSignature() throws Exception {
+    // BIP143 native P2WPKH example
+    String unsignedTxHex =
+        "0100000002fff7f7881a8099afa6940d42d1e7f6362bec38171ea3edf433541db4e4ad969f0000000000eeffffffef51e1b804cc89d182d279655c3aa89e815b1b309fe287d9b2b55d57b90ec68a0100000000ffffffff02202cb206000000001976a9148280b37df378db99f66f85c95a783a76ac7a6d5988ac9093510d000000001976a9143bde42dbee7e4dbe6a21b2d50ce2f0167faee04388ac11000000";
+    Transaction tx = new Transaction(params, Hex.decode(unsignedTxHex));
+
+    Bip143Hasher bip143Hasher = new Bip143Hasher(tx);
+    Sha256Hash sigHash =
+        bip143Hasher.hashForSignature(
+            1, Hex.decode("1d0f172a0ecb48aee1be1f2687d2963ae33f1a1f"), 600000000L);
+    Assertions.assertEquals(
+        "c37af31116d1b27caf68aae9e3ac82f1477929014d5b917657d0eb49478cb670", sigHash.toString());
+  }
+}
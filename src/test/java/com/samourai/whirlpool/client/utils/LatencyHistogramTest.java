@@ -0,0 +1,49 @@
+package com.samourai.whirlpool.client.utils;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest extends AbstractTest {
+
+  @Test
+  public void bucketIndex() throws Exception {
+    // buckets are contiguous
+    for (int i = 0; i < 447; i++) {
+      long highest = LatencyHistogram.bucketHighestValue(i);
+      Assertions.assertEquals(i, LatencyHistogram.bucketIndex(highest));
+      Assertions.assertEquals(i + 1, LatencyHistogram.bucketIndex(highest + 1));
+    }
+    int lastIndex = LatencyHistogram.bucketIndex(LatencyHistogram.MAX_VALUE);
+    Assertions.assertEquals(447, lastIndex);
+    Assertions.assertEquals(
+        LatencyHistogram.MAX_VALUE, LatencyHistogram.bucketHighestValue(lastIndex));
+  }
+
+  @Test
+  public void percentiles() throws Exception {
+    LatencyHistogram histogram = new LatencyHistogram();
+    Assertions.assertEquals(0, histogram.getValueAtPercentile(50));
+
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i);
+    }
+    Assertions.assertEquals(1000, histogram.getCount());
+    Assertions.assertEquals(1, histogram.getMin());
+    Assertions.assertEquals(1000, histogram.getMax());
+    Assertions.assertEquals(500.5, histogram.getMean(), 0.001);
+    assertApprox(500, histogram.getValueAtPercentile(50));
+    assertApprox(990, histogram.getValueAtPercentile(99));
+    Assertions.assertEquals(1000, histogram.getValueAtPercentile(100));
+
+    // snapshot
+    LatencyHistogram copy = histogram.copy();
+    histogram.record(5000);
+    Assertions.assertEquals(1000, copy.getCount());
+    Assertions.assertEquals(5000, histogram.getMax());
+  }
+
+  private void assertApprox(long expected, long actual) {
+    Assertions.assertTrue(Math.abs(actual - expected) <= expected / 16, "actual=" + actual);
+  }
+}
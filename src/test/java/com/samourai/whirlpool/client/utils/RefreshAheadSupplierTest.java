@@ -0,0 +1,104 @@
+package com.samourai.whirlpool.client.utils;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.zeroleak.throwingsupplier.LastValueFallbackSupplier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RefreshAheadSupplierTest extends AbstractTest {
+  private AtomicInteger nbLoads;
+  private List<Runnable> tasks;
+  private Executor executor;
+
+  @BeforeEach
+  public void setUp() {
+    nbLoads = new AtomicInteger(0);
+    tasks = new ArrayList<Runnable>();
+    executor =
+        new Executor() {
+          @Override
+          public void execute(Runnable runnable) {
+            tasks.add(runnable); // run manually
+          }
+        };
+  }
+
+  private RefreshAheadSupplier<Integer> newSupplier(long softTtl, long hardTtl) {
+    LastValueFallbackSupplier<Integer, Exception> loader =
+        new LastValueFallbackSupplier<Integer, Exception>() {
+          @Override
+          public Integer getOrThrow() throws Exception {
+            return nbLoads.incrementAndGet();
+          }
+        };
+    return new RefreshAheadSupplier<Integer>("test", loader, softTtl, hardTtl, executor);
+  }
+
+  @Test
+  public void fresh() throws Exception {
+    RefreshAheadSupplier<Integer> supplier = newSupplier(60000, 120000);
+
+    // first load is synchronous
+    Assertions.assertEquals(1, (int) supplier.get().getOrThrow());
+    Assertions.assertEquals(1, (int) supplier.get().getOrThrow());
+    Assertions.assertEquals(1, nbLoads.get());
+    Assertions.assertTrue(tasks.isEmpty());
+    Assertions.assertFalse(supplier.isStale());
+  }
+
+  @Test
+  public void staleWhileRevalidate() throws Exception {
+    RefreshAheadSupplier<Integer> supplier = newSupplier(0, 120000);
+    Assertions.assertEquals(1, (int) supplier.get().getOrThrow());
+
+    // stale value served, single background refresh
+    Assertions.assertEquals(1, (int) supplier.get().getOrThrow());
+    Assertions.assertEquals(1, (int) supplier.get().getOrThrow());
+    Assertions.assertEquals(1, tasks.size());
+    Assertions.assertEquals(1, nbLoads.get());
+
+    tasks.remove(0).run();
+    Assertions.assertEquals(2, nbLoads.get());
+    Assertions.assertEquals(2, (int) supplier.get().getOrThrow());
+  }
+
+  @Test
+  public void expire() throws Exception {
+    RefreshAheadSupplier<Integer> supplier = newSupplier(0, 120000);
+    Assertions.assertEquals(1, (int) supplier.get().getOrThrow());
+    supplier.get(); // background refresh pending
+    Assertions.assertEquals(1, tasks.size());
+
+    // expired: synchronous load
+    supplier.expire();
+    Assertions.assertTrue(supplier.isStale());
+    Assertions.assertEquals(2, (int) supplier.get().getOrThrow());
+
+    // obsolete background refresh doesn't replace value
+    tasks.remove(0).run();
+    Assertions.assertEquals(3, nbLoads.get());
+    Assertions.assertEquals(2, (int) supplier.get().getOrThrow());
+  }
+
+  @Test
+  public void refresh() throws Exception {
+    RefreshAheadSupplier<Integer> supplier = newSupplier(60000, 120000);
+    Assertions.assertEquals(1, (int) supplier.get().getOrThrow());
+
+    // forced refreshs are coalesced while pending
+    supplier.refresh();
+    supplier.refresh();
+    Assertions.assertEquals(1, tasks.size());
+    Assertions.assertEquals(1, (int) supplier.get().getOrThrow());
+
+    tasks.remove(0).run();
+    Assertions.assertEquals(2, nbLoads.get());
+    Assertions.assertEquals(2, (int) supplier.get().getOrThrow());
+    Assertions.assertTrue(tasks.isEmpty());
+  }
+}
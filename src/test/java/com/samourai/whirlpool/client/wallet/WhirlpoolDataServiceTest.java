@@ -0,0 +1,444 @@
+package com.samourai.whirlpool.client.wallet;
+
+import com.samourai.http.client.JacksonHttpClient;
+import com.samourai.wallet.api.backend.BackendApi;
+import com.samourai.wallet.api.backend.BackendServer;
+import com.samourai.wallet.api.backend.beans.MultiAddrResponse;
+import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
+import com.samourai.wallet.client.Bip84ApiWallet;
+import com.samourai.wallet.hd.HD_Address;
+import com.samourai.wallet.hd.HD_Wallet;
+import com.samourai.wallet.util.oauth.OAuthManager;
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.tx0.Tx0;
+import com.samourai.whirlpool.client.tx0.Tx0Config;
+import com.samourai.whirlpool.client.tx0.Tx0Service;
+import com.samourai.whirlpool.client.wallet.beans.*;
+import com.samourai.whirlpool.client.wallet.notifier.MemoryUtxoNotifier;
+import com.samourai.whirlpool.client.wallet.persist.FileWhirlpoolWalletPersistHandler;
+import com.samourai.whirlpool.client.whirlpool.beans.Pool;
+import com.samourai.whirlpool.client.whirlpool.beans.Pools;
+import com.samourai.whirlpool.protocol.WhirlpoolProtocol;
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java8.util.Lists;
+import java8.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class WhirlpoolDataServiceTest extends AbstractTest {
+  private WhirlpoolWalletService whirlpoolWalletService;
+  private WhirlpoolWalletConfig config;
+  private WhirlpoolDataService dataService;
+  private WhirlpoolWallet whirlpoolWallet;
+
+  // backend
+  private List<UnspentOutput> backendUtxos;
+  private volatile Exception backendError;
+  private AtomicInteger nbFetches;
+  private List<String> pushedTxs;
+  private LinkedBlockingQueue<WhirlpoolUtxoChanges> utxoChanges;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    backendUtxos = Collections.synchronizedList(new ArrayList<UnspentOutput>());
+    backendError = null;
+    nbFetches = new AtomicInteger(0);
+    pushedTxs = Collections.synchronizedList(new ArrayList<String>());
+    utxoChanges = new LinkedBlockingQueue<WhirlpoolUtxoChanges>();
+
+    File fileState = File.createTempFile("state", null);
+    File fileUtxos = File.createTempFile("utxos", null);
+    fileState.deleteOnExit();
+    fileUtxos.deleteOnExit();
+    FileWhirlpoolWalletPersistHandler persistHandler =
+        new FileWhirlpoolWalletPersistHandler(fileState, fileUtxos);
+    persistHandler.setInitialized(true);
+
+    final String serverUrl = WhirlpoolServer.LOCAL_TESTNET.getServerUrl(false);
+    JacksonHttpClient httpClient =
+        new JacksonHttpClient() {
+          @Override
+          protected String requestJsonGet(String urlStr, Map<String, String> headers)
+              throws Exception {
+            // MOCK
+            for (Pool pool : getPools()) {
+              String urlTx0Data =
+                  WhirlpoolProtocol.getUrlTx0Data(serverUrl, pool.getPoolId(), null);
+              if (urlStr.equals(urlTx0Data)) {
+                Map<String, Object> tx0Data = new LinkedHashMap<String, Object>();
+                tx0Data.put(
+                    "feePaymentCode",
+                    "PM8TJXp19gCE6hQzqRi719FGJzF6AreRwvoQKLRnQ7dpgaakakFns22jHUqhtPQWmfevPQRCyfFbdDrKvrfw9oZv5PjaCerQMa3BKkPyUf9yN1CDR3w6");
+                tx0Data.put("feeValue", pool.getFeeValue());
+                tx0Data.put("feeChange", 0);
+                tx0Data.put("feeDiscountPercent", 0);
+                tx0Data.put("feePayload64", WhirlpoolProtocol.encodeBytes(new byte[] {1, 2}));
+                tx0Data.put("feeAddress", "tb1qjara0278vrsr8gvaga7jpy2c9amtgvytr44xym");
+                tx0Data.put("feeIndice", 0);
+                return getObjectMapper().writeValueAsString(tx0Data);
+              }
+            }
+            throw new Exception("Not mocked: GET " + urlStr);
+          }
+
+          @Override
+          protected String requestJsonPost(
+              String urlStr, Map<String, String> headers, String jsonBody) throws Exception {
+            throw new Exception("Not mocked: POST " + urlStr);
+          }
+
+          @Override
+          protected String requestJsonPostOverTor(
+              String urlStr, Map<String, String> headers, String jsonBody) throws Exception {
+            throw new Exception("Not mocked: POST " + urlStr);
+          }
+
+          @Override
+          protected String requestJsonPostUrlEncoded(
+              String urlStr, Map<String, String> headers, Map<String, String> body)
+              throws Exception {
+            throw new Exception("Not mocked: POST " + urlStr);
+          }
+        };
+
+    String backendUrl = BackendServer.TESTNET.getBackendUrl(false);
+    BackendApi backendApi =
+        new BackendApi(httpClient, backendUrl, Optional.<OAuthManager>empty()) {
+          @Override
+          public MultiAddrResponse.Address fetchAddress(String zpub) throws Exception {
+            // MOCK
+            return new MultiAddrResponse.Address();
+          }
+
+          @Override
+          public List<UnspentOutput> fetchUtxos(String zpubs) throws Exception {
+            // MOCK
+            nbFetches.incrementAndGet();
+            if (backendError != null) {
+              throw backendError;
+            }
+            synchronized (backendUtxos) {
+              return new ArrayList<UnspentOutput>(backendUtxos);
+            }
+          }
+
+          @Override
+          public void pushTx(String txHex) throws Exception {
+            // MOCK
+            pushedTxs.add(txHex);
+          }
+        };
+    config =
+        new WhirlpoolWalletConfig(
+            httpClient,
+            null,
+            persistHandler,
+            serverUrl,
+            WhirlpoolServer.LOCAL_TESTNET.getParams(),
+            false,
+            backendApi);
+
+    whirlpoolWalletService =
+        new WhirlpoolWalletService() {
+          @Override
+          protected WhirlpoolWallet computeWhirlpoolWallet(
+              WhirlpoolWalletConfig config,
+              WhirlpoolDataService dataService,
+              Bip84ApiWallet depositWallet,
+              Bip84ApiWallet premixWallet,
+              Bip84ApiWallet postmixWallet,
+              Bip84ApiWallet badbankWallet) {
+            WhirlpoolWallet whirlpoolWallet =
+                super.computeWhirlpoolWallet(
+                    config,
+                    dataService,
+                    depositWallet,
+                    premixWallet,
+                    postmixWallet,
+                    badbankWallet);
+            return new WhirlpoolWallet(whirlpoolWallet) {
+              @Override
+              protected void onUtxoChanges(WhirlpoolUtxoChanges whirlpoolUtxoChanges) {
+                utxoChanges.add(whirlpoolUtxoChanges);
+                super.onUtxoChanges(whirlpoolUtxoChanges);
+              }
+            };
+          }
+        };
+  }
+
+  @AfterEach
+  public void tearDown() {
+    if (whirlpoolWallet != null) {
+      whirlpoolWalletService.closeWallet();
+    }
+  }
+
+  // open wallet once config is set
+  private void open() throws Exception {
+    dataService =
+        new WhirlpoolDataService(config, whirlpoolWalletService) {
+          @Override
+          protected Pools fetchPools() throws Exception {
+            // MOCK
+            return new Pools(getPools());
+          }
+        };
+    byte[] seed =
+        hdWalletFactory.computeSeedFromWords("all all all all all all all all all all all all");
+    HD_Wallet bip84w = hdWalletFactory.getBIP84(seed, "test", params);
+    whirlpoolWallet = whirlpoolWalletService.openWallet(config, dataService, bip84w);
+  }
+
+  private UnspentOutput newBackendUtxo(WhirlpoolAccount account, String hash, int index) {
+    UnspentOutput utxo = newUnspentOutput(hash, index, 1000000);
+    utxo.xpub.m = whirlpoolWallet.getWallet(account).getZpub();
+    return utxo;
+  }
+
+  private String toBech32(HD_Address hdAddress) {
+    return bech32Util.toBech32(hdAddress, params);
+  }
+
+  private List<String> getUtxoKeys(WhirlpoolAccount account) throws Exception {
+    List<String> keys = new ArrayList<String>();
+    for (WhirlpoolUtxo whirlpoolUtxo : dataService.getUtxos(false, account)) {
+      keys.add(whirlpoolUtxo.getUtxo().tx_hash + ":" + whirlpoolUtxo.getUtxo().tx_output_n);
+    }
+    Collections.sort(keys);
+    return keys;
+  }
+
+  private List<String> getUtxoKeys(Collection<UnspentOutput> utxos) {
+    List<String> keys = new ArrayList<String>();
+    for (UnspentOutput utxo : utxos) {
+      keys.add(utxo.tx_hash + ":" + utxo.tx_output_n);
+    }
+    Collections.sort(keys);
+    return keys;
+  }
+
+  private void refreshUtxos() throws Exception {
+    int nbFetchesBefore = nbFetches.get();
+    dataService.refreshUtxos();
+    awaitFetches(nbFetchesBefore + 1);
+  }
+
+  private void awaitFetches(int nb) throws Exception {
+    long timeout = System.currentTimeMillis() + 5000;
+    while (nbFetches.get() < nb && System.currentTimeMillis() < timeout) {
+      Thread.sleep(20);
+    }
+    Assertions.assertTrue(nbFetches.get() >= nb);
+    Thread.sleep(200); // let refresh complete
+  }
+
+  // changes delivered since last call
+  private WhirlpoolUtxoChanges awaitUtxoChanges() throws Exception {
+    WhirlpoolUtxoChanges whirlpoolUtxoChanges = utxoChanges.poll(5, TimeUnit.SECONDS);
+    Assertions.assertNotNull(whirlpoolUtxoChanges);
+    Thread.sleep(200); // let dispatcher drain
+    WhirlpoolUtxoChanges next;
+    while ((next = utxoChanges.poll()) != null) {
+      whirlpoolUtxoChanges.getUtxosDetected().addAll(next.getUtxosDetected());
+      whirlpoolUtxoChanges.getUtxosUpdated().addAll(next.getUtxosUpdated());
+      whirlpoolUtxoChanges.getUtxosRemoved().addAll(next.getUtxosRemoved());
+    }
+    return whirlpoolUtxoChanges;
+  }
+
+  @Test
+  public void fetchFailureServesLastUtxos() throws Exception {
+    open();
+    backendUtxos.add(newBackendUtxo(WhirlpoolAccount.DEPOSIT, "deposit1", 0));
+    backendUtxos.add(newBackendUtxo(WhirlpoolAccount.PREMIX, "premix1", 1));
+    Assertions.assertEquals(Arrays.asList("deposit1:0"), getUtxoKeys(WhirlpoolAccount.DEPOSIT));
+    Assertions.assertEquals(Arrays.asList("premix1:1"), getUtxoKeys(WhirlpoolAccount.PREMIX));
+    Assertions.assertEquals(2, awaitUtxoChanges().getUtxosDetected().size());
+
+    // backend down: last utxos are still served
+    backendError = new Exception("backend down");
+    int nbFetchesBefore = nbFetches.get();
+    dataService.refreshUtxos();
+    awaitFetches(nbFetchesBefore + 1);
+    Assertions.assertEquals(Arrays.asList("deposit1:0"), getUtxoKeys(WhirlpoolAccount.DEPOSIT));
+    Assertions.assertEquals(Arrays.asList("premix1:1"), getUtxoKeys(WhirlpoolAccount.PREMIX));
+    Assertions.assertNull(utxoChanges.poll(200, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void fanOutByZpub() throws Exception {
+    open();
+    backendUtxos.add(newBackendUtxo(WhirlpoolAccount.DEPOSIT, "deposit1", 0));
+    backendUtxos.add(newBackendUtxo(WhirlpoolAccount.PREMIX, "premix1", 0));
+    backendUtxos.add(newBackendUtxo(WhirlpoolAccount.POSTMIX, "postmix1", 0));
+    backendUtxos.add(newBackendUtxo(WhirlpoolAccount.POSTMIX, "postmix2", 1));
+
+    Assertions.assertEquals(Arrays.asList("deposit1:0"), getUtxoKeys(WhirlpoolAccount.DEPOSIT));
+    Assertions.assertEquals(Arrays.asList("premix1:0"), getUtxoKeys(WhirlpoolAccount.PREMIX));
+    Assertions.assertEquals(
+        Arrays.asList("postmix1:0", "postmix2:1"), getUtxoKeys(WhirlpoolAccount.POSTMIX));
+    Assertions.assertTrue(getUtxoKeys(WhirlpoolAccount.BADBANK).isEmpty());
+    Assertions.assertEquals(1, nbFetches.get()); // single request for all accounts
+  }
+
+  @Test
+  public void fanOutByAddress() throws Exception {
+    open();
+
+    // backend echoes xpub in another form
+    UnspentOutput premixUtxo = newBackendUtxo(WhirlpoolAccount.PREMIX, "premix1", 0);
+    premixUtxo.xpub.m = "xpubFoo";
+    premixUtxo.xpub.path = "M/0/3";
+    premixUtxo.addr =
+        toBech32(whirlpoolWallet.getWallet(WhirlpoolAccount.PREMIX).getAddressAt(0, 3));
+    backendUtxos.add(premixUtxo);
+
+    UnspentOutput postmixUtxo = newBackendUtxo(WhirlpoolAccount.POSTMIX, "postmix1", 0);
+    postmixUtxo.xpub.m = "xpubBar";
+    postmixUtxo.xpub.path = "M/1/5";
+    postmixUtxo.addr =
+        toBech32(whirlpoolWallet.getWallet(WhirlpoolAccount.POSTMIX).getAddressAt(1, 5));
+    backendUtxos.add(postmixUtxo);
+
+    // same form for another utxo of same account
+    UnspentOutput postmixUtxo2 = newBackendUtxo(WhirlpoolAccount.POSTMIX, "postmix2", 0);
+    postmixUtxo2.xpub.m = "xpubBar";
+    backendUtxos.add(postmixUtxo2);
+
+    // unknown account
+    UnspentOutput unknownUtxo = newBackendUtxo(WhirlpoolAccount.DEPOSIT, "unknown", 0);
+    unknownUtxo.xpub.m = "xpubUnknown";
+    unknownUtxo.xpub.path = "M/0/1";
+    backendUtxos.add(unknownUtxo);
+
+    Assertions.assertTrue(getUtxoKeys(WhirlpoolAccount.DEPOSIT).isEmpty());
+    Assertions.assertEquals(Arrays.asList("premix1:0"), getUtxoKeys(WhirlpoolAccount.PREMIX));
+    Assertions.assertEquals(
+        Arrays.asList("postmix1:0", "postmix2:0"), getUtxoKeys(WhirlpoolAccount.POSTMIX));
+    Assertions.assertTrue(getUtxoKeys(WhirlpoolAccount.BADBANK).isEmpty());
+  }
+
+  @Test
+  public void notifierRefreshesUtxos() throws Exception {
+    MemoryUtxoNotifier utxoNotifier = new MemoryUtxoNotifier();
+    config.setUtxoNotifier(utxoNotifier);
+    open();
+    String depositZpub = whirlpoolWallet.getWallet(WhirlpoolAccount.DEPOSIT).getZpub();
+    UnspentOutput deposit1 = newBackendUtxo(WhirlpoolAccount.DEPOSIT, "deposit1", 0);
+    backendUtxos.add(deposit1);
+
+    // first fetch, then resync on notifier start
+    whirlpoolWallet.start();
+    Assertions.assertTrue(utxoNotifier.isStarted());
+    WhirlpoolUtxoChanges whirlpoolUtxoChanges = awaitUtxoChanges();
+    Assertions.assertTrue(whirlpoolUtxoChanges.isFirstFetch());
+    Assertions.assertEquals(1, whirlpoolUtxoChanges.getUtxosDetected().size());
+    awaitFetches(2);
+
+    // new utxo
+    backendUtxos.add(newBackendUtxo(WhirlpoolAccount.DEPOSIT, "deposit2", 1));
+    utxoNotifier.push(depositZpub);
+    whirlpoolUtxoChanges = awaitUtxoChanges();
+    Assertions.assertFalse(whirlpoolUtxoChanges.isFirstFetch());
+    Assertions.assertEquals(1, whirlpoolUtxoChanges.getUtxosDetected().size());
+    Assertions.assertEquals(
+        "deposit2", whirlpoolUtxoChanges.getUtxosDetected().get(0).getUtxo().tx_hash);
+    Assertions.assertTrue(whirlpoolUtxoChanges.getUtxosRemoved().isEmpty());
+    Assertions.assertEquals(
+        Arrays.asList("deposit1:0", "deposit2:1"), getUtxoKeys(WhirlpoolAccount.DEPOSIT));
+
+    // spent utxo
+    backendUtxos.remove(deposit1);
+    utxoNotifier.push(depositZpub);
+    whirlpoolUtxoChanges = awaitUtxoChanges();
+    Assertions.assertTrue(whirlpoolUtxoChanges.getUtxosDetected().isEmpty());
+    Assertions.assertEquals(1, whirlpoolUtxoChanges.getUtxosRemoved().size());
+    Assertions.assertEquals(
+        "deposit1", whirlpoolUtxoChanges.getUtxosRemoved().get(0).getUtxo().tx_hash);
+    Assertions.assertEquals(Arrays.asList("deposit2:1"), getUtxoKeys(WhirlpoolAccount.DEPOSIT));
+
+    // unknown zpub is ignored
+    int nbFetchesBefore = nbFetches.get();
+    utxoNotifier.push("zpubUnknown");
+    Thread.sleep(200);
+    Assertions.assertEquals(nbFetchesBefore, nbFetches.get());
+  }
+
+  @Test
+  public void pollingWithoutNotifier() throws Exception {
+    config.setRefreshUtxoDelay(0); // stale on each access
+    open();
+    dataService.getUtxos(false, WhirlpoolAccount.DEPOSIT);
+    dataService.getUtxos(false, WhirlpoolAccount.DEPOSIT);
+    awaitFetches(2); // background refresh
+  }
+
+  @Test
+  public void pollingFallbackWithNotifier() throws Exception {
+    config.setRefreshUtxoDelay(0);
+    config.setRefreshUtxoFallbackDelay(60);
+    config.setUtxoNotifier(new MemoryUtxoNotifier());
+    open();
+    dataService.getUtxos(false, WhirlpoolAccount.DEPOSIT);
+    dataService.getUtxos(false, WhirlpoolAccount.DEPOSIT);
+    Thread.sleep(200);
+    Assertions.assertEquals(1, nbFetches.get()); // fresh until refreshUtxoFallbackDelay
+  }
+
+  @Test
+  public void tx0CascadePendingUtxos() throws Exception {
+    open();
+    String depositZpub = whirlpoolWallet.getWallet(WhirlpoolAccount.DEPOSIT).getZpub();
+    String premixZpub = whirlpoolWallet.getWallet(WhirlpoolAccount.PREMIX).getZpub();
+    UnspentOutput deposit = newBackendUtxo(WhirlpoolAccount.DEPOSIT, "deposit1", 0);
+    deposit.value = 7500000;
+    deposit.xpub.path = "M/0/61";
+    backendUtxos.add(deposit);
+    WhirlpoolUtxo whirlpoolUtxo =
+        dataService.getUtxos(false, WhirlpoolAccount.DEPOSIT).iterator().next();
+
+    List<Tx0> tx0s =
+        whirlpoolWallet.tx0Cascade(Lists.of(whirlpoolUtxo), Tx0FeeTarget.BLOCKS_4, new Tx0Config());
+    Assertions.assertTrue(tx0s.size() > 1);
+    Assertions.assertEquals(tx0s.size(), pushedTxs.size());
+
+    // premixs of each step, change of last step
+    Tx0Service tx0Service = config.getTx0Service();
+    List<UnspentOutput> premixUtxos = new ArrayList<UnspentOutput>();
+    for (Tx0 tx0 : tx0s) {
+      premixUtxos.addAll(tx0Service.computePremixUtxos(tx0, premixZpub));
+    }
+    UnspentOutput changeUtxo =
+        tx0Service.computeChangeUtxo(tx0s.get(tx0s.size() - 1), depositZpub);
+    List<String> premixKeys = getUtxoKeys(premixUtxos);
+    List<String> depositKeys = getUtxoKeys(Lists.of(changeUtxo));
+    Assertions.assertEquals(premixKeys, getUtxoKeys(WhirlpoolAccount.PREMIX));
+    Assertions.assertEquals(depositKeys, getUtxoKeys(WhirlpoolAccount.DEPOSIT));
+
+    // backend doesn't list any Tx0 yet: pending utxos are kept for every step
+    backendUtxos.clear();
+    refreshUtxos();
+    Assertions.assertEquals(premixKeys, getUtxoKeys(WhirlpoolAccount.PREMIX));
+    Assertions.assertEquals(depositKeys, getUtxoKeys(WhirlpoolAccount.DEPOSIT));
+
+    // backend lists every Tx0
+    backendUtxos.addAll(premixUtxos);
+    backendUtxos.add(changeUtxo);
+    refreshUtxos();
+    Assertions.assertEquals(premixKeys, getUtxoKeys(WhirlpoolAccount.PREMIX));
+    Assertions.assertEquals(depositKeys, getUtxoKeys(WhirlpoolAccount.DEPOSIT));
+
+    // pending txs were resolved: backend is authoritative again
+    backendUtxos.clear();
+    refreshUtxos();
+    Assertions.assertTrue(getUtxoKeys(WhirlpoolAccount.PREMIX).isEmpty());
+    Assertions.assertTrue(getUtxoKeys(WhirlpoolAccount.DEPOSIT).isEmpty());
+  }
+}
@@ -0,0 +1,201 @@
+package com.samourai.whirlpool.client.wallet;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolAccount;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxo;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoChanges;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class WhirlpoolUtxoChangesDispatcherTest extends AbstractTest {
+  private List<Runnable> tasks;
+  private List<WhirlpoolUtxoChanges> delivered;
+  private List<WhirlpoolWallet> deliveredWallets;
+  private List<WhirlpoolWallet> resynced;
+  private WhirlpoolUtxoChangesDispatcher dispatcher;
+
+  @BeforeEach
+  public void setUp() {
+    tasks = new ArrayList<Runnable>();
+    delivered = new ArrayList<WhirlpoolUtxoChanges>();
+    deliveredWallets = new ArrayList<WhirlpoolWallet>();
+    resynced = new ArrayList<WhirlpoolWallet>();
+    Executor executor =
+        new Executor() {
+          @Override
+          public void execute(Runnable runnable) {
+            tasks.add(runnable); // run manually
+          }
+        };
+    dispatcher =
+        new WhirlpoolUtxoChangesDispatcher(2, executor) {
+          @Override
+          protected void deliver(
+              WhirlpoolWallet whirlpoolWallet, WhirlpoolUtxoChanges whirlpoolUtxoChanges) {
+            delivered.add(whirlpoolUtxoChanges);
+            deliveredWallets.add(whirlpoolWallet);
+          }
+
+          @Override
+          protected void resync(WhirlpoolWallet whirlpoolWallet) {
+            resynced.add(whirlpoolWallet);
+          }
+        };
+  }
+
+  private void runTasks() {
+    List<Runnable> toRun = new ArrayList<Runnable>(tasks);
+    tasks.clear();
+    for (Runnable task : toRun) {
+      task.run();
+    }
+  }
+
+  @Test
+  public void mergeDetectedUpdated() throws Exception {
+    WhirlpoolUtxo utxo1 = newUtxo("pool", WhirlpoolAccount.PREMIX, "utxo1", 0, null);
+    WhirlpoolUtxo utxo2 = newUtxo("pool", WhirlpoolAccount.PREMIX, "utxo2", 0, null);
+
+    WhirlpoolUtxoChanges changes1 = new WhirlpoolUtxoChanges(false);
+    changes1.getUtxosDetected().add(utxo1);
+    changes1.getUtxosDetected().add(utxo2);
+    dispatcher.dispatch(null, changes1);
+
+    WhirlpoolUtxoChanges changes2 = new WhirlpoolUtxoChanges(false);
+    changes2.getUtxosUpdated().add(utxo1);
+    changes2.getUtxosRemoved().add(utxo2);
+    dispatcher.dispatch(null, changes2);
+
+    Assertions.assertEquals(1, dispatcher.getQueueDepth());
+    Assertions.assertEquals(1, dispatcher.getNbPendingUtxos());
+    Assertions.assertEquals(1, tasks.size());
+    runTasks();
+
+    // detected+updated => detected, detected+removed => nothing
+    Assertions.assertEquals(1, delivered.size());
+    WhirlpoolUtxoChanges result = delivered.get(0);
+    Assertions.assertEquals(1, result.getUtxosDetected().size());
+    Assertions.assertSame(utxo1, result.getUtxosDetected().get(0));
+    Assertions.assertTrue(result.getUtxosUpdated().isEmpty());
+    Assertions.assertTrue(result.getUtxosRemoved().isEmpty());
+    Assertions.assertEquals(0, dispatcher.getQueueDepth());
+    Assertions.assertEquals(0, dispatcher.getNbPendingUtxos());
+  }
+
+  @Test
+  public void orderAndFirstFetch() throws Exception {
+    WhirlpoolUtxo utxo1 = newUtxo("pool", WhirlpoolAccount.PREMIX, "utxo1", 0, null);
+    WhirlpoolUtxo utxo1New = newUtxo("pool", WhirlpoolAccount.PREMIX, "utxo1", 1, null);
+
+    WhirlpoolUtxoChanges changes1 = new WhirlpoolUtxoChanges(true);
+    changes1.getUtxosDetected().add(utxo1);
+    dispatcher.dispatch(null, changes1);
+
+    // not merged with firstFetch
+    WhirlpoolUtxoChanges changes2 = new WhirlpoolUtxoChanges(false);
+    changes2.getUtxosRemoved().add(utxo1);
+    dispatcher.dispatch(null, changes2);
+
+    WhirlpoolUtxoChanges changes3 = new WhirlpoolUtxoChanges(false);
+    changes3.getUtxosDetected().add(utxo1New);
+    dispatcher.dispatch(null, changes3);
+
+    Assertions.assertEquals(2, dispatcher.getQueueDepth());
+    runTasks();
+
+    Assertions.assertEquals(2, delivered.size());
+    Assertions.assertTrue(delivered.get(0).isFirstFetch());
+    Assertions.assertSame(utxo1, delivered.get(0).getUtxosDetected().get(0));
+
+    // removed then detected again => replaced
+    Assertions.assertFalse(delivered.get(1).isFirstFetch());
+    Assertions.assertSame(utxo1, delivered.get(1).getUtxosRemoved().get(0));
+    Assertions.assertSame(utxo1New, delivered.get(1).getUtxosDetected().get(0));
+  }
+
+  @Test
+  public void coalescePerWallet() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      WhirlpoolUtxoChanges changes = new WhirlpoolUtxoChanges(false);
+      changes.getUtxosDetected().add(newUtxo("pool", WhirlpoolAccount.PREMIX, "u" + i, 0, null));
+      dispatcher.dispatch(null, changes);
+    }
+    Assertions.assertEquals(1, dispatcher.getQueueDepth());
+    Assertions.assertEquals(10, dispatcher.getNbPendingUtxos());
+    Assertions.assertEquals(10, dispatcher.getNbDispatched());
+    Assertions.assertEquals(9, dispatcher.getNbMerged());
+
+    runTasks();
+    Assertions.assertEquals(1, delivered.size());
+    Assertions.assertEquals(10, delivered.get(0).getUtxosDetected().size());
+    Assertions.assertEquals(1, dispatcher.getNbDelivered());
+  }
+
+  @Test
+  public void walletsFifo() throws Exception {
+    WhirlpoolWallet wallet1 = Mockito.mock(WhirlpoolWallet.class);
+    WhirlpoolWallet wallet2 = Mockito.mock(WhirlpoolWallet.class);
+    WhirlpoolUtxo utxo1 = newUtxo("pool", WhirlpoolAccount.PREMIX, "utxo1", 0, null);
+    WhirlpoolUtxo utxo2 = newUtxo("pool", WhirlpoolAccount.PREMIX, "utxo2", 0, null);
+    WhirlpoolUtxo utxo3 = newUtxo("pool", WhirlpoolAccount.PREMIX, "utxo3", 0, null);
+
+    WhirlpoolUtxoChanges changes1 = new WhirlpoolUtxoChanges(false);
+    changes1.getUtxosDetected().add(utxo1);
+    dispatcher.dispatch(wallet1, changes1);
+
+    WhirlpoolUtxoChanges changes2 = new WhirlpoolUtxoChanges(false);
+    changes2.getUtxosDetected().add(utxo2);
+    dispatcher.dispatch(wallet2, changes2);
+
+    // merged with wallet1 changes, even if wallet2 dispatched meanwhile
+    WhirlpoolUtxoChanges changes3 = new WhirlpoolUtxoChanges(false);
+    changes3.getUtxosDetected().add(utxo3);
+    dispatcher.dispatch(wallet1, changes3);
+
+    Assertions.assertEquals(2, dispatcher.getQueueDepth());
+    runTasks();
+
+    Assertions.assertEquals(2, delivered.size());
+    Assertions.assertSame(wallet1, deliveredWallets.get(0));
+    Assertions.assertEquals(2, delivered.get(0).getUtxosDetected().size());
+    Assertions.assertSame(wallet2, deliveredWallets.get(1));
+    Assertions.assertSame(utxo2, delivered.get(1).getUtxosDetected().get(0));
+  }
+
+  @Test
+  public void bounded() throws Exception {
+    for (int i = 0; i < 2; i++) {
+      WhirlpoolUtxoChanges changes = new WhirlpoolUtxoChanges(i % 2 == 0);
+      changes.getUtxosDetected().add(newUtxo("pool", WhirlpoolAccount.PREMIX, "u" + i, 0, null));
+      dispatcher.dispatch(null, changes);
+    }
+    Assertions.assertEquals(2, dispatcher.getQueueDepth());
+    Assertions.assertEquals(2, dispatcher.getNbPendingUtxos());
+    Assertions.assertTrue(resynced.isEmpty());
+
+    // queue full: firstFetch never merged, pending changes dropped for resync
+    WhirlpoolUtxoChanges changes = new WhirlpoolUtxoChanges(true);
+    changes.getUtxosDetected().add(newUtxo("pool", WhirlpoolAccount.PREMIX, "u2", 0, null));
+    dispatcher.dispatch(null, changes);
+    Assertions.assertEquals(0, dispatcher.getQueueDepth());
+    Assertions.assertEquals(0, dispatcher.getNbPendingUtxos());
+    Assertions.assertEquals(1, resynced.size());
+    Assertions.assertEquals(1, dispatcher.getNbResyncs());
+
+    runTasks();
+    Assertions.assertTrue(delivered.isEmpty());
+
+    // dispatching again after resync
+    changes = new WhirlpoolUtxoChanges(true);
+    changes.getUtxosDetected().add(newUtxo("pool", WhirlpoolAccount.PREMIX, "u3", 0, null));
+    dispatcher.dispatch(null, changes);
+    runTasks();
+    Assertions.assertEquals(1, delivered.size());
+    Assertions.assertTrue(delivered.get(0).isFirstFetch());
+  }
+}
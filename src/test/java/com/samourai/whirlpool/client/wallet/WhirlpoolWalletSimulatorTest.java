@@ -0,0 +1,130 @@
+package com.samourai.whirlpool.client.wallet;
+
+import com.samourai.http.client.IHttpClient;
+import com.samourai.wallet.api.backend.BackendApi;
+import com.samourai.wallet.client.Bip84Wallet;
+import com.samourai.wallet.client.indexHandler.MemoryIndexHandler;
+import com.samourai.wallet.hd.HD_Wallet;
+import com.samourai.wallet.util.oauth.OAuthManager;
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.test.CoordinatorSimulator;
+import com.samourai.whirlpool.client.tx0.Tx0;
+import com.samourai.whirlpool.client.tx0.Tx0Config;
+import com.samourai.whirlpool.client.wallet.beans.*;
+import com.samourai.whirlpool.client.wallet.persist.FileWhirlpoolWalletPersistHandler;
+import java.io.File;
+import java.util.Collection;
+import java8.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** WhirlpoolWallet driven from deposit to postmix against an in-process coordinator and backend. */
+public class WhirlpoolWalletSimulatorTest extends AbstractTest {
+  private static final long DEPOSIT_BALANCE = 1000000;
+
+  private CoordinatorSimulator simulator;
+  private WhirlpoolWalletConfig config;
+  private WhirlpoolWalletService whirlpoolWalletService;
+  private WhirlpoolWallet whirlpoolWallet;
+  private Bip84Wallet depositWallet;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    simulator = new CoordinatorSimulator(params, getPools());
+
+    File fileState = File.createTempFile("state", null);
+    File fileUtxos = File.createTempFile("utxos", null);
+    fileState.deleteOnExit();
+    fileUtxos.deleteOnExit();
+    FileWhirlpoolWalletPersistHandler persistHandler =
+        new FileWhirlpoolWalletPersistHandler(fileState, fileUtxos);
+    persistHandler.setInitialized(true);
+
+    IHttpClient httpClient = simulator.newHttpClient();
+    BackendApi backendApi =
+        new BackendApi(httpClient, "http://backend", Optional.<OAuthManager>empty());
+    config =
+        new WhirlpoolWalletConfig(
+            httpClient, simulator, persistHandler, "http://simulator", params, false, backendApi);
+    config.setMaxClients(simulator.getAnonymitySet());
+    config.setMaxClientsPerPool(simulator.getAnonymitySet());
+    config.setClientDelay(0);
+    config.setRefreshUtxoDelay(1);
+    whirlpoolWalletService = new WhirlpoolWalletService();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    if (whirlpoolWallet != null) {
+      whirlpoolWalletService.closeWallet();
+    }
+    simulator.stop();
+  }
+
+  private void open() throws Exception {
+    byte[] seed =
+        hdWalletFactory.computeSeedFromWords("all all all all all all all all all all all all");
+    HD_Wallet bip84w = hdWalletFactory.getBIP84(seed, "test", params);
+
+    // backend indexes each account
+    for (WhirlpoolWalletAccount account : WhirlpoolWalletAccount.values()) {
+      Bip84Wallet wallet =
+          new Bip84Wallet(
+              bip84w,
+              account.getAccountIndex(),
+              new MemoryIndexHandler(),
+              new MemoryIndexHandler());
+      simulator.addBackendWallet(wallet);
+      if (WhirlpoolWalletAccount.DEPOSIT.equals(account)) {
+        depositWallet = wallet;
+      }
+    }
+    whirlpoolWallet =
+        whirlpoolWalletService.openWallet(
+            config, new WhirlpoolDataService(config, whirlpoolWalletService), bip84w);
+  }
+
+  @Test
+  public void depositToPostmix() throws Exception {
+    open();
+    int anonymitySet = simulator.getAnonymitySet();
+    simulator.fund(depositWallet, 0, 0, DEPOSIT_BALANCE);
+    whirlpoolWallet.start();
+
+    // tx0 pushed through backend
+    Collection<WhirlpoolUtxo> deposits = whirlpoolWallet.getUtxosDeposit();
+    Assertions.assertEquals(1, deposits.size());
+    Tx0 tx0 =
+        whirlpoolWallet.tx0(
+            deposits,
+            pool001btc,
+            Tx0FeeTarget.BLOCKS_4,
+            new Tx0Config().setMaxOutputs(anonymitySet));
+    Assertions.assertEquals(anonymitySet, tx0.getNbPremix());
+    Assertions.assertEquals(1, simulator.getNbPushTxs());
+
+    // premixs are mixed together, mix tx confirmed by backend
+    long timeout = System.currentTimeMillis() + 60000;
+    while ((simulator.getNbMixSuccess() < 1
+            || whirlpoolWallet.getUtxosPostmix(true).size() < anonymitySet)
+        && System.currentTimeMillis() < timeout) {
+      Thread.sleep(200);
+    }
+    Assertions.assertEquals(1, simulator.getNbMixSuccess());
+    Assertions.assertEquals(0, simulator.getNbMixFail());
+    Assertions.assertTrue(whirlpoolWallet.getUtxosPremix(true).isEmpty());
+    Collection<WhirlpoolUtxo> postmixs = whirlpoolWallet.getUtxosPostmix();
+    Assertions.assertEquals(anonymitySet, postmixs.size());
+    for (WhirlpoolUtxo postmix : postmixs) {
+      Assertions.assertEquals(pool001btc.getDenomination(), postmix.getUtxo().value);
+    }
+
+    // tx0 change back to deposit
+    deposits = whirlpoolWallet.getUtxosDeposit();
+    Assertions.assertEquals(1, deposits.size());
+    Assertions.assertEquals(
+        tx0.getTx().getHashAsString(), deposits.iterator().next().getUtxo().tx_hash);
+  }
+}
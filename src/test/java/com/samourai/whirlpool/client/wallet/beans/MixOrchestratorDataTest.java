@@ -0,0 +1,131 @@
+package com.samourai.whirlpool.client.wallet.beans;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.whirlpool.beans.Pool;
+import java.util.ArrayList;
+import java.util.Collection;
+import java8.util.stream.Stream;
+import java8.util.stream.StreamSupport;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MixOrchestratorDataTest extends AbstractTest {
+  private String POOL_001;
+  private String POOL_01;
+  private MixingStateEditable mixingState;
+  private MixOrchestratorData data;
+
+  @BeforeEach
+  public void setUp() {
+    POOL_001 = pool001btc.getPoolId();
+    POOL_01 = pool01btc.getPoolId();
+    mixingState = new MixingStateEditable(false);
+    data =
+        new MixOrchestratorData(mixingState) {
+          @Override
+          public Stream<WhirlpoolUtxo> getQueue() {
+            return StreamSupport.stream(new ArrayList<WhirlpoolUtxo>());
+          }
+
+          @Override
+          public Collection<Pool> getPools() throws Exception {
+            return MixOrchestratorDataTest.this.getPools();
+          }
+        };
+  }
+
+  @Test
+  public void addRemove() throws Exception {
+    WhirlpoolUtxo premix = newUtxo(POOL_001, WhirlpoolAccount.PREMIX, "tx1", 1, null);
+    WhirlpoolUtxo premix2 = newUtxo(POOL_001, WhirlpoolAccount.PREMIX, "tx1", 1, null);
+    premix2.getUtxo().tx_output_n = 4;
+    WhirlpoolUtxo postmix = newUtxo(POOL_01, WhirlpoolAccount.POSTMIX, "tx2", 1, null);
+
+    data.addMixing(new Mixing(premix, POOL_001, null, null));
+    data.addMixing(new Mixing(premix2, POOL_001, null, null));
+    data.addMixing(new Mixing(postmix, POOL_01, null, null));
+    assertMixing(3, 2, 1);
+    Assertions.assertEquals(2, data.getNbMixing(POOL_001));
+    Assertions.assertEquals(1, data.getNbMixing(POOL_01));
+    Assertions.assertTrue(data.isHashMixing("tx1"));
+    Assertions.assertTrue(data.isHashMixing("tx2"));
+
+    // hash still mixing until its last utxo is removed
+    data.removeMixing(premix);
+    assertMixing(2, 1, 1);
+    Assertions.assertEquals(1, data.getNbMixing(POOL_001));
+    Assertions.assertTrue(data.isHashMixing("tx1"));
+
+    data.removeMixing(premix2);
+    assertMixing(1, 0, 1);
+    Assertions.assertEquals(0, data.getNbMixing(POOL_001));
+    Assertions.assertFalse(data.isHashMixing("tx1"));
+
+    // removing again is a no-op
+    data.removeMixing(premix2);
+    assertMixing(1, 0, 1);
+
+    data.removeMixing(postmix);
+    assertMixing(0, 0, 0);
+    Assertions.assertEquals(0, data.getNbMixing(POOL_01));
+    Assertions.assertFalse(data.isHashMixing("tx2"));
+  }
+
+  @Test
+  public void swap() throws Exception {
+    WhirlpoolUtxo premix = newUtxo(POOL_001, WhirlpoolAccount.PREMIX, "tx1", 1, null);
+    data.addMixing(new Mixing(premix, POOL_001, null, null));
+
+    // same utxo mixing again in another pool
+    data.addMixing(new Mixing(premix, POOL_01, null, null));
+    assertMixing(1, 1, 0);
+    Assertions.assertEquals(0, data.getNbMixing(POOL_001));
+    Assertions.assertEquals(1, data.getNbMixing(POOL_01));
+    Assertions.assertTrue(data.isHashMixing("tx1"));
+
+    data.removeMixing(premix);
+    assertMixing(0, 0, 0);
+    Assertions.assertFalse(data.isHashMixing("tx1"));
+  }
+
+  @Test
+  public void clear() throws Exception {
+    WhirlpoolUtxo premix = newUtxo(POOL_001, WhirlpoolAccount.PREMIX, "tx1", 1, null);
+    WhirlpoolUtxo postmix = newUtxo(POOL_001, WhirlpoolAccount.POSTMIX, "tx2", 1, null);
+    WhirlpoolUtxo queued = newUtxo(POOL_001, WhirlpoolAccount.POSTMIX, "tx3", 1, null);
+    data.addMixing(new Mixing(premix, POOL_001, null, null));
+    data.addMixing(new Mixing(postmix, POOL_001, null, null));
+    data.queueAdd(queued);
+    Assertions.assertEquals(1, mixingState.getNbQueued());
+    Assertions.assertEquals(1, mixingState.getNbQueuedLiquidity());
+
+    data.clear();
+    assertMixing(0, 0, 0);
+    Assertions.assertEquals(0, mixingState.getNbQueued());
+    Assertions.assertEquals(0, data.getNbMixing(POOL_001));
+    Assertions.assertFalse(data.isHashMixing("tx1"));
+    Assertions.assertFalse(data.isHashMixing("tx2"));
+  }
+
+  @Test
+  public void utxosMixingSnapshot() throws Exception {
+    WhirlpoolUtxo premix = newUtxo(POOL_001, WhirlpoolAccount.PREMIX, "tx1", 1, null);
+    data.addMixing(new Mixing(premix, POOL_001, null, null));
+
+    Collection<WhirlpoolUtxo> utxosMixing = mixingState.getUtxosMixing();
+    data.removeMixing(premix);
+
+    // snapshot is not affected by later changes
+    Assertions.assertEquals(1, utxosMixing.size());
+    Assertions.assertTrue(mixingState.getUtxosMixing().isEmpty());
+  }
+
+  private void assertMixing(int nbMixing, int nbMustMix, int nbLiquidity) {
+    Assertions.assertEquals(nbMixing, data.getNbMixing());
+    Assertions.assertEquals(nbMixing, mixingState.getNbMixing());
+    Assertions.assertEquals(nbMustMix, mixingState.getNbMixingMustMix());
+    Assertions.assertEquals(nbLiquidity, mixingState.getNbMixingLiquidity());
+    Assertions.assertEquals(nbMixing, mixingState.getUtxosMixing().size());
+  }
+}
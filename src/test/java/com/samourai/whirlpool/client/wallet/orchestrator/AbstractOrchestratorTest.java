@@ -0,0 +1,162 @@
+package com.samourai.whirlpool.client.wallet.orchestrator;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AbstractOrchestratorTest extends AbstractTest {
+  private static final int LOOP_DELAY = 60000;
+
+  private TestOrchestrator orchestrator;
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    if (orchestrator != null) {
+      if (orchestrator.isStarted()) {
+        orchestrator.stop();
+      }
+      orchestrator.release(100);
+      awaitNoThread();
+    }
+  }
+
+  @Test
+  public void notifyWhileRunning() throws Exception {
+    orchestrator = new TestOrchestrator(null, true);
+    orchestrator.start(true);
+    orchestrator.awaitRuns(1);
+
+    // loop delay is skipped when notified during a run
+    orchestrator.notifyOrchestrator();
+    orchestrator.release(1);
+    orchestrator.awaitRuns(2);
+    orchestrator.release(1);
+    Assertions.assertEquals(1, orchestrator.maxConcurrentRuns.get());
+  }
+
+  @Test
+  public void lastRunDelay() throws Exception {
+    orchestrator = new TestOrchestrator(1, false);
+    orchestrator.setLastRunInLoop = true;
+    orchestrator.start(true);
+    orchestrator.awaitRuns(1);
+    Thread.sleep(100);
+
+    // notifications ignored until lastRunDelay elapsed
+    Assertions.assertTrue(orchestrator.isDontDisturb());
+    orchestrator.notifyOrchestrator();
+    Thread.sleep(300);
+    Assertions.assertEquals(1, orchestrator.nbRuns.get());
+
+    // then run again
+    orchestrator.awaitRuns(2);
+  }
+
+  @Test
+  public void stopWhileRunning() throws Exception {
+    orchestrator = new TestOrchestrator(null, true);
+    orchestrator.start(false);
+    orchestrator.awaitRuns(1);
+
+    orchestrator.stop();
+    Assertions.assertFalse(orchestrator.isStarted());
+    Assertions.assertEquals(1, countThreads());
+
+    // ended when run is done
+    orchestrator.release(1);
+    awaitNoThread();
+    Assertions.assertEquals(1, orchestrator.nbRuns.get());
+  }
+
+  @Test
+  public void restartWhileRunning() throws Exception {
+    orchestrator = new TestOrchestrator(null, true);
+    orchestrator.start(false);
+    orchestrator.awaitRuns(1);
+
+    // restart while first loop is still running
+    orchestrator.stop();
+    orchestrator.start(false);
+    Assertions.assertTrue(orchestrator.isStarted());
+    orchestrator.notifyOrchestrator();
+    Thread.sleep(200);
+    Assertions.assertEquals(1, orchestrator.nbRuns.get()); // no concurrent run
+    Assertions.assertEquals(1, countThreads()); // same scheduler
+
+    // loop goes on after current run
+    orchestrator.release(1);
+    orchestrator.awaitRuns(2);
+    Assertions.assertEquals(1, orchestrator.maxConcurrentRuns.get());
+
+    orchestrator.stop();
+    orchestrator.release(1);
+    awaitNoThread();
+  }
+
+  private int countThreads() {
+    int nbThreads = 0;
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.isAlive() && thread.getName().startsWith(TestOrchestrator.class.getSimpleName())) {
+        nbThreads++;
+      }
+    }
+    return nbThreads;
+  }
+
+  private void awaitNoThread() throws Exception {
+    long timeout = System.currentTimeMillis() + 5000;
+    while (countThreads() > 0 && System.currentTimeMillis() < timeout) {
+      Thread.sleep(20);
+    }
+    Assertions.assertEquals(0, countThreads());
+  }
+
+  private static class TestOrchestrator extends AbstractOrchestrator {
+    private final boolean blocking;
+    private final Semaphore releases = new Semaphore(0);
+    private final AtomicInteger nbRuns = new AtomicInteger(0);
+    private final AtomicInteger concurrentRuns = new AtomicInteger(0);
+    private final AtomicInteger maxConcurrentRuns = new AtomicInteger(0);
+    private volatile boolean setLastRunInLoop;
+
+    TestOrchestrator(Integer lastRunDelay, boolean blocking) {
+      super(LOOP_DELAY, 0, lastRunDelay);
+      this.blocking = blocking;
+    }
+
+    @Override
+    protected void runOrchestrator() {
+      int concurrent = concurrentRuns.incrementAndGet();
+      if (concurrent > maxConcurrentRuns.get()) {
+        maxConcurrentRuns.set(concurrent);
+      }
+      nbRuns.incrementAndGet();
+      try {
+        if (blocking) {
+          releases.acquire();
+        }
+        if (setLastRunInLoop) {
+          setLastRun();
+        }
+      } catch (InterruptedException e) {
+      } finally {
+        concurrentRuns.decrementAndGet();
+      }
+    }
+
+    void release(int nbReleases) {
+      releases.release(nbReleases);
+    }
+
+    void awaitRuns(int nb) throws Exception {
+      long timeout = System.currentTimeMillis() + 5000;
+      while (nbRuns.get() < nb && System.currentTimeMillis() < timeout) {
+        Thread.sleep(20);
+      }
+      Assertions.assertTrue(nbRuns.get() >= nb);
+    }
+  }
+}
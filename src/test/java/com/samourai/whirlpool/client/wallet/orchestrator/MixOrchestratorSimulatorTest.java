@@ -0,0 +1,178 @@
+package com.samourai.whirlpool.client.wallet.orchestrator;
+
+import com.samourai.wallet.api.backend.beans.UnspentResponse;
+import com.samourai.wallet.client.Bip84Wallet;
+import com.samourai.wallet.client.indexHandler.MemoryIndexHandler;
+import com.samourai.wallet.hd.HD_Wallet;
+import com.samourai.whirlpool.client.WhirlpoolClient;
+import com.samourai.whirlpool.client.mix.MixParams;
+import com.samourai.whirlpool.client.mix.handler.Bip84PostmixHandler;
+import com.samourai.whirlpool.client.mix.handler.PremixHandler;
+import com.samourai.whirlpool.client.mix.handler.UtxoWithBalance;
+import com.samourai.whirlpool.client.mix.listener.MixFailReason;
+import com.samourai.whirlpool.client.mix.listener.MixStep;
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.test.CoordinatorSimulator;
+import com.samourai.whirlpool.client.wallet.beans.*;
+import com.samourai.whirlpool.client.whirlpool.WhirlpoolClientConfig;
+import com.samourai.whirlpool.client.whirlpool.beans.Pool;
+import com.samourai.whirlpool.client.whirlpool.listener.WhirlpoolClientListener;
+import java.util.*;
+import java8.util.stream.Stream;
+import java8.util.stream.StreamSupport;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.Sha256Hash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Real MixClients driven by MixOrchestrator against an in-process coordinator. Run a load test
+ * with -Dsimulator.clients=2000 -Dsimulator.latency=50
+ */
+public class MixOrchestratorSimulatorTest extends AbstractTest {
+  private static final Logger log = LoggerFactory.getLogger(MixOrchestratorSimulatorTest.class);
+  private static final long PREMIX_BALANCE = 100500;
+
+  private int nbClients = Integer.getInteger("simulator.clients", 20);
+  private int latency = Integer.getInteger("simulator.latency", 10);
+
+  private CoordinatorSimulator simulator;
+  private WhirlpoolClientConfig config;
+  private Bip84Wallet postmixWallet;
+  private Map<String, ECKey> utxoKeys;
+  private MixOrchestrator mixOrchestrator;
+  private String poolId;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    poolId = pool001btc.getPoolId();
+    simulator = new CoordinatorSimulator(params, getPools());
+    simulator.setLatency(0, latency);
+    config =
+        new WhirlpoolClientConfig(
+            simulator.newHttpClient(), simulator, null, "simulator", params, false, null, 1, 60);
+
+    String seedWords = "all all all all all all all all all all all all";
+    byte[] seed = hdWalletFactory.computeSeedFromWords(seedWords);
+    HD_Wallet bip84w = hdWalletFactory.getBIP84(seed, "whirlpool", params);
+    postmixWallet =
+        new Bip84Wallet(
+            bip84w,
+            WhirlpoolWalletAccount.POSTMIX.getAccountIndex(),
+            new MemoryIndexHandler(),
+            new MemoryIndexHandler());
+    utxoKeys = new HashMap<String, ECKey>();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    if (mixOrchestrator != null) {
+      mixOrchestrator.stop();
+    }
+    simulator.stop();
+  }
+
+  @Test
+  public void mix() throws Exception {
+    long elapsed = run();
+    MixMetrics.PoolMixMetrics metrics = mixOrchestrator.getMixMetrics().getPoolMetrics(poolId);
+    log.info(
+        nbClients
+            + " clients mixed in "
+            + elapsed
+            + "ms ("
+            + (simulator.getNbMixSuccess() * 1000L / Math.max(elapsed, 1))
+            + " mixs/s): "
+            + metrics);
+
+    Assertions.assertEquals(nbClients, metrics.getNbReached(MixStep.SUCCESS));
+    Assertions.assertEquals(nbClients / simulator.getAnonymitySet(), simulator.getNbMixSuccess());
+  }
+
+  @Test
+  public void mixFail() throws Exception {
+    simulator.setFailRate(1);
+    run();
+    MixMetrics.PoolMixMetrics metrics = mixOrchestrator.getMixMetrics().getPoolMetrics(poolId);
+
+    Assertions.assertEquals(0, metrics.getNbReached(MixStep.SUCCESS));
+    Assertions.assertEquals(nbClients, metrics.getNbReached(MixStep.CONFIRMED_INPUT));
+    Assertions.assertEquals(nbClients, metrics.getNbFails(MixFailReason.MIX_FAILED));
+    Assertions.assertEquals(nbClients / simulator.getAnonymitySet(), simulator.getNbMixFail());
+  }
+
+  // returns elapsed time when all mixs are done
+  private long run() throws Exception {
+    final List<WhirlpoolUtxo> utxos = new ArrayList<WhirlpoolUtxo>();
+    for (int i = 0; i < nbClients; i++) {
+      String hash = Sha256Hash.of(("utxo" + i).getBytes()).toString();
+      UnspentResponse.UnspentOutput utxo = newUnspentOutput(hash, 0, PREMIX_BALANCE);
+      WhirlpoolUtxoConfig utxoConfig =
+          new WhirlpoolUtxoConfig(poolId, 5, 0, System.currentTimeMillis());
+      utxos.add(
+          new WhirlpoolUtxo(utxo, WhirlpoolAccount.PREMIX, utxoConfig, WhirlpoolUtxoStatus.READY));
+      utxoKeys.put(hash, new ECKey());
+    }
+
+    MixOrchestratorData data =
+        new MixOrchestratorData(new MixingStateEditable(false)) {
+          @Override
+          public Stream<WhirlpoolUtxo> getQueue() {
+            return StreamSupport.stream(utxos);
+          }
+
+          @Override
+          public Collection<Pool> getPools() throws Exception {
+            return MixOrchestratorSimulatorTest.this.getPools();
+          }
+        };
+    mixOrchestrator =
+        new MixOrchestrator(999999, 0, data, nbClients, nbClients, true, 99) {
+          @Override
+          protected WhirlpoolClient runWhirlpoolClient(
+              WhirlpoolUtxo whirlpoolUtxo, WhirlpoolClientListener listener) {
+            UnspentResponse.UnspentOutput utxo = whirlpoolUtxo.getUtxo();
+            UtxoWithBalance utxoWithBalance =
+                new UtxoWithBalance(utxo.tx_hash, utxo.tx_output_n, utxo.value);
+            MixParams mixParams =
+                new MixParams(
+                    pool001btc,
+                    new PremixHandler(utxoWithBalance, utxoKeys.get(utxo.tx_hash), "userPreHash"),
+                    new Bip84PostmixHandler(postmixWallet, false));
+            WhirlpoolClient whirlpoolClient = config.newClient();
+            whirlpoolClient.whirlpool(mixParams, listener);
+            return whirlpoolClient;
+          }
+        };
+
+    long startTime = System.currentTimeMillis();
+    WhirlpoolUtxoChanges whirlpoolUtxoChanges = new WhirlpoolUtxoChanges(true);
+    whirlpoolUtxoChanges.getUtxosDetected().addAll(utxos);
+    mixOrchestrator.onUtxoChanges(whirlpoolUtxoChanges);
+    mixOrchestrator.start(true);
+    while (mixOrchestrator.findAndMix()) {}
+
+    // wait for all mixs to end
+    long timeout = startTime + 60000 + nbClients * 100L;
+    while (computeNbDone() < nbClients && System.currentTimeMillis() < timeout) {
+      Thread.sleep(100);
+    }
+    return System.currentTimeMillis() - startTime;
+  }
+
+  private long computeNbDone() {
+    MixMetrics.PoolMixMetrics metrics = mixOrchestrator.getMixMetrics().getPoolMetrics(poolId);
+    if (metrics == null) {
+      return 0;
+    }
+    long nbDone = metrics.getNbReached(MixStep.SUCCESS);
+    for (MixFailReason reason : MixFailReason.values()) {
+      nbDone += metrics.getNbFails(reason);
+    }
+    return nbDone;
+  }
+}
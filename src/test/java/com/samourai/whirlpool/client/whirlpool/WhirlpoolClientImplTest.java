@@ -0,0 +1,208 @@
+package com.samourai.whirlpool.client.whirlpool;
+
+import com.samourai.wallet.api.backend.beans.UnspentResponse;
+import com.samourai.wallet.client.Bip84Wallet;
+import com.samourai.wallet.client.indexHandler.MemoryIndexHandler;
+import com.samourai.wallet.hd.HD_Wallet;
+import com.samourai.whirlpool.client.WhirlpoolClient;
+import com.samourai.whirlpool.client.mix.MixParams;
+import com.samourai.whirlpool.client.mix.handler.Bip84PostmixHandler;
+import com.samourai.whirlpool.client.mix.handler.PremixHandler;
+import com.samourai.whirlpool.client.mix.handler.UtxoWithBalance;
+import com.samourai.whirlpool.client.mix.listener.MixFailReason;
+import com.samourai.whirlpool.client.mix.listener.MixStep;
+import com.samourai.whirlpool.client.mix.listener.MixSuccess;
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.test.CoordinatorSimulator;
+import com.samourai.whirlpool.client.wallet.beans.MixProgress;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolWalletAccount;
+import com.samourai.whirlpool.client.whirlpool.listener.WhirlpoolClientListener;
+import io.reactivex.subjects.BehaviorSubject;
+import io.reactivex.subjects.Subject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java8.util.Lists;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.Sha256Hash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class WhirlpoolClientImplTest extends AbstractTest {
+  private static final long PREMIX_BALANCE = 100500;
+
+  private CoordinatorSimulator simulator;
+  private WhirlpoolClientConfig config;
+  private Bip84Wallet postmixWallet;
+  private int nbUtxos;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    simulator = new CoordinatorSimulator(params, getPools());
+    config =
+        new WhirlpoolClientConfig(
+            simulator.newHttpClient(), simulator, null, "simulator", params, false, null, 1, 60);
+
+    byte[] seed =
+        hdWalletFactory.computeSeedFromWords("all all all all all all all all all all all all");
+    HD_Wallet bip84w = hdWalletFactory.getBIP84(seed, "whirlpool", params);
+    postmixWallet =
+        new Bip84Wallet(
+            bip84w,
+            WhirlpoolWalletAccount.POSTMIX.getAccountIndex(),
+            new MemoryIndexHandler(),
+            new MemoryIndexHandler());
+    nbUtxos = 0;
+  }
+
+  @AfterEach
+  public void tearDown() {
+    simulator.stop();
+  }
+
+  @Test
+  public void start() throws Exception {
+    int anonymitySet = simulator.getAnonymitySet();
+    List<TestListener> listeners = new ArrayList<TestListener>();
+    for (int i = 0; i < anonymitySet; i++) {
+      TestListener listener = new TestListener();
+      config.newClient().whirlpool(newMixParams(), listener);
+      listeners.add(listener);
+    }
+
+    for (TestListener listener : listeners) {
+      listener.awaitDone();
+      Assertions.assertEquals(1, listener.nbSuccess);
+      Assertions.assertTrue(listener.fails.isEmpty());
+      Assertions.assertTrue(listener.steps.contains(MixStep.CONNECTING));
+    }
+    Assertions.assertEquals(1, simulator.getNbMixSuccess());
+  }
+
+  @Test
+  public void stopBeforeRun() throws Exception {
+    final List<Runnable> tasks = new ArrayList<Runnable>();
+    config.setClientExecutor(
+        new Executor() {
+          @Override
+          public void execute(Runnable runnable) {
+            tasks.add(runnable); // run manually
+          }
+        });
+
+    TestListener listenerStop = new TestListener();
+    WhirlpoolClient clientStop = config.newClient();
+    clientStop.whirlpool(newMixParams(), listenerStop);
+    TestListener listenerCancel = new TestListener();
+    WhirlpoolClient clientCancel = config.newClient();
+    clientCancel.whirlpool(newMixParams(), listenerCancel);
+
+    clientStop.stop(false);
+    clientStop.stop(false);
+    clientCancel.stop(true);
+    Assertions.assertEquals(Lists.of(MixFailReason.STOP), listenerStop.fails);
+    Assertions.assertEquals(Lists.of(MixFailReason.CANCEL), listenerCancel.fails);
+
+    // never connects
+    for (Runnable task : tasks) {
+      task.run();
+    }
+    Assertions.assertEquals(0, simulator.getNbSessions());
+    Assertions.assertTrue(listenerStop.steps.isEmpty());
+    Assertions.assertEquals(1, listenerStop.fails.size());
+  }
+
+  @Test
+  public void stopDuringConnect() throws Exception {
+    simulator.setLatency(500, 500);
+    TestListener listener = new TestListener();
+    WhirlpoolClient client = config.newClient();
+    client.whirlpool(newMixParams(), listener);
+
+    long timeout = System.currentTimeMillis() + 5000;
+    while (!listener.hasStep(MixStep.CONNECTING) && System.currentTimeMillis() < timeout) {
+      Thread.sleep(20);
+    }
+    Assertions.assertTrue(listener.hasStep(MixStep.CONNECTING));
+    Assertions.assertFalse(listener.hasStep(MixStep.CONNECTED));
+
+    client.stop(false);
+    Assertions.assertEquals(Lists.of(MixFailReason.STOP), listener.fails);
+
+    // late connection is ignored
+    Thread.sleep(1000);
+    Assertions.assertEquals(1, listener.fails.size());
+    Assertions.assertEquals(0, listener.nbSuccess);
+  }
+
+  @Test
+  public void replaceClientExecutor() throws Exception {
+    // lazily created executor is released when replaced
+    ExecutorService created = (ExecutorService) config.getClientExecutor();
+    ExecutorService provided = Executors.newSingleThreadExecutor();
+    config.setClientExecutor(provided);
+    Assertions.assertTrue(created.isShutdown());
+    Assertions.assertSame(provided, config.getClientExecutor());
+
+    // provided executor is left to its owner
+    if (config.useVirtualThreads()) {
+      Assertions.assertNotSame(provided, config.getClientExecutor());
+    }
+    config.setClientExecutor(null);
+    Assertions.assertFalse(provided.isShutdown());
+    provided.shutdown();
+  }
+
+  private MixParams newMixParams() {
+    String hash = Sha256Hash.of(("utxo" + nbUtxos++).getBytes()).toString();
+    UnspentResponse.UnspentOutput utxo = newUnspentOutput(hash, 0, PREMIX_BALANCE);
+    UtxoWithBalance utxoWithBalance =
+        new UtxoWithBalance(utxo.tx_hash, utxo.tx_output_n, utxo.value);
+    return new MixParams(
+        pool001btc,
+        new PremixHandler(utxoWithBalance, new ECKey(), "userPreHash"),
+        new Bip84PostmixHandler(postmixWallet, false));
+  }
+
+  private static class TestListener implements WhirlpoolClientListener {
+    private final List<MixStep> steps = new ArrayList<MixStep>();
+    private final List<MixFailReason> fails = new ArrayList<MixFailReason>();
+    private volatile int nbSuccess;
+    private final Subject<MixProgress> observable = BehaviorSubject.create();
+
+    @Override
+    public synchronized void success(MixSuccess mixSuccess) {
+      nbSuccess++;
+    }
+
+    @Override
+    public synchronized void fail(MixFailReason reason, String notifiableError) {
+      fails.add(reason);
+    }
+
+    @Override
+    public synchronized void progress(MixStep step) {
+      steps.add(step);
+    }
+
+    @Override
+    public Subject<MixProgress> getObservable() {
+      return observable;
+    }
+
+    synchronized boolean hasStep(MixStep step) {
+      return steps.contains(step);
+    }
+
+    void awaitDone() throws Exception {
+      long timeout = System.currentTimeMillis() + 30000;
+      while (nbSuccess == 0 && fails.isEmpty() && System.currentTimeMillis() < timeout) {
+        Thread.sleep(50);
+      }
+    }
+  }
+}